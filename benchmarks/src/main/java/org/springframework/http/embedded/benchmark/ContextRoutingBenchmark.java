@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandlerContainer;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.server.handler.HandlerCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.embedded.ContextRouting;
+import org.springframework.http.embedded.jetty.ContextRouter;
+
+/**
+ * Compares the time taken to route a request to one of the deployed contexts by the context
+ * handler collection of Jetty and by the {@link ContextRouter}. The contexts only mark the
+ * requests handled so that the routing alone is measured, run with
+ * <pre>
+ * java -jar target/benchmarks.jar ContextRoutingBenchmark
+ * </pre>
+ * @author Amol Nayak
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextRoutingBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int contexts;
+
+	@Param({"PATH_MAP", "TRIE"})
+	private ContextRouting routing;
+
+	private HandlerCollection router;
+
+	private String[] targets;
+
+	private Request request;
+
+	private int next;
+
+	@Setup
+	public void setUp() throws Exception {
+		router = ContextRouting.TRIE.equals(routing) ? new ContextRouter() : new ContextHandlerCollection();
+		Handler[] handlers = new Handler[contexts];
+		for(int i = 0; i < contexts; i++) {
+			handlers[i] = new RoutedHandler("/service" + i);
+		}
+		router.setHandlers(handlers);
+		router.start();
+		//A prime number of targets spread over the contexts
+		targets = new String[1031];
+		for(int i = 0; i < targets.length; i++) {
+			targets[i] = "/service" + ((i * 7919) % contexts) + "/api/v1/resource/" + i;
+		}
+		request = new Request();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		router.stop();
+	}
+
+	@Benchmark
+	public boolean route() throws Exception {
+		String target = targets[next];
+		next = next + 1 == targets.length ? 0 : next + 1;
+		request.setHandled(false);
+		router.handle(target, request, request, null);
+		return request.isHandled();
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.include(ContextRoutingBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+	/**
+	 * A context that marks the requests routed to it handled, the router finds its context path
+	 * through the context handler it holds
+	 */
+	private static class RoutedHandler extends AbstractHandlerContainer {
+
+		private final ContextHandler context;
+
+		private RoutedHandler(String contextPath) {
+			this.context = new ContextHandler(contextPath);
+		}
+
+		@Override
+		public void handle(String target, Request baseRequest, HttpServletRequest request,
+				HttpServletResponse response) throws IOException, ServletException {
+			String contextPath = context.getContextPath();
+			if(target.startsWith(contextPath) 
+					&& (target.length() == contextPath.length() || target.charAt(contextPath.length()) == '/'))
+				baseRequest.setHandled(true);
+		}
+
+		@Override
+		public Handler[] getHandlers() {
+			return new Handler[]{context};
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected Object expandChildren(Object list, Class<?> byClass) {
+			return expandHandler(context, list, (Class<Handler>)byClass);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.embedded.EmbeddedJettyServer;
+import org.springframework.http.embedded.ExecutionMode;
+import org.springframework.http.embedded.ServerConfig;
+import org.springframework.http.embedded.ServerRunStatus;
+import org.springframework.http.embedded.ServletMapping;
+import org.springframework.http.embedded.WebApplication;
+
+/**
+ * Compares the platform thread pool and the virtual thread execution modes with more concurrent
+ * requests than the pool has threads, each blocking in the servlet as on a call to a slow downstream.
+ * The platform pool runs only a few of them at a time while the virtual threads run all of them, run
+ * on a JDK supporting virtual threads with
+ * <pre>
+ * java -jar target/benchmarks.jar ExecutionModeBenchmark
+ * </pre>
+ * On older JDKs the virtual thread mode falls back to the platform pool and both modes measure the same
+ *
+ * @author Amol Nayak
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+	@Param({"PLATFORM_THREADS", "VIRTUAL_THREADS"})
+	private ExecutionMode executionMode;
+
+	//The acceptor and the selector take two of these
+	@Param({"6"})
+	private int maxThreads;
+
+	@Param({"200"})
+	private long blockingTime;
+
+	private EmbeddedJettyServer server;
+
+	private URL url;
+
+	@Setup
+	public void setUp() throws Exception {
+		int port = getFreePort();
+		ServerConfig config = new ServerConfig();
+		config.setStartupPort(port);
+		config.setExecutionMode(executionMode);
+		config.getThreadPoolConfig().setMinThreads(2);
+		config.getThreadPoolConfig().setMaxThreads(maxThreads);
+		server = new EmbeddedJettyServer();
+		server.initialize(config);
+		WebApplication webApp = new WebApplication();
+		webApp.setServletMappings(Collections.singletonList(
+				new ServletMapping(new BlockingServlet(blockingTime), "/block")));
+		webApp.setContextPath("/test");
+		webApp.afterPropertiesSet();
+		server.deployApplication(webApp);
+		server.start();
+		if(!ServerRunStatus.RUNNING.equals(server.getStatus()))
+			throw new IllegalStateException("The server failed to start, its status is " + server.getStatus());
+		url = new URL("http://127.0.0.1:" + port + "/test/block");
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop();
+	}
+
+	@Benchmark
+	public int request() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+		int status = connection.getResponseCode();
+		if(status != HttpServletResponse.SC_OK)
+			throw new IllegalStateException("Received the status " + status + " from " + url);
+		//Read to the end so that the connection is kept alive for the next request
+		InputStream in = connection.getInputStream();
+		while(in.read() != -1);
+		in.close();
+		return status;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.include(ExecutionModeBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+	private static int getFreePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * Blocks for the given time before writing the response
+	 */
+	private static class BlockingServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long blockingTime;
+
+		private BlockingServlet(long blockingTime) {
+			this.blockingTime = blockingTime;
+		}
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			try {
+				Thread.sleep(blockingTime);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			resp.getWriter().write("done");
+		}
+	}
+}
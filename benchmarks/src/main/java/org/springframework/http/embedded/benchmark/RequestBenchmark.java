@@ -0,0 +1,302 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.embedded.CompressionConfig;
+import org.springframework.http.embedded.ContextRouting;
+import org.springframework.http.embedded.EmbeddedJettyServer;
+import org.springframework.http.embedded.ExecutionMode;
+import org.springframework.http.embedded.ResourceCacheConfig;
+import org.springframework.http.embedded.ServerConfig;
+import org.springframework.http.embedded.ServerRunStatus;
+import org.springframework.http.embedded.ServletMapping;
+import org.springframework.http.embedded.WebApplication;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Measures the throughput and the latency of the requests to an {@link EmbeddedJettyServer} started
+ * in the same process on a free port, through the HTTP client of the JDK over keep alive connections.
+ * The web application requested is one of several deployed, it is either a servlet mapping writing the
+ * response, a web app root serving a static file or a war serving the same file.
+ * <p>
+ * The parameters are the configurable options of the server, their default values are the defaults of
+ * the server and make the baseline. A change is measured by running the benchmark on the baseline and
+ * on the changed option, as in
+ * <pre>
+ * java -jar target/benchmarks.jar RequestBenchmark -p contextRouting=PATH_MAP,TRIE -p contexts=100
+ * </pre>
+ * The servlet mappings are deployed without the support for sessions by default, the overhead of the
+ * session handler on requests not using sessions is measured by
+ * <pre>
+ * java -jar target/benchmarks.jar RequestBenchmark -p application=SERVLET -p sessions=false,true
+ * </pre>
+ * The latency percentiles are reported by the sample time mode
+ *
+ * @author Amol Nayak
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RequestBenchmark {
+
+	private static final String FILE_NAME = "content.txt";
+
+	/**
+	 * The kinds of web application requested
+	 */
+	public enum Application {
+		SERVLET, WEBAPP_DIR, WAR
+	}
+
+	@Param({"SERVLET", "WEBAPP_DIR", "WAR"})
+	private Application application;
+
+	@Param({"4096"})
+	private int responseSize;
+
+	@Param({"10"})
+	private int contexts;
+
+	@Param({"PATH_MAP"})
+	private ContextRouting contextRouting;
+
+	@Param({"PLATFORM_THREADS"})
+	private ExecutionMode executionMode;
+
+	@Param({"254"})
+	private int maxThreads;
+
+	@Param({"1"})
+	private int acceptors;
+
+	@Param({"false"})
+	private boolean compression;
+
+	@Param({"false"})
+	private boolean resourceCache;
+
+	@Param({"0"})
+	private long zeroCopyThreshold;
+
+	/**
+	 * Turns the sessions on for the servlet mappings, the servlet does not create any
+	 */
+	@Param({"false"})
+	private boolean sessions;
+
+	private File directory;
+
+	private EmbeddedJettyServer server;
+
+	private URL url;
+
+	@Setup
+	public void setUp() throws Exception {
+		directory = File.createTempFile("request-benchmark", "");
+		directory.delete();
+		directory.mkdirs();
+		byte[] content = createContent(responseSize);
+		int port = getFreePort();
+		ServerConfig config = new ServerConfig();
+		config.setStartupPort(port);
+		config.setContextRouting(contextRouting);
+		config.setExecutionMode(executionMode);
+		config.getThreadPoolConfig().setMaxThreads(maxThreads);
+		config.getConnectorConfig().setAcceptors(acceptors);
+		server = new EmbeddedJettyServer();
+		server.initialize(config);
+		for(int i = 0; i < contexts; i++) {
+			server.deployApplication(createWebApplication("/app" + i, content));
+		}
+		server.start();
+		if(!ServerRunStatus.RUNNING.equals(server.getStatus()))
+			throw new IllegalStateException("The server failed to start, its status is " + server.getStatus());
+		String path = Application.SERVLET.equals(application) ? "/payload" : "/" + FILE_NAME;
+		url = new URL("http://127.0.0.1:" + port + "/app" + (contexts - 1) + path);
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop();
+		FileSystemUtils.deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public long request(Client client) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+		if(compression)
+			connection.setRequestProperty("Accept-Encoding", "gzip");
+		int status = connection.getResponseCode();
+		if(status != HttpServletResponse.SC_OK)
+			throw new IllegalStateException("Received the status " + status + " from " + url);
+		//Read to the end so that the connection is kept alive for the next request
+		InputStream in = connection.getInputStream();
+		long read = 0;
+		int count;
+		while((count = in.read(client.buffer)) != -1) {
+			read += count;
+		}
+		in.close();
+		return read;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.include(RequestBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+	private WebApplication createWebApplication(String contextPath, byte[] content) throws Exception {
+		WebApplication webApp = new WebApplication();
+		webApp.setContextPath(contextPath);
+		switch (application) {
+			case SERVLET:
+				webApp.setServletMappings(Collections.singletonList(
+						new ServletMapping(new PayloadServlet(content), "/payload")));
+				webApp.setSessions(sessions);
+				break;
+			case WEBAPP_DIR:
+				File root = new File(directory, contextPath.substring(1));
+				root.mkdirs();
+				FileCopyUtils.copy(content, new File(root, FILE_NAME));
+				webApp.setWebAppRoot(root.getAbsolutePath());
+				break;
+			case WAR:
+				File war = new File(directory, contextPath.substring(1) + ".war");
+				createWar(war, content);
+				webApp.setWarPath(war.getAbsolutePath());
+				break;
+		}
+		if(compression)
+			webApp.setCompressionConfig(new CompressionConfig());
+		if(resourceCache)
+			webApp.setResourceCacheConfig(new ResourceCacheConfig());
+		webApp.setZeroCopyThreshold(zeroCopyThreshold);
+		webApp.afterPropertiesSet();
+		return webApp;
+	}
+
+	/**
+	 * Creates a war holding nothing but the static file and its deployment descriptor
+	 */
+	private void createWar(File war, byte[] content) throws IOException {
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(war));
+		try {
+			out.putNextEntry(new ZipEntry("WEB-INF/web.xml"));
+			out.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+					+ "<web-app xmlns=\"http://java.sun.com/xml/ns/javaee\" version=\"2.5\"/>\n").getBytes("UTF-8"));
+			out.closeEntry();
+			out.putNextEntry(new ZipEntry(FILE_NAME));
+			out.write(content);
+			out.closeEntry();
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Creates text of the given size, compressible like the usual responses
+	 */
+	private static byte[] createContent(int size) {
+		byte[] line = "The quick brown fox jumps over the lazy dog 0123456789\n".getBytes();
+		byte[] content = new byte[size];
+		for(int i = 0; i < size; i++) {
+			content[i] = line[i % line.length];
+		}
+		return content;
+	}
+
+	private static int getFreePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * The buffer each client thread reads the responses in
+	 */
+	@State(Scope.Thread)
+	public static class Client {
+
+		private final byte[] buffer = new byte[8192];
+	}
+
+	/**
+	 * Writes the same content on every request, as a servlet rendering a response would
+	 */
+	private static class PayloadServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] content;
+
+		private PayloadServlet(byte[] content) {
+			this.content = Arrays.copyOf(content, content.length);
+		}
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			resp.setContentType("text/plain");
+			resp.setContentLength(content.length);
+			resp.getOutputStream().write(content);
+		}
+	}
+}
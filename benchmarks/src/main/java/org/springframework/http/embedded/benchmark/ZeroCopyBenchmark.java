@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.embedded.EmbeddedJettyServer;
+import org.springframework.http.embedded.ServerConfig;
+import org.springframework.http.embedded.ServerRunStatus;
+import org.springframework.http.embedded.WebApplication;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Compares the time taken to serve a large static file copied through the heap by the default servlet
+ * with the time taken to serve it from a memory mapped buffer, the zero copy threshold being 0 for the
+ * former. The size of the file is given in MB, run with
+ * <pre>
+ * java -jar target/benchmarks.jar ZeroCopyBenchmark -p fileSize=512
+ * </pre>
+ * The warm up iterations bring the file in the page cache, both the modes serve it from there
+ *
+ * @author Amol Nayak
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(1)
+@Fork(1)
+public class ZeroCopyBenchmark {
+
+	private static final String FILE_NAME = "large.bin";
+
+	@Param({"256"})
+	private int fileSize;
+
+	@Param({"0", "1048576"})
+	private long zeroCopyThreshold;
+
+	private File directory;
+
+	private EmbeddedJettyServer server;
+
+	private URL url;
+
+	@Setup
+	public void setUp() throws Exception {
+		directory = File.createTempFile("zero-copy-benchmark", "");
+		directory.delete();
+		directory.mkdirs();
+		createFile(new File(directory, FILE_NAME), fileSize * 1024L * 1024L);
+		int port = getFreePort();
+		ServerConfig config = new ServerConfig();
+		config.setStartupPort(port);
+		server = new EmbeddedJettyServer();
+		server.initialize(config);
+		WebApplication webApp = new WebApplication();
+		webApp.setContextPath("/static");
+		webApp.setWebAppRoot(directory.getAbsolutePath());
+		webApp.setZeroCopyThreshold(zeroCopyThreshold);
+		webApp.afterPropertiesSet();
+		server.deployApplication(webApp);
+		server.start();
+		if(!ServerRunStatus.RUNNING.equals(server.getStatus()))
+			throw new IllegalStateException("The server failed to start, its status is " + server.getStatus());
+		url = new URL("http://127.0.0.1:" + port + "/static/" + FILE_NAME);
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop();
+		FileSystemUtils.deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public long download(Client client) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+		int status = connection.getResponseCode();
+		if(status != HttpServletResponse.SC_OK)
+			throw new IllegalStateException("Received the status " + status + " from " + url);
+		InputStream in = connection.getInputStream();
+		long read = 0;
+		int count;
+		while((count = in.read(client.buffer)) != -1) {
+			read += count;
+		}
+		in.close();
+		return read;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.include(ZeroCopyBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+	/**
+	 * Writes a file of the given size in chunks of random bytes
+	 */
+	private static void createFile(File file, long size) throws IOException {
+		byte[] chunk = new byte[1024 * 1024];
+		new Random(size).nextBytes(chunk);
+		OutputStream out = new FileOutputStream(file);
+		try {
+			for(long written = 0; written < size; written += chunk.length) {
+				out.write(chunk, 0, (int)Math.min(chunk.length, size - written));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	private static int getFreePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * The buffer each client thread reads the responses in
+	 */
+	@State(Scope.Thread)
+	public static class Client {
+
+		private final byte[] buffer = new byte[64 * 1024];
+	}
+}
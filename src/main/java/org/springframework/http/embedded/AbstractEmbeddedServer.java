@@ -15,11 +15,18 @@
  */
 package org.springframework.http.embedded;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.http.embedded.StartupReport.Phase;
+import org.springframework.http.embedded.StartupReport.Timing;
 
 
 
@@ -35,9 +42,15 @@ public abstract class AbstractEmbeddedServer implements EmbeddedServer {
 	protected ServerConfig config;
 	private AtomicBoolean initialized = new AtomicBoolean(false);
 	private AtomicBoolean started = new AtomicBoolean(false);
-	private ServerRunStatus runStatus = ServerRunStatus.STOPPED;
+	private volatile ServerRunStatus runStatus = ServerRunStatus.STOPPED;
+	private final Object lifecycleMonitor = new Object();	//the start and the stop are run one at a time
 	private ConcurrentHashMap<String,Object> deployedContexts = new ConcurrentHashMap<String, Object>();
 	private static final Object STATIC_VALUE = new Object();
+	private final List<Timing> startupTimings = new CopyOnWriteArrayList<Timing>();
+	private volatile StartupReport startupReport;
+	private volatile int drainedRequests;
+	private volatile int abortedRequests;
+	private volatile ShutdownReport shutdownReport;
 	
 	/* (non-Javadoc)
 	 * @see org.springframework.http.embedded.EmbeddedServer#initialize(org.springframework.http.embedded.ServerConfig)
@@ -48,7 +61,9 @@ public abstract class AbstractEmbeddedServer implements EmbeddedServer {
 			logger.debug("Initializing the server configuration, configuring to start on port " + config.getStartupPort());
 		
 		if(initialized.compareAndSet(false, true)) {
+			long start = System.nanoTime();
 			this.config = config; 
+			recordStartupTiming(Phase.INITIALIZE, null, start);
 		} else {			
 			logger.warn("Cannot initialize as the server is already initialized");
 		}
@@ -61,23 +76,118 @@ public abstract class AbstractEmbeddedServer implements EmbeddedServer {
 	public final void start() {
 		if(config == null)
 			throw new IllegalStateException("Cannot start an uninitialized server");
+		if(!triggerStart()) {
+			if(logger.isInfoEnabled())
+				logger.info("Start of the server already triggered, current status of the server is " + getStatus());
+			return;
+		}
+		try {
+			startServer(null);
+		} catch (Exception e) {
+			//Logged, the status of the server tells the failure
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.EmbeddedServer#startAsync()
+	 */
+	@Override
+	public final CompletableFuture<StartupReport> startAsync() {
+		return startAsync(null);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.EmbeddedServer#startAsync(java.util.concurrent.Future)
+	 */
+	@Override
+	public final CompletableFuture<StartupReport> startAsync(final Future<?> openPorts) {
+		if(config == null)
+			throw new IllegalStateException("Cannot start an uninitialized server");
+		final CompletableFuture<StartupReport> future = new CompletableFuture<StartupReport>();
+		if(!triggerStart()) {
+			future.completeExceptionally(new IllegalStateException(
+					"Start of the server already triggered, current status of the server is " + getStatus()));
+			return future;
+		}
+		runAsync("embedded-server-starter", new Runnable() {
+			@Override
+			public void run() {
+				try {
+					future.complete(startServer(openPorts));
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			}
+		});
+		return future;
+	}
+	
+	/**
+	 * Marks the server as starting, a stop requested from then on stops the server once it is
+	 * started or before its ports are opened
+	 * @return false if the start of the server was already triggered
+	 */
+	private boolean triggerStart() {
 		if(logger.isDebugEnabled())
 			logger.debug("Starting the server");
-		
-		if(started.compareAndSet(false, true)) {
-			runStatus = ServerRunStatus.STARTING;
-			try {
+		if(!started.compareAndSet(false, true))
+			return false;
+		runStatus = ServerRunStatus.STARTING;
+		return true;
+	}
+	
+	/**
+	 * Starts the server triggered to start in the calling thread, the web applications are prepared
+	 * first and the ports opened once the given future completes, if any 
+	 * @return the report of the start
+	 * @throws Exception the cause of the failure to start, the status of the server is failed then
+	 */
+	private StartupReport startServer(Future<?> openPorts) throws Exception {
+		long start = System.nanoTime();
+		try {
+			synchronized (lifecycleMonitor) {
+				if(!started.get())
+					throw new IllegalStateException("The server was stopped before it was started");
+				//The phases of a previous start are timed again
+				for(Timing timing:startupTimings) {
+					if(!Phase.INITIALIZE.equals(timing.getPhase()) && !Phase.DEPLOY.equals(timing.getPhase()))
+						startupTimings.remove(timing);
+				}
+				doPrepare();
+			}
+			if(openPorts != null) {
+				try {
+					openPorts.get();
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Not opening the ports of the server", e.getCause());
+				}
+			}
+			synchronized (lifecycleMonitor) {
+				if(!started.get())
+					throw new IllegalStateException("The server was stopped before its ports were opened");
 				doStart();
-			} catch (Exception e) {
-				logger.error("Exception occurred while starting the embedded server",e);
-				runStatus = ServerRunStatus.FAILED;
-				return;
+				runStatus = ServerRunStatus.RUNNING;
 			}
-			runStatus = ServerRunStatus.RUNNING;
-		} else {
-			if(logger.isInfoEnabled())
-				logger.info("Start of the server already triggered, current status of the server is " + getStatus());
+		} catch (Exception e) {
+			logger.error("Exception occurred while starting the embedded server",e);
+			if(ServerRunStatus.STARTING.equals(runStatus))
+				runStatus = ServerRunStatus.FAILED;
+			throw e;
 		}
+		StartupReport report = new StartupReport(startupTimings, (System.nanoTime() - start) / 1000);
+		startupReport = report;
+		if(logger.isInfoEnabled())
+			logger.info(report.getSummary());
+		return report;
+	}
+	
+	/**
+	 * The subclass can implement the method to prepare the server ahead of its start without accepting
+	 * connections, such as starting the web applications, so that the start completes quickly once the
+	 * ports are to be opened. Invoked in the same thread right before {@link #doStart()} unless the ports
+	 * are opened later, the stop of the server may be requested in between. Does nothing by default 
+	 */
+	protected void doPrepare() throws Exception {
 	}
 	
 	/**
@@ -93,27 +203,85 @@ public abstract class AbstractEmbeddedServer implements EmbeddedServer {
 	 */
 	@Override
 	public final void stop() {
+		try {
+			if(stopServer() == null)
+				logger.info("Server not started or in process of stopping, server run status is \"" + runStatus + "\"");
+		} catch (Exception e) {
+			//Logged, the status of the server tells the failure
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.EmbeddedServer#stopAsync()
+	 */
+	@Override
+	public final CompletableFuture<ShutdownReport> stopAsync() {
+		final CompletableFuture<ShutdownReport> future = new CompletableFuture<ShutdownReport>();
+		runAsync("embedded-server-stopper", new Runnable() {
+			@Override
+			public void run() {
+				try {
+					ShutdownReport report = stopServer();
+					if(report == null)
+						throw new IllegalStateException("Server not started or in process of stopping, server run status is \"" 
+								+ runStatus + "\"");
+					future.complete(report);
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			}
+		});
+		return future;
+	}
+	
+	/**
+	 * Stops the server in the calling thread, after the start in progress if any
+	 * @return the report of the stop, null if the server was not started
+	 * @throws Exception the cause of the failure to stop, the status of the server is unknown then
+	 */
+	private ShutdownReport stopServer() throws Exception {
 		if(logger.isDebugEnabled())
 			logger.debug("Stopping the server");
-		
-		if(started.compareAndSet(true, false)) {
+		if(!started.compareAndSet(true, false))
+			return null;
+		synchronized (lifecycleMonitor) {
 			runStatus = ServerRunStatus.STOPPING;
+			drainedRequests = 0;
+			abortedRequests = 0;
+			long start = System.nanoTime();
 			try {
 				doStop();
 			} catch (Exception e) {
 				logger.error("Caught Exception while stopping the server",e);
 				runStatus = ServerRunStatus.UNKNOWN;
-				return;
+				throw e;
 			}
 			runStatus = ServerRunStatus.STOPPED;
-		} else {
-			logger.info("Server not started or in process of stopping, server run status is \"" + runStatus + "\"");
+			ShutdownReport report = new ShutdownReport(drainedRequests, abortedRequests, (System.nanoTime() - start) / 1000);
+			shutdownReport = report;
+			if(abortedRequests > 0)
+				logger.warn(report.getSummary());
+			else if(logger.isInfoEnabled())
+				logger.info(report.getSummary());
+			return report;
 		}
 	}
 	
+	/**
+	 * Runs the given task on a new thread, the server is started and stopped on its own thread
+	 * by the asynchronous methods
+	 */
+	private void runAsync(String threadName, Runnable task) {
+		Thread thread = new Thread(task, threadName);
+		thread.start();
+	}
+	
 	/**
 	 * The method that needs to be implemented by the concrete subclass to stop the embedded server
-	 * The stopping of the server should happen in the same thread and the implementing class should not spawn a new thread
+	 * The stopping of the server should happen in the same thread and the implementing class should not spawn a new thread.
+	 * The implementing class should stop accepting connections first and give the requests being handled up to the
+	 * stop timeout of the {@link ServerConfig} to complete, recording them with {@link #recordDrainedRequests(int, int)}.
+	 * The server may have been prepared only, or failed to start
 	 * @throws Exception
 	 */
 	protected abstract void doStop() throws Exception;
@@ -130,7 +298,10 @@ public abstract class AbstractEmbeddedServer implements EmbeddedServer {
 		if(deployedContexts.putIfAbsent(contextPath, STATIC_VALUE) == null) {
 			boolean appDeploymentStatus;
 			try {
+				long start = System.nanoTime();
 				appDeploymentStatus = doDeployApplication(webapp);
+				if(appDeploymentStatus && !started.get())
+					recordStartupTiming(Phase.DEPLOY, contextPath, start);
 				if(appDeploymentStatus)
 					return;
 			} catch (Exception e) {
@@ -147,6 +318,31 @@ public abstract class AbstractEmbeddedServer implements EmbeddedServer {
 		throw new DuplicateContextPathException(contextPath);
 	}
 	
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.EmbeddedServer#undeployApplication(java.lang.String)
+	 */
+	@Override
+	public final boolean undeployApplication(String contextPath) {
+		if(logger.isDebugEnabled())
+			logger.debug("Attempting to undeploy the web application on the context path \"" +  contextPath + "\"");
+		
+		if(!deployedContexts.containsKey(contextPath)) {
+			logger.info("No web application is deployed on the context path \"" + contextPath + "\"");
+			return false;
+		}
+		boolean undeployed;
+		try {
+			undeployed = doUndeployApplication(contextPath);
+		} catch (Exception e) {
+			logger.error("Caught exception while undeploying web application with context path \"" + contextPath + "\"", e);
+			undeployed = false;
+		}
+		if(undeployed)
+			//to enable redeployment with this context path
+			deployedContexts.remove(contextPath, STATIC_VALUE);
+		return undeployed;
+	}
+	
 	/**
 	 * The method to be implemented by the subclass to deploy the provided web application on the embedded server
 	 * @return 	boolean flag indicating the sub class successfully deployed the application to the embedded server, true if 
@@ -154,6 +350,53 @@ public abstract class AbstractEmbeddedServer implements EmbeddedServer {
 	 * @throws Exception
 	 */
 	protected abstract boolean doDeployApplication(WebApplication webapp);
+	
+	/**
+	 * The method to be implemented by the subclass to undeploy the web application deployed on the given
+	 * context path, letting the requests being handled by it complete first if the server is started
+	 * @return 	boolean flag indicating the sub class undeployed the application, false if it was not deployed
+	 */
+	protected abstract boolean doUndeployApplication(String contextPath);
+
+	/**
+	 * Records the time taken by a phase of bringing up the server until now, the subclasses
+	 * record the phases they take on start
+	 * 
+	 * @param phase the phase taken
+	 * @param name	the context path or the connector the phase was taken for, null if taken for the server
+	 * @param startNanos the value of {@link System#nanoTime()} when the phase began
+	 */
+	protected void recordStartupTiming(Phase phase, String name, long startNanos) {
+		startupTimings.add(new Timing(phase, name, (System.nanoTime() - startNanos) / 1000));
+	}
+	
+	/**
+	 * Records the requests that were being handled when the server was stopped, the subclasses
+	 * record them once the requests are drained
+	 * 
+	 * @param drained	the number of requests that completed within the stop timeout
+	 * @param aborted	the number of requests still being handled when the stop timeout elapsed
+	 */
+	protected void recordDrainedRequests(int drained, int aborted) {
+		drainedRequests = drained;
+		abortedRequests = aborted;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.EmbeddedServer#getShutdownReport()
+	 */
+	@Override
+	public ShutdownReport getShutdownReport() {
+		return shutdownReport;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.EmbeddedServer#getStartupReport()
+	 */
+	@Override
+	public StartupReport getStartupReport() {
+		return startupReport;
+	}
 
 	/**
 	 * Gets the current run status of the application server
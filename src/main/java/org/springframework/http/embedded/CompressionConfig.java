@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.util.zip.Deflater;
+
+import org.springframework.util.Assert;
+
+/**
+ * The configuration of the gzip compression of the responses of a {@link WebApplication}.
+ * Only the responses of the given mime types and of at least the minimum size are compressed
+ * and only for the clients accepting the gzip encoding.
+ * <p>
+ * If the precompressed files are served, a static file is served from its sibling with the
+ * <em>.gz</em> extension when one exists instead of being compressed on every request
+ *
+ * @author Amol Nayak
+ *
+ */
+public class CompressionConfig {
+
+	private int minSize = 256;				//default one, in bytes
+
+	private String[] mimeTypes = {"text/html", "text/plain", "text/xml", "text/css", "text/javascript",
+			"application/javascript", "application/x-javascript", "application/json", "application/xml",
+			"image/svg+xml"};				//default one
+
+	private int level = Deflater.DEFAULT_COMPRESSION;	//default one
+
+	private boolean precompressed = true;	//default one
+
+	/**
+	 * Gets the size in bytes below which the responses are not compressed
+	 * @return
+	 */
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public void setMinSize(int minSize) {
+		Assert.isTrue(minSize >= 0, "The minimum size should not be negative");
+		this.minSize = minSize;
+	}
+
+	/**
+	 * Gets the mime types of the responses that are compressed
+	 * @return
+	 */
+	public String[] getMimeTypes() {
+		return mimeTypes;
+	}
+
+	public void setMimeTypes(String[] mimeTypes) {
+		Assert.notEmpty(mimeTypes, "At least one mime type should be compressed");
+		this.mimeTypes = mimeTypes;
+	}
+
+	/**
+	 * Gets the compression level from 1 (fastest) to 9 (smallest), -1 for the default of the deflater
+	 * @return
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	public void setLevel(int level) {
+		Assert.isTrue(level == Deflater.DEFAULT_COMPRESSION
+				|| (level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION),
+				"The compression level should be -1 or between 1 and 9");
+		this.level = level;
+	}
+
+	/**
+	 * Indicates if the static files are served from their precompressed <em>.gz</em> siblings
+	 * when such a file exists
+	 * @return true if the precompressed files are served, true by default
+	 */
+	public boolean isPrecompressed() {
+		return precompressed;
+	}
+
+	public void setPrecompressed(boolean precompressed) {
+		this.precompressed = precompressed;
+	}
+}
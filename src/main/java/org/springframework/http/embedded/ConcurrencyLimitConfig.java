@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+/**
+ * The configuration of the admission control of the requests to a {@link WebApplication}. The
+ * application handles at most as many requests at a time as its current limit, the requests beyond
+ * it are answered right away with a 503 status and a <em>Retry-After</em> header.
+ * <p>
+ * The limit adapts to the latency of the application. It grows by one each time as many requests as
+ * the limit complete in about the usual time while the application is busy, and it is multiplied by
+ * the backoff ratio when a request takes longer than the latency tolerance times the usual latency.
+ * The initial limit should be within the minimum and the maximum limits
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ConcurrencyLimitConfig implements InitializingBean {
+
+	private int initialLimit = 20;			//default one
+
+	private int minLimit = 1;				//default one
+
+	private int maxLimit = 1000;			//default one
+
+	private double latencyTolerance = 2.0;	//default one
+
+	private double backoffRatio = 0.9;		//default one
+
+	private int retryAfter = 1;				//default one, in seconds
+
+	/**
+	 * Checks the limits once all of them are set, whatever the order they were set in
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		Assert.isTrue(minLimit <= initialLimit && initialLimit <= maxLimit, "The initial limit " + initialLimit 
+				+ " should be between the minimum limit " + minLimit + " and the maximum limit " + maxLimit);
+	}
+
+	/**
+	 * Gets the limit the application starts with
+	 * @return
+	 */
+	public int getInitialLimit() {
+		return initialLimit;
+	}
+
+	public void setInitialLimit(int initialLimit) {
+		Assert.isTrue(initialLimit > 0, "The initial limit should be a positive number");
+		this.initialLimit = initialLimit;
+	}
+
+	/**
+	 * Gets the limit the application never goes below however slow it is
+	 * @return
+	 */
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public void setMinLimit(int minLimit) {
+		Assert.isTrue(minLimit > 0, "The minimum limit should be a positive number");
+		this.minLimit = minLimit;
+	}
+
+	/**
+	 * Gets the limit the application never goes above however fast it is
+	 * @return
+	 */
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public void setMaxLimit(int maxLimit) {
+		Assert.isTrue(maxLimit > 0, "The maximum limit should be a positive number");
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * Gets the multiple of the usual latency of the application beyond which a request is taken
+	 * as a sign of overload
+	 * @return
+	 */
+	public double getLatencyTolerance() {
+		return latencyTolerance;
+	}
+
+	public void setLatencyTolerance(double latencyTolerance) {
+		Assert.isTrue(latencyTolerance > 1, "The latency tolerance should be more than 1");
+		this.latencyTolerance = latencyTolerance;
+	}
+
+	/**
+	 * Gets the ratio the limit is multiplied by on a sign of overload
+	 * @return
+	 */
+	public double getBackoffRatio() {
+		return backoffRatio;
+	}
+
+	public void setBackoffRatio(double backoffRatio) {
+		Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "The backoff ratio should be between 0 and 1");
+		this.backoffRatio = backoffRatio;
+	}
+
+	/**
+	 * Gets the time in seconds the clients of the rejected requests are asked to wait before
+	 * retrying
+	 * @return
+	 */
+	public int getRetryAfter() {
+		return retryAfter;
+	}
+
+	public void setRetryAfter(int retryAfter) {
+		Assert.isTrue(retryAfter >= 0, "The retry after should be a non negative number");
+		this.retryAfter = retryAfter;
+	}
+}
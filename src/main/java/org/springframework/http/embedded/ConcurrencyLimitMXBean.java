@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+/**
+ * The state of the admission control of a web application published over JMX, see 
+ * {@link ConcurrencyLimitConfig}. The latencies are in microseconds
+ *
+ * @author Amol Nayak
+ *
+ */
+public interface ConcurrencyLimitMXBean {
+
+	/**
+	 * Gets the number of requests the application is let to handle at a time currently
+	 * @return
+	 */
+	int getLimit();
+
+	/**
+	 * Gets the number of requests admitted and being handled currently
+	 * @return
+	 */
+	int getInFlightRequests();
+
+	/**
+	 * Gets the number of requests rejected for exceeding the limit
+	 * @return
+	 */
+	long getRejectedRequests();
+
+	/**
+	 * Gets the usual latency of the application the latency of each request is compared with
+	 * @return
+	 */
+	long getBaselineLatency();
+}
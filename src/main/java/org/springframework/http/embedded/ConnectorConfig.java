@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import org.springframework.util.Assert;
+
+/**
+ * The configuration of the connector that accepts the connections of the {@link EmbeddedServer}.
+ * For the Jetty server each acceptor thread owns a selector that multiplexes the connections it 
+ * accepted, hence the number of acceptors is also the number of selectors
+ * 
+ * @author Amol Nayak
+ *
+ */
+public class ConnectorConfig {
+
+	private int acceptors = 1;				//default one
+	
+	private int acceptQueueSize;			//default one, uses the default of the platform
+	
+	private boolean tcpNoDelay = true;		//default one
+	
+	private int maxIdleTime = 30000;		//default one, in milliseconds
+	
+	private int maxConnections;				//default one, unlimited
+	
+	private int lowResourcesConnections;	//default one, only the thread pool decides
+	
+	private int lowResourcesMaxIdleTime = 5000;	//default one, in milliseconds
+
+	/**
+	 * Gets the number of threads accepting the connections, each of these also owns a selector
+	 * @return
+	 */
+	public int getAcceptors() {
+		return acceptors;
+	}
+
+	public void setAcceptors(int acceptors) {
+		this.acceptors = acceptors;
+	}
+
+	/**
+	 * Gets the size of the listen backlog of the server socket, 0 uses the default of the platform
+	 * @return
+	 */
+	public int getAcceptQueueSize() {
+		return acceptQueueSize;
+	}
+
+	public void setAcceptQueueSize(int acceptQueueSize) {
+		this.acceptQueueSize = acceptQueueSize;
+	}
+
+	/**
+	 * Indicates if Nagle's algorithm is disabled on the accepted connections
+	 * @return true if TCP_NODELAY is set on the connections, true by default
+	 */
+	public boolean isTcpNoDelay() {
+		return tcpNoDelay;
+	}
+
+	public void setTcpNoDelay(boolean tcpNoDelay) {
+		this.tcpNoDelay = tcpNoDelay;
+	}
+
+	/**
+	 * Gets the time in milliseconds after which an idle connection, for instance a kept alive
+	 * connection waiting for the next request, is closed
+	 * @return
+	 */
+	public int getMaxIdleTime() {
+		return maxIdleTime;
+	}
+
+	public void setMaxIdleTime(int maxIdleTime) {
+		Assert.isTrue(maxIdleTime > 0, "The maximum idle time should be a positive number");
+		this.maxIdleTime = maxIdleTime;
+	}
+
+	/**
+	 * Gets the maximum number of connections open at a time, 0 for no limit. Once the limit is 
+	 * reached no more connections are accepted till one of the open connections is closed, the 
+	 * pending connections wait in the accept queue meanwhile  
+	 * @return
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		Assert.isTrue(maxConnections >= 0, "The maximum number of connections should not be negative");
+		this.maxConnections = maxConnections;
+	}
+
+	/**
+	 * Gets the number of open connections at which the connector is considered low on resources, 
+	 * 0 to consider only the thread pool and the maximum number of connections. 
+	 * @return
+	 */
+	public int getLowResourcesConnections() {
+		return lowResourcesConnections;
+	}
+
+	public void setLowResourcesConnections(int lowResourcesConnections) {
+		Assert.isTrue(lowResourcesConnections >= 0, "The low resources connections should not be negative");
+		this.lowResourcesConnections = lowResourcesConnections;
+	}
+
+	/**
+	 * Gets the time in milliseconds after which an idle connection is closed when the connector 
+	 * is low on resources, that is when the thread pool is low on threads or the open connections 
+	 * reach the low resources connections or the maximum connections. 0 to never shorten the idle time
+	 * @return
+	 */
+	public int getLowResourcesMaxIdleTime() {
+		return lowResourcesMaxIdleTime;
+	}
+
+	public void setLowResourcesMaxIdleTime(int lowResourcesMaxIdleTime) {
+		Assert.isTrue(lowResourcesMaxIdleTime >= 0, "The low resources maximum idle time should not be negative");
+		this.lowResourcesMaxIdleTime = lowResourcesMaxIdleTime;
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+/**
+ * The enum enumerating the ways an {@link EmbeddedServer} routes the requests to the web
+ * applications deployed on it
+ * @author Amol Nayak
+ *
+ */
+public enum ContextRouting {
+	/**
+	 * The requests are routed by the path map of the context handler collection of the server,
+	 * suits the servers hosting a few web applications
+	 */
+	PATH_MAP,
+	/**
+	 * The requests are routed by walking a prebuilt trie of the segments of the context paths
+	 * without allocating per request, suits the servers hosting many web applications
+	 */
+	TRIE;
+}
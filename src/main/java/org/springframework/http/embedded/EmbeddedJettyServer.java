@@ -15,16 +15,50 @@
  */
 package org.springframework.http.embedded;
 
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.management.JMException;
+import javax.servlet.http.HttpServlet;
+
+import org.eclipse.jetty.http.ssl.SslContextFactory;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.server.handler.HandlerCollection;
+import org.eclipse.jetty.server.session.SessionHandler;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.ExecutorThreadPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.eclipse.jetty.webapp.WebAppContext;
+import org.springframework.http.embedded.StartupReport.Phase;
+import org.springframework.http.embedded.jetty.BoundedSessionManager;
+import org.springframework.http.embedded.jetty.CompressionHandler;
+import org.springframework.http.embedded.jetty.ConcurrencyLimitHandler;
+import org.springframework.http.embedded.jetty.ConfigurableSelectChannelConnector;
+import org.springframework.http.embedded.jetty.ConfigurableSslSelectChannelConnector;
+import org.springframework.http.embedded.jetty.ContextRouter;
+import org.springframework.http.embedded.jetty.DrainableHandler;
+import org.springframework.http.embedded.jetty.HealthCheckHandler;
+import org.springframework.http.embedded.jetty.LazyContextHandler;
+import org.springframework.http.embedded.jetty.ResponseCache;
+import org.springframework.http.embedded.jetty.ResponseCachingServlet;
+import org.springframework.http.embedded.jetty.StaticContentServlet;
+import org.springframework.http.embedded.jetty.StaticResourceCache;
+import org.springframework.util.Assert;
+import org.springframework.util.ResourceUtils;
 
 /**
  * The concrete implementation that will start the embedded jetty server
@@ -33,23 +67,216 @@ import org.eclipse.jetty.webapp.WebAppContext;
  */
 public class EmbeddedJettyServer extends AbstractEmbeddedServer {
 
+	private static final String DEFAULT_SERVLET_GZIP_PARAMETER = "org.eclipse.jetty.servlet.Default.gzip";
+	
 	private Server server;
-	private List<Handler> handlers = new ArrayList<Handler>();
+	private final Map<String, DrainableHandler> handlers = new LinkedHashMap<String, DrainableHandler>();	//guarded by itself
+	private HandlerCollection handlerCollection;
+	private HealthCheckHandler healthCheckHandler;
+	private Map<String, StaticResourceCache> resourceCaches = new ConcurrentHashMap<String, StaticResourceCache>();
+	private Map<String, BoundedSessionManager> sessionManagers = new ConcurrentHashMap<String, BoundedSessionManager>();
+	private Map<String, Map<String, ResponseCache>> responseCaches = new ConcurrentHashMap<String, Map<String, ResponseCache>>();
+	private Map<String, ConcurrencyLimitHandler> concurrencyLimiters = new ConcurrentHashMap<String, ConcurrencyLimitHandler>();
+	private StatisticsMBeans statisticsMBeans;
+	
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.AbstractEmbeddedServer#doPrepare()
+	 */
+	@Override
+	protected void doPrepare() throws Exception {
+		synchronized (handlers) {
+			if(server == null) {	//Will be null only if no app is deployed on it
+				server = new Server();
+				server.setThreadPool(createThreadPool());
+				server.addConnector(createConnector(config.getConnectorConfig(), config.getHost(), config.getStartupPort(), 
+						config.isSslSupported()));
+				for(ListenerConfig listener:config.getListeners()) {
+					AbstractConnector connector = createConnector(listener, listener.getHost(), listener.getPort(), 
+							listener.isSslSupported());
+					if(listener.getThreadPoolConfig() != null)	//Started and stopped along with the connector
+						connector.setThreadPool(createBoundedThreadPool(listener.getThreadPoolConfig()));
+					server.addConnector(connector);
+				}
+			}
+			//Installed even if empty, the applications deployed once started are added to it
+			handlerCollection = ContextRouting.TRIE.equals(config.getContextRouting()) 
+					? new ContextRouter() : new ContextHandlerCollection(); 
+			handlerCollection.setHandlers(handlers.values().toArray(new Handler[handlers.size()]));
+			if(config.getHealthCheckPath() != null) {
+				//Answers the probes without routing them to a web application
+				healthCheckHandler = new HealthCheckHandler(this, config.getHealthCheckPath());
+				healthCheckHandler.setContexts(handlers);
+				healthCheckHandler.setHandler(handlerCollection);
+				server.setHandler(healthCheckHandler);
+				if(logger.isDebugEnabled())
+					logger.debug("Answering the health checks on " + config.getHealthCheckPath());
+			} else {
+				server.setHandler(handlerCollection);
+			}
+			//Started and bound ahead of the server to time each of them, the server skips them
+			startHandlers(config.getDeploymentParallelism());
+		}
+	}
 	
 	/* (non-Javadoc)
 	 * @see org.springframework.http.embedded.AbstractEmbeddedServer#doStart()
 	 */
 	@Override
 	protected void doStart() throws Exception {
-		if(server == null)	//Will be null only if no app is deployed on it
-			server = new Server(config.getStartupPort());
-		if(!handlers.isEmpty()) {
-			//Add these to the server
-			ContextHandlerCollection handlerCollection = new ContextHandlerCollection(); 
-			handlerCollection.setHandlers(handlers.toArray(new Handler[]{}));
-			server.setHandler(handlerCollection);
+		synchronized (handlers) {
+			for(Connector connector:server.getConnectors()) {
+				long start = System.nanoTime();
+				connector.open();
+				recordStartupTiming(Phase.BIND, (connector.getHost() == null ? "" : connector.getHost()) 
+						+ ":" + connector.getPort(), start);
+			}
+			long start = System.nanoTime();
+			server.start();
+			recordStartupTiming(Phase.START_SERVER, null, start);
+			if(config.isJmxEnabled()) {
+				//Named after the port bound as the startup port may be 0
+				statisticsMBeans = new StatisticsMBeans(config.getHost(), server.getConnectors()[0].getLocalPort());
+				try {
+					statisticsMBeans.registerServer(this);
+					for(Map.Entry<String, DrainableHandler> entry:handlers.entrySet()) {
+						statisticsMBeans.registerContext(entry.getKey(), entry.getValue());
+					}
+					for(Map.Entry<String, ConcurrencyLimitHandler> entry:concurrencyLimiters.entrySet()) {
+						statisticsMBeans.registerConcurrencyLimit(entry.getKey(), entry.getValue());
+					}
+				} catch (JMException e) {
+					//Fails the start, the ports are closed
+					statisticsMBeans.unregisterAll();
+					statisticsMBeans = null;
+					server.stop();
+					throw e;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Starts the handlers of the web applications, concurrently if the parallelism is more than 1.
+	 * The server does not start the handlers already started when it is started 
+	 */
+	private void startHandlers(int parallelism) throws Exception {
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for(final Map.Entry<String, DrainableHandler> entry:handlers.entrySet()) {
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					long start = System.nanoTime();
+					entry.getValue().start();
+					recordStartupTiming(Phase.START_CONTEXT, entry.getKey(), start);
+					return null;
+				}
+			});
+		}
+		if(parallelism <= 1 || tasks.size() <= 1) {
+			for(Callable<Object> task:tasks) {
+				task.call();
+			}
+			return;
+		}
+		long start = System.currentTimeMillis();
+		ParallelTasks.runAll(tasks, parallelism, "context-starter");
+		if(logger.isInfoEnabled())
+			logger.info("Started " + tasks.size() + " web application(s) on up to " + parallelism 
+					+ " threads in " + (System.currentTimeMillis() - start) + " ms");
+	}
+	
+	/**
+	 * Creates the NIO connector listening on the given host and port, tuned as per the {@link ConnectorConfig}
+	 * @return
+	 */
+	private AbstractConnector createConnector(ConnectorConfig connectorConfig, String host, int port, 
+			boolean sslSupported) throws FileNotFoundException {
+		AbstractConnector connector;
+		if(sslSupported) {
+			SslConfig sslConfig = config.getSslConfig();
+			if(sslConfig == null)
+				throw new IllegalStateException("SSL is supported on port " + port + " but no SSL configuration is provided");
+			ConfigurableSslSelectChannelConnector sslConnector = 
+				new ConfigurableSslSelectChannelConnector(connectorConfig, createSslContextFactory(sslConfig));
+			sslConnector.setIncludeProtocols(sslConfig.getIncludeProtocols());
+			connector = sslConnector;
+		} else {
+			connector = new ConfigurableSelectChannelConnector(connectorConfig);
+		}
+		connector.setHost(host);
+		connector.setPort(port);
+		if(logger.isDebugEnabled())
+			logger.debug("Using " + (sslSupported ? "an SSL" : "a") + " connector on " + (host == null ? "" : host) + ":" + port + " with " 
+					+ connectorConfig.getAcceptors() + " acceptor(s), an accept queue size of " 
+					+ connectorConfig.getAcceptQueueSize() + ", a max idle time of " + connectorConfig.getMaxIdleTime() 
+					+ " ms and " + (connectorConfig.getMaxConnections() > 0 ? "at most " + connectorConfig.getMaxConnections() : "unlimited") 
+					+ " connections");
+		return connector;
+	}
+	
+	/**
+	 * Creates the factory of the SSL context used by the SSL connectors 
+	 * @return
+	 */
+	private SslContextFactory createSslContextFactory(SslConfig sslConfig) throws FileNotFoundException {
+		Assert.hasText(sslConfig.getKeyStore(), "The location of the key store is mandatory for SSL");
+		SslContextFactory factory = new SslContextFactory();
+		factory.setKeyStore(ResourceUtils.getURL(sslConfig.getKeyStore()).toExternalForm());
+		factory.setKeyStoreType(sslConfig.getKeyStoreType());
+		factory.setKeyStorePassword(sslConfig.getKeyStorePassword());
+		if(sslConfig.getKeyManagerPassword() != null)
+			factory.setKeyManagerPassword(sslConfig.getKeyManagerPassword());
+		factory.setCertAlias(sslConfig.getCertAlias());
+		if(sslConfig.getTrustStore() != null) {
+			factory.setTrustStore(ResourceUtils.getURL(sslConfig.getTrustStore()).toExternalForm());
+			factory.setTrustStorePassword(sslConfig.getTrustStorePassword());
 		}
-		server.start();
+		factory.setNeedClientAuth(sslConfig.isNeedClientAuth());
+		if(sslConfig.getIncludeCipherSuites() != null)
+			factory.setIncludeCipherSuites(sslConfig.getIncludeCipherSuites());
+		if(sslConfig.getExcludeCipherSuites() != null)
+			factory.setExcludeCipherSuites(sslConfig.getExcludeCipherSuites());
+		//The sessions negotiated are cached so that the repeat clients can resume them
+		factory.setSessionCachingEnabled(sslConfig.isSessionCachingEnabled());
+		factory.setSslSessionCacheSize(sslConfig.getSessionCacheSize());
+		factory.setSslSessionTimeout(sslConfig.getSessionTimeout());
+		return factory;
+	}
+	
+	/**
+	 * Creates the thread pool that will be used by the server to process the requests
+	 * of all the deployed web applications as per the configured {@link ExecutionMode}
+	 * @return
+	 */
+	private ThreadPool createThreadPool() {
+		if(ExecutionMode.VIRTUAL_THREADS.equals(config.getExecutionMode())) {
+			if(VirtualThreads.isSupported()) {
+				if(logger.isDebugEnabled())
+					logger.debug("Using virtual threads to execute the requests");
+				return new ExecutorThreadPool(VirtualThreads.newVirtualThreadPerTaskExecutor());
+			}
+			logger.warn("Virtual threads are not supported by the JDK, using the platform thread pool instead");
+		}
+		return createBoundedThreadPool(config.getThreadPoolConfig());
+	}
+	
+	/**
+	 * Creates the bounded thread pool of platform threads as per the given configuration
+	 * @return
+	 */
+	private ThreadPool createBoundedThreadPool(ThreadPoolConfig poolConfig) {
+		//Checked before the pool is started, the pool of Jetty checks it only when started
+		poolConfig.afterPropertiesSet();
+		QueuedThreadPool threadPool = new QueuedThreadPool();
+		threadPool.setMinThreads(poolConfig.getMinThreads());
+		threadPool.setMaxThreads(poolConfig.getMaxThreads());
+		threadPool.setMaxIdleTimeMs(poolConfig.getIdleTimeout());
+		//A positive value makes the pool use a bounded queue for the pending jobs
+		threadPool.setMaxQueued(poolConfig.getMaxQueued());
+		if(logger.isDebugEnabled())
+			logger.debug("Using a thread pool with " + poolConfig.getMinThreads() + " to " + poolConfig.getMaxThreads() 
+					+ " threads and a queue of " + poolConfig.getMaxQueued() + " jobs");
+		return threadPool;
 	}
 	
 	/* (non-Javadoc)
@@ -57,28 +284,221 @@ public class EmbeddedJettyServer extends AbstractEmbeddedServer {
 	 */
 	@Override
 	protected void doStop() throws Exception {		
-		server.stop();
+		List<DrainableHandler> deployed;
+		synchronized (handlers) {
+			if(server == null)	//Stopped before it was prepared
+				return;
+			if(statisticsMBeans != null) {
+				statisticsMBeans.unregisterAll();
+				statisticsMBeans = null;
+			}
+			deployed = new ArrayList<DrainableHandler>(handlers.values());
+		}
+		if(config.getStopTimeout() > 0)
+			drainRequests(deployed, config.getStopTimeout());
+		synchronized (handlers) {
+			server.stop();
+			//Prepared but never started, the server stops nothing then
+			for(DrainableHandler handler:deployed) {
+				if(handler.isStarted())
+					handler.stop();
+			}
+		}
+	}
+	
+	/**
+	 * Closes the connectors and gives the requests being handled by the given applications up to the
+	 * given time in milliseconds to complete. The connections already open are still read from, their
+	 * new requests are answered with a 503 status and the connection closed
+	 */
+	private void drainRequests(List<DrainableHandler> deployed, long timeout) throws IOException {
+		for(Connector connector:server.getConnectors()) {
+			//Opened again if the server is restarted
+			connector.close();
+		}
+		int inProgress = 0;
+		for(DrainableHandler handler:deployed) {
+			if(handler.isStarted())
+				inProgress += handler.startDraining();
+		}
+		long deadline = System.currentTimeMillis() + timeout;
+		int aborted = 0;
+		for(DrainableHandler handler:deployed) {
+			if(!handler.isStarted())
+				continue;
+			try {
+				aborted += handler.drain(Math.max(0, deadline - System.currentTimeMillis()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				//Stops right away, the remaining applications are not waited for
+				deadline = 0;
+				aborted += handler.getActiveRequests();
+			}
+		}
+		recordDrainedRequests(Math.max(0, inProgress - aborted), aborted);
 	}
 
 	/* (non-Javadoc)
 	 * @see org.springframework.http.embedded.AbstractEmbeddedServer#doDeployApplication(org.springframework.http.embedded.WebApplication)
 	 */
 	@Override
-	protected boolean doDeployApplication(WebApplication webapp) {
-		
+	protected boolean doDeployApplication(final WebApplication webapp) {
+		String contextPath = webapp.getContextPath();
+		final ConcurrencyLimitHandler concurrencyLimiter = webapp.getConcurrencyLimitConfig() == null 
+				? null : new ConcurrencyLimitHandler(webapp.getConcurrencyLimitConfig());
+		Handler handler;
+		if(webapp.isLazy()) {
+			//Only the context path is registered, the application is built on its first request
+			handler = new LazyContextHandler(contextPath, new Callable<Handler>() {
+				@Override
+				public Handler call() throws Exception {
+					return limitConcurrency(concurrencyLimiter, createHandler(webapp));
+				}
+			});
+			if(logger.isInfoEnabled())
+				logger.info("Deferring the deployment of \"" + contextPath + "\" to its first request");
+		} else {
+			handler = createHandler(webapp);
+			if(handler == null)
+				return true;
+			handler = limitConcurrency(concurrencyLimiter, handler);
+		}
+		if(concurrencyLimiter != null)
+			concurrencyLimiters.put(contextPath, concurrencyLimiter);
+		DrainableHandler drainableHandler = new DrainableHandler();
+		drainableHandler.setHandler(handler);
+		synchronized (handlers) {
+			if(server != null && server.isStarted()) {
+				//Started before it is routed to, the other applications keep serving meanwhile
+				drainableHandler.setServer(server);
+				try {
+					drainableHandler.start();
+				} catch (Exception e) {
+					throw new DeploymentException("Unable to start the web application on \"" + contextPath + "\"", e);
+				}
+				if(statisticsMBeans != null) {
+					try {
+						statisticsMBeans.registerContext(contextPath, drainableHandler);
+						if(concurrencyLimiter != null)
+							statisticsMBeans.registerConcurrencyLimit(contextPath, concurrencyLimiter);
+					} catch (JMException e) {
+						statisticsMBeans.unregisterContext(contextPath);
+						concurrencyLimiters.remove(contextPath);
+						try {
+							drainableHandler.stop();
+						} catch (Exception stopException) {
+							logger.warn("Unable to stop the web application on \"" + contextPath + "\"", stopException);
+						}
+						throw new DeploymentException("Unable to publish the statistics of \"" + contextPath + "\"", e);
+					}
+				}
+				handlerCollection.addHandler(drainableHandler);
+				if(logger.isInfoEnabled())
+					logger.info("Deployed \"" + contextPath + "\" on the running server");
+			} else if(handlerCollection != null) {
+				//Prepared and waiting for its ports to be opened, started along with the server
+				handlerCollection.addHandler(drainableHandler);
+			}
+			handlers.put(contextPath, drainableHandler);
+			if(healthCheckHandler != null)
+				healthCheckHandler.setContexts(handlers);
+		}
+		return true;
+	}
+
+	/**
+	 * Puts the given limiter in front of the handler of a web application, inside the handler deferring
+	 * a lazy application so that the request building the application does not count as its usual latency
+	 * @return the limiter, the handler itself if the application does not limit its concurrent requests
+	 */
+	private Handler limitConcurrency(ConcurrencyLimitHandler concurrencyLimiter, Handler handler) {
+		if(concurrencyLimiter == null)
+			return handler;
+		concurrencyLimiter.setHandler(handler);
+		return concurrencyLimiter;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.AbstractEmbeddedServer#doUndeployApplication(java.lang.String)
+	 */
+	@Override
+	protected boolean doUndeployApplication(String contextPath) {
+		DrainableHandler handler;
+		synchronized (handlers) {
+			handler = handlers.remove(contextPath);
+			if(handler != null && statisticsMBeans != null)
+				statisticsMBeans.unregisterContext(contextPath);
+			if(healthCheckHandler != null)
+				healthCheckHandler.setContexts(handlers);
+		}
+		if(handler == null)
+			return false;
+		resourceCaches.remove(contextPath);
+		sessionManagers.remove(contextPath);
+		concurrencyLimiters.remove(contextPath);
+		responseCaches.remove(contextPath);
+		if(handler.isStarted()) {
+			long start = System.currentTimeMillis();
+			int aborted = 0;
+			try {
+				aborted = handler.drain(config.getDrainTimeout());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				aborted = handler.getActiveRequests();
+			}
+			if(aborted > 0)
+				logger.warn("Undeploying \"" + contextPath + "\" with " + aborted + " request(s) still in progress after " 
+						+ config.getDrainTimeout() + " ms");
+			else if(logger.isInfoEnabled())
+				logger.info("Drained the requests to \"" + contextPath + "\" in " + (System.currentTimeMillis() - start) + " ms");
+			try {
+				synchronized (handlers) {
+					//Stops the handler as well
+					handlerCollection.removeHandler(handler);
+				}
+				if(handler.isStarted())
+					handler.stop();
+			} catch (Exception e) {
+				logger.warn("Caught exception while stopping the web application on \"" + contextPath + "\"", e);
+			}
+		}
+		handler.destroy();
+		return true;
+	}
+	
+	/**
+	 * Creates the handler of the given web application wrapped in the handlers of its optional features,
+	 * null if the web application has nothing to be deployed
+	 * @return
+	 */
+	private Handler createHandler(WebApplication webapp) {
 		String contextPath = webapp.getContextPath();
+		ContextHandler contextHandler = null;
 		//Server can contain multiple web apps some with servlets only and some with war
 		List<ServletMapping> servletMappings = webapp.getServletMappings();
 		if(webapp.isServletMappingGiven()) {
 			//add an application with this servlet to the server
-			//TODO: See how more options can be obtained 
-			ServletContextHandler sHandler = new ServletContextHandler(ServletContextHandler.SESSIONS);
+			//Stateless unless asked for, spares the session handling on every request
+			ServletContextHandler sHandler = new ServletContextHandler(webapp.isSessions() 
+					? ServletContextHandler.SESSIONS : ServletContextHandler.NO_SESSIONS);
 			sHandler.setContextPath(contextPath);
 			//Iterate
+			Map<String, ResponseCache> contextResponseCaches = new ConcurrentHashMap<String, ResponseCache>();
 			for(ServletMapping mapping:servletMappings) {
-				sHandler.addServlet(new ServletHolder(mapping.getServlet()), mapping.getUrlPattern());
+				HttpServlet servlet = mapping.getServlet();
+				if(mapping.getResponseCacheConfig() != null) {
+					ResponseCache responseCache = new ResponseCache(mapping.getResponseCacheConfig());
+					servlet = new ResponseCachingServlet(servlet, responseCache);
+					contextResponseCaches.put(mapping.getUrlPattern(), responseCache);
+					if(logger.isDebugEnabled())
+						logger.debug("Caching the responses of \"" + mapping.getUrlPattern() + "\" of \"" 
+								+ contextPath + "\"");
+				}
+				sHandler.addServlet(new ServletHolder(servlet), mapping.getUrlPattern());
 			}
-			handlers.add(sHandler);
+			if(!contextResponseCaches.isEmpty())
+				responseCaches.put(contextPath, contextResponseCaches);
+			contextHandler = sHandler;
 		} else if(webapp.isWarPathGiven()){
 			//The path can be a .war file or 
 			WebAppContext wContext = new WebAppContext();
@@ -92,8 +512,19 @@ public class EmbeddedJettyServer extends AbstractEmbeddedServer {
 			
 			if(logger.isInfoEnabled())
 				logger.info("Using war file from location " + fileWar);
+			String warExtractionDirectory = config.getWarExtractionDirectory();
+			if(warExtractionDirectory != null && new File(fileWar).isFile()) {
+				//Deployed from the extracted directory, Jetty does not extract it again
+				try {
+					fileWar = new WarExtractionCache(new File(warExtractionDirectory))
+								.getExtractedWar(new File(fileWar)).getAbsolutePath();
+				} catch (IOException e) {
+					throw new DeploymentException("Unable to extract the war \"" + fileWar + "\" to \"" 
+								+ warExtractionDirectory + "\"", e);
+				}
+			}
 			wContext.setWar(fileWar);
-			handlers.add(wContext);
+			contextHandler = wContext;
 		} else if(webapp.isWebAppRootGiven()) {
 			WebAppContext wrContext = new WebAppContext();
 			wrContext.setContextPath(contextPath);			
@@ -106,8 +537,131 @@ public class EmbeddedJettyServer extends AbstractEmbeddedServer {
 			wrContext.setResourceBase(webappLocation);
 			if(logger.isInfoEnabled())
 				logger.info("Using webapp base direcctory  " + webappLocation);
-			handlers.add(wrContext);
+			contextHandler = wrContext;
 		}
-		return true;
+		return contextHandler == null ? null : wrapContextHandler(webapp, contextHandler);
+	}
+	
+	/**
+	 * Wraps the context handler of the web application in the handlers of the optional features
+	 * configured on the web application, the context handler itself is returned if none is configured
+	 * @return
+	 */
+	private Handler wrapContextHandler(WebApplication webapp, ContextHandler contextHandler) {
+		Handler handler = contextHandler;
+		CompressionConfig compressionConfig = webapp.getCompressionConfig();
+		if(compressionConfig != null) {
+			if(compressionConfig.isPrecompressed())
+				//The default servlet of the web app contexts serves the .gz siblings of the static files
+				contextHandler.setInitParameter(DEFAULT_SERVLET_GZIP_PARAMETER, "true");
+			CompressionHandler compressionHandler = new CompressionHandler(compressionConfig);
+			compressionHandler.setHandler(handler);
+			handler = compressionHandler;
+			if(logger.isDebugEnabled())
+				logger.debug("Compressing the responses of \"" + webapp.getContextPath() + "\" of at least " 
+						+ compressionConfig.getMinSize() + " bytes at level " + compressionConfig.getLevel());
+		}
+		ResourceCacheConfig resourceCacheConfig = webapp.getResourceCacheConfig();
+		long zeroCopyThreshold = webapp.getZeroCopyThreshold();
+		if(resourceCacheConfig != null || zeroCopyThreshold > 0) {
+			if(contextHandler instanceof WebAppContext) {
+				StaticResourceCache resourceCache = null;
+				if(resourceCacheConfig != null) {
+					resourceCache = new StaticResourceCache(resourceCacheConfig, contextHandler);
+					resourceCaches.put(webapp.getContextPath(), resourceCache);
+					if(logger.isDebugEnabled())
+						logger.debug("Caching up to " + resourceCacheConfig.getMaxSize() + " bytes of the static files of \"" 
+								+ webapp.getContextPath() + "\"");
+				}
+				if(zeroCopyThreshold > 0 && logger.isDebugEnabled())
+					logger.debug("Serving the static files of \"" + webapp.getContextPath() + "\" of at least " 
+							+ zeroCopyThreshold + " bytes from memory mapped buffers");
+				StaticContentServlet.install((WebAppContext)contextHandler, resourceCache, zeroCopyThreshold, 
+						webapp.getMaxMappedFiles());
+			} else {
+				logger.warn("Ignoring the resource cache and the zero copy threshold of \"" + webapp.getContextPath() 
+						+ "\" as only the servlet mappings are deployed on it");
+			}
+		}
+		SessionStoreConfig sessionStoreConfig = webapp.getSessionStoreConfig();
+		if(sessionStoreConfig != null) {
+			SessionHandler sessionHandler = contextHandler instanceof ServletContextHandler 
+					? ((ServletContextHandler)contextHandler).getSessionHandler() : null;
+			if(sessionHandler != null) {
+				BoundedSessionManager sessionManager = new BoundedSessionManager(sessionStoreConfig);
+				sessionHandler.setSessionManager(sessionManager);
+				sessionManagers.put(webapp.getContextPath(), sessionManager);
+				if(logger.isDebugEnabled())
+					logger.debug("Holding up to " + sessionStoreConfig.getMaxSessions() + " sessions of \"" 
+							+ webapp.getContextPath() + "\" idle for at most " + sessionStoreConfig.getMaxInactiveInterval() + " s");
+			} else {
+				logger.warn("Ignoring the session store of \"" + webapp.getContextPath() 
+						+ "\" as its servlet mappings are deployed without sessions");
+			}
+		}
+		return handler;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.EmbeddedServer#getStatistics()
+	 */
+	@Override
+	public ServerStatistics getStatistics() {
+		Map<String, DrainableHandler> deployed;
+		synchronized (handlers) {
+			deployed = new LinkedHashMap<String, DrainableHandler>(handlers);
+		}
+		Map<String, RequestStatistics> contexts = new LinkedHashMap<String, RequestStatistics>();
+		LatencyHistogram latencies = new LatencyHistogram();
+		long[] responses = new long[5];
+		int activeRequests = 0;
+		for(Map.Entry<String, DrainableHandler> entry:deployed.entrySet()) {
+			DrainableHandler handler = entry.getValue();
+			contexts.put(entry.getKey(), handler.getStatistics());
+			latencies.add(handler.getLatencies());
+			long[] contextResponses = handler.getResponses();
+			for(int i = 0; i < responses.length; i++) {
+				responses[i] += contextResponses[i];
+			}
+			activeRequests += handler.getActiveRequests();
+		}
+		return new ServerStatistics(new RequestStatistics(activeRequests, responses, latencies), contexts);
+	}
+	
+	/**
+	 * Gets the limiter of the concurrent requests of the web application deployed on the given context
+	 * path, null if the web application does not limit its concurrent requests
+	 * @return
+	 */
+	public ConcurrencyLimitMXBean getConcurrencyLimiter(String contextPath) {
+		return concurrencyLimiters.get(contextPath);
+	}
+
+	/**
+	 * Gets the manager of the sessions of the web application deployed on the given context path,
+	 * null if the web application does not bound its sessions
+	 * @return
+	 */
+	public BoundedSessionManager getSessionManager(String contextPath) {
+		return sessionManagers.get(contextPath);
+	}
+	
+	/**
+	 * Gets the cache of the static files of the web application deployed on the given context path,
+	 * null if the web application does not cache its static files
+	 * @return
+	 */
+	public StaticResourceCache getResourceCache(String contextPath) {
+		return resourceCaches.get(contextPath);
+	}
+
+	/**
+	 * Gets the cache of the responses of the servlet mapped to the given url pattern in the web
+	 * application deployed on the given context path, null if the responses are not cached
+	 * @return
+	 */
+	public ResponseCache getResponseCache(String contextPath, String urlPattern) {
+		Map<String, ResponseCache> contextResponseCaches = responseCaches.get(contextPath);
+		return contextResponseCaches == null ? null : contextResponseCaches.get(urlPattern);
 	}
 }
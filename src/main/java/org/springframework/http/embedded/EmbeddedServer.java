@@ -15,6 +15,9 @@
  */
 package org.springframework.http.embedded;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
 /**
  * The interface for providing the abstract, core functionality the implementing embedded server should
  * provide
@@ -41,23 +44,90 @@ public interface EmbeddedServer {
 	void start();
 	
 	/**
-	 * Stops a started server, attempt to stop a stopped server will be ignored
+	 * Starts the server with the initialized configuration on a new thread, the calling thread does
+	 * not wait for the web applications to start
+	 * 
+	 * @return	the future completed with the report of the start once the server accepts the requests,
+	 * 			completed exceptionally with the cause if it fails to start or its start was already triggered
+	 * @throws 	IllegalStateException if attempted to start an uninitialized server 
+	 */
+	CompletableFuture<StartupReport> startAsync();
+	
+	/**
+	 * Starts the server with the initialized configuration on a new thread, preparing the web applications
+	 * right away but opening the ports only once the given future completes. The server is not started if
+	 * the future fails or the server is stopped before it completes
+	 * 
+	 * @param	openPorts the future that completes when the server is to accept the requests
+	 * @return	the future completed with the report of the start once the server accepts the requests,
+	 * 			completed exceptionally with the cause if it fails to start or its start was already triggered
+	 * @throws 	IllegalStateException if attempted to start an uninitialized server 
+	 */
+	CompletableFuture<StartupReport> startAsync(Future<?> openPorts);
+	
+	/**
+	 * Stops a started server, attempt to stop a stopped server will be ignored. The connectors
+	 * stop accepting first and the requests being handled are given up to the stop timeout of the 
+	 * {@link ServerConfig} to complete, the new requests on the open connections are rejected meanwhile
 	 */
 	void stop();
 	
+	/**
+	 * Stops the server as {@link #stop()} does on a new thread
+	 * 
+	 * @return	the future completed with the report of the stop once the server is stopped, completed
+	 * 			exceptionally with the cause if it fails to stop or was not started
+	 */
+	CompletableFuture<ShutdownReport> stopAsync();
+	
 	/**
 	 * Deploy a web application to the embedded server on the provided context path and 
-	 * with the web application details provided.  
+	 * with the web application details provided. When invoked on a started server, the
+	 * application is started and then routed to without affecting the other applications
 	 * 
 	 * 
 	 * @param 	webapp an instance of {@link WebApplication} that contains the details 
 	 * 			about the web application to be deployed
-	 * @throws 	IllegalStateException if invoked when the server is started 
 	 * @throws 	DuplicateContextPathException if the passed <em>contextPath</em> is already registered with
 	 * 			the server 
 	 */
 	void deployApplication(WebApplication webapp);
 	
+	/**
+	 * Undeploys the web application deployed on the given context path. When invoked on a started
+	 * server, the new requests to the application are rejected and the ones being handled are given
+	 * up to the drain timeout of the {@link ServerConfig} to complete before the application is stopped
+	 * 
+	 * @param 	contextPath the context path the web application is deployed on
+	 * @return	true if the web application was undeployed, false if none is deployed on the context path
+	 */
+	boolean undeployApplication(String contextPath);
+	
+	/**
+	 * Takes a snapshot of the statistics of the requests handled by the server and by each of the
+	 * web applications deployed on it
+	 * 
+	 * @return	the statistics of the server, empty if no request is handled yet
+	 */
+	ServerStatistics getStatistics();
+	
+	/**
+	 * Gets the time taken by each phase of bringing up the server on its last start, the
+	 * initialization, the deployment and the start of each web application, the binding of
+	 * each connector and the start of the server
+	 * 
+	 * @return	the report of the last start, null if the server was never started
+	 */
+	StartupReport getStartupReport();
+	
+	/**
+	 * Gets the number of requests drained and aborted on the last stop of the server and the
+	 * time taken to stop it
+	 * 
+	 * @return	the report of the last stop, null if the server was never stopped
+	 */
+	ShutdownReport getShutdownReport();
+	
 	/**
 	 * Gets the status the server is in currently
 	 * @return
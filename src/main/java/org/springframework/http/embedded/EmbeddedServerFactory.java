@@ -15,7 +15,11 @@
  */
 package org.springframework.http.embedded;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
 import static org.springframework.http.embedded.EmbeddedServerType.*;
 
 import org.apache.commons.logging.Log;
@@ -23,6 +27,10 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 
 /**
  * The Factory bean implementation that will be used to generate an instance of
@@ -30,23 +38,36 @@ import org.springframework.beans.factory.InitializingBean;
  * @author Amol Nayak
  *
  */
-public class EmbeddedServerFactory implements FactoryBean<EmbeddedServer>,InitializingBean,DisposableBean {
+public class EmbeddedServerFactory implements FactoryBean<EmbeddedServer>,InitializingBean,DisposableBean,
+		ApplicationListener<ContextRefreshedEvent>,ApplicationContextAware {
 	
 	private static final Log logger = LogFactory.getLog(EmbeddedServerFactory.class);
 	
 	private ServerConfig config;
 	private List<WebApplication> webApplications;
 	private EmbeddedServerType type;
+	private StartMode startMode = StartMode.BLOCKING;
 	private EmbeddedServer server;
+	private ApplicationContext applicationContext;
+	private final CompletableFuture<Object> contextRefreshed = new CompletableFuture<Object>();
 	
 	
 
 	@Override
 	public void destroy() throws Exception {
-		//Stop the server
+		//Not started if the context is closed before it is refreshed
+		contextRefreshed.completeExceptionally(new IllegalStateException("The application context is closed"));
+		//Stops accepting and drains the requests in progress up to the stop timeout before stopping
 		if(server != null)
 			server.stop();
 	}
+	
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		//Not the refresh of a child context
+		if(event.getApplicationContext() == applicationContext)
+			contextRefreshed.complete(event);
+	}
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
@@ -57,16 +78,44 @@ public class EmbeddedServerFactory implements FactoryBean<EmbeddedServer>,Initia
 			
 			if(server != null) {
 				server.initialize(config);
-				for(WebApplication webApp:webApplications) {
-					server.deployApplication(webApp);
+				if(config.getDeploymentParallelism() > 1)
+					deployApplications(config.getDeploymentParallelism());
+				else {
+					for(WebApplication webApp:webApplications) {
+						server.deployApplication(webApp);
+					}
+				}
+				if(StartMode.ON_REFRESH.equals(startMode)) {
+					server.startAsync(contextRefreshed);
+					if(logger.isInfoEnabled())
+						logger.info("Starting the server in the background, its ports are opened once the context is refreshed");
+				} else {
+					server.start();
 				}
-				server.start();
 			} else {
 				logger.warn("No implementation found for server of type \"" + type + "\"");
 			}
 		}		
 	}
 
+	/**
+	 * Deploys the web applications concurrently on at most the given number of threads, all
+	 * the applications are attempted even if the deployment of some of them fails
+	 */
+	private void deployApplications(int parallelism) throws Exception {
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for(final WebApplication webApp:webApplications) {
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					server.deployApplication(webApp);
+					return null;
+				}
+			});
+		}
+		ParallelTasks.runAll(tasks, parallelism, "web-app-deployer");
+	}
+
 	@Override
 	public EmbeddedServer getObject() throws Exception {
 		return server;
@@ -93,4 +142,13 @@ public class EmbeddedServerFactory implements FactoryBean<EmbeddedServer>,Initia
 	public void setType(EmbeddedServerType type) {
 		this.type = type;
 	}
+
+	public void setStartMode(StartMode startMode) {
+		this.startMode = startMode;
+	}
+
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext) {
+		this.applicationContext = applicationContext;
+	}
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+/**
+ * The enum enumerating the modes in which an {@link EmbeddedServer} executes the requests
+ * @author Amol Nayak
+ *
+ */
+public enum ExecutionMode {
+	/**
+	 * Requests are executed on the platform threads of the bounded worker thread pool 
+	 * configured by {@link ThreadPoolConfig}
+	 */
+	PLATFORM_THREADS,
+	/**
+	 * Each request is executed on a new JDK virtual thread, needs a JDK that supports 
+	 * virtual threads. The {@link ThreadPoolConfig} is not used in this mode
+	 */
+	VIRTUAL_THREADS;
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of the latencies in microseconds with log-linear buckets, every power of two is split
+ * in 32 linear buckets so that a recorded value is off by at most about 3% whatever its magnitude.
+ * <p>
+ * Recording a value is lock free, a couple of atomic increments on fixed counters. The quantiles are
+ * computed by walking the buckets, they are meant to be asked for by the monitoring now and then
+ * rather than on every request
+ *
+ * @author Amol Nayak
+ *
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records the given latency in microseconds, the negative ones are recorded as 0
+	 */
+	public void record(long micros) {
+		long value = micros < 0 ? 0 : micros;
+		counts.incrementAndGet(bucketOf(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		long currentMax;
+		while(value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value));
+	}
+
+	/**
+	 * Adds the latencies recorded by the given histogram to this one
+	 */
+	public void add(LatencyHistogram other) {
+		for(int i = 0; i < BUCKETS; i++) {
+			long bucketCount = other.counts.get(i);
+			if(bucketCount > 0)
+				counts.addAndGet(i, bucketCount);
+		}
+		count.addAndGet(other.count.get());
+		total.addAndGet(other.total.get());
+		long otherMax = other.max.get();
+		long currentMax;
+		while(otherMax > (currentMax = max.get()) && !max.compareAndSet(currentMax, otherMax));
+	}
+
+	/**
+	 * Gets the number of latencies recorded
+	 * @return
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Gets the highest latency recorded in microseconds, 0 if none is
+	 * @return
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the mean of the latencies recorded in microseconds, 0 if none is
+	 * @return
+	 */
+	public long getMean() {
+		long recorded = count.get();
+		return recorded == 0 ? 0 : total.get() / recorded;
+	}
+
+	/**
+	 * Gets the latency in microseconds below which the given fraction of the recorded latencies
+	 * fall, as the upper bound of the bucket it is in. 0 if no latency is recorded
+	 * @return
+	 */
+	public long getValueAtQuantile(double quantile) {
+		long recorded = 0;
+		long[] snapshot = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			recorded += snapshot[i];
+		}
+		if(recorded == 0)
+			return 0;
+		long rank = Math.max(1, (long)Math.ceil(quantile * recorded));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if(seen >= rank)
+				return Math.min(upperBoundOf(i), max.get());
+		}
+		return max.get();
+	}
+
+	static int bucketOf(long value) {
+		if(value < SUB_BUCKETS)
+			return (int)value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long upperBoundOf(int bucket) {
+		if(bucket < SUB_BUCKETS)
+			return bucket;
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		int shift = exponent - SUB_BUCKET_BITS;
+		long lowerBound = (SUB_BUCKETS + subBucket) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+}
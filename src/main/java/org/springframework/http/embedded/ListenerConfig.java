@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import org.springframework.util.Assert;
+
+/**
+ * An additional host and port pair the {@link EmbeddedServer} listens on besides the 
+ * startup port, each listener is tuned independently of the others. A listener can 
+ * optionally be given a thread pool of its own so that the traffic on it, say an admin port,
+ * cannot starve the requests received on the other listeners
+ * 
+ * @author Amol Nayak
+ *
+ */
+public class ListenerConfig extends ConnectorConfig {
+
+	private String host;
+	
+	private int port;
+	
+	private ThreadPoolConfig threadPoolConfig;
+	
+	private boolean sslSupported;
+	
+	public ListenerConfig() {		
+	}
+	
+	public ListenerConfig(String host, int port) {
+		setHost(host);
+		setPort(port);
+	}
+
+	/**
+	 * Gets the host name or the address the listener binds to, null if the listener binds to 
+	 * all the addresses of the host
+	 * @return
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	/**
+	 * Gets the port the listener listens on
+	 * @return
+	 */
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		Assert.isTrue(port >= 0, "The port number should not be negative");
+		this.port = port;
+	}
+
+	/**
+	 * Gets the configuration of the thread pool dedicated to this listener, null if the listener 
+	 * uses the thread pool of the server
+	 * @return
+	 */
+	public ThreadPoolConfig getThreadPoolConfig() {
+		return threadPoolConfig;
+	}
+
+	public void setThreadPoolConfig(ThreadPoolConfig threadPoolConfig) {
+		this.threadPoolConfig = threadPoolConfig;
+	}
+
+	/**
+	 * Indicates if SSL is to be used for this listener with the {@link SslConfig} of the server
+	 * @return true if ssl is supported, else false. false by default
+	 */
+	public boolean isSslSupported() {
+		return sslSupported;
+	}
+
+	public void setSslSupported(boolean sslSupported) {
+		this.sslSupported = sslSupported;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the deployment tasks of the web applications on a bounded number of threads and waits
+ * for all of them to complete, used when the deployment parallelism of the server is more than one
+ *
+ * @author Amol Nayak
+ *
+ */
+final class ParallelTasks {
+
+	private ParallelTasks() {
+	}
+
+	/**
+	 * Runs the given tasks on at most the given number of threads. All the tasks are run to
+	 * completion even if some of them fail, the exception of the first task that failed in the
+	 * order of the list is thrown then
+	 */
+	static void runAll(List<? extends Callable<?>> tasks, int parallelism, final String threadName) throws Exception {
+		if(tasks.isEmpty())
+			return;
+		final AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, threadName + "-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for(Callable<?> task:tasks) {
+				futures.add(executor.submit(task));
+			}
+			Exception failure = null;
+			for(Future<?> future:futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if(failure == null)
+						failure = e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+				}
+			}
+			if(failure != null)
+				throw failure;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+/**
+ * A snapshot of the statistics of the requests handled by a web application or by all the web
+ * applications of a server, taken by {@link EmbeddedServer#getStatistics()}. The latencies are
+ * in microseconds, from the request reaching the application to the application returning it
+ * or, for the suspended requests, to their completion
+ *
+ * @author Amol Nayak
+ *
+ */
+public class RequestStatistics implements RequestStatisticsMXBean {
+
+	private final long requests;
+
+	private final int activeRequests;
+
+	private final long[] responses;
+
+	private final long meanLatency;
+
+	private final long latency50thPercentile;
+
+	private final long latency99thPercentile;
+
+	private final long latency999thPercentile;
+
+	private final long maxLatency;
+
+	/**
+	 * Takes the snapshot of the given counters
+	 *
+	 * @param activeRequests the number of requests being handled
+	 * @param responses the number of responses by their status class, from 1xx to 5xx
+	 * @param latencies the latencies of the requests handled
+	 */
+	public RequestStatistics(int activeRequests, long[] responses, LatencyHistogram latencies) {
+		this.activeRequests = activeRequests;
+		this.responses = responses.clone();
+		this.requests = latencies.getCount();
+		this.meanLatency = latencies.getMean();
+		this.latency50thPercentile = latencies.getValueAtQuantile(0.5);
+		this.latency99thPercentile = latencies.getValueAtQuantile(0.99);
+		this.latency999thPercentile = latencies.getValueAtQuantile(0.999);
+		this.maxLatency = latencies.getMax();
+	}
+
+	@Override
+	public long getRequests() {
+		return requests;
+	}
+
+	@Override
+	public int getActiveRequests() {
+		return activeRequests;
+	}
+
+	@Override
+	public long getResponses1xx() {
+		return responses[0];
+	}
+
+	@Override
+	public long getResponses2xx() {
+		return responses[1];
+	}
+
+	@Override
+	public long getResponses3xx() {
+		return responses[2];
+	}
+
+	@Override
+	public long getResponses4xx() {
+		return responses[3];
+	}
+
+	@Override
+	public long getResponses5xx() {
+		return responses[4];
+	}
+
+	@Override
+	public long getMeanLatency() {
+		return meanLatency;
+	}
+
+	@Override
+	public long getLatency50thPercentile() {
+		return latency50thPercentile;
+	}
+
+	@Override
+	public long getLatency99thPercentile() {
+		return latency99thPercentile;
+	}
+
+	@Override
+	public long getLatency999thPercentile() {
+		return latency999thPercentile;
+	}
+
+	@Override
+	public long getMaxLatency() {
+		return maxLatency;
+	}
+
+	@Override
+	public String toString() {
+		return "RequestStatistics[requests=" + requests + ", activeRequests=" + activeRequests
+				+ ", 2xx=" + responses[1] + ", 4xx=" + responses[3] + ", 5xx=" + responses[4]
+				+ ", p50=" + latency50thPercentile + "us, p99=" + latency99thPercentile
+				+ "us, p999=" + latency999thPercentile + "us, max=" + maxLatency + "us]";
+	}
+}
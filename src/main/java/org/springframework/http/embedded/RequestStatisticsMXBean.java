@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+/**
+ * The statistics of the requests published over JMX for the server and for each of its web
+ * applications. The latencies are in microseconds
+ *
+ * @author Amol Nayak
+ *
+ */
+public interface RequestStatisticsMXBean {
+
+	/**
+	 * Gets the number of requests handled
+	 * @return
+	 */
+	long getRequests();
+
+	/**
+	 * Gets the number of requests being handled currently
+	 * @return
+	 */
+	int getActiveRequests();
+
+	long getResponses1xx();
+
+	long getResponses2xx();
+
+	long getResponses3xx();
+
+	long getResponses4xx();
+
+	long getResponses5xx();
+
+	long getMeanLatency();
+
+	long getLatency50thPercentile();
+
+	long getLatency99thPercentile();
+
+	long getLatency999thPercentile();
+
+	long getMaxLatency();
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import org.springframework.util.Assert;
+
+/**
+ * The configuration of the in memory cache of the static files of a {@link WebApplication}
+ * deployed from a war or a web app root. The least recently used files are evicted once the
+ * cached files exceed the maximum size.
+ * <p>
+ * A cached file is checked for changes on the file system at most once every check interval,
+ * the hits in between are served from the memory without touching the file system
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ResourceCacheConfig {
+
+	private long maxSize = 64 * 1024 * 1024;	//default one, in bytes
+
+	private int maxFileSize = 1024 * 1024;		//default one, in bytes
+
+	private long checkInterval = 1000;			//default one, in milliseconds
+
+	/**
+	 * Gets the maximum number of bytes of all the cached files together
+	 * @return
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(long maxSize) {
+		Assert.isTrue(maxSize > 0, "The maximum size of the cache should be a positive number");
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Gets the size in bytes of the largest file that is cached, the larger ones are always
+	 * served from the file system
+	 * @return
+	 */
+	public int getMaxFileSize() {
+		return maxFileSize;
+	}
+
+	public void setMaxFileSize(int maxFileSize) {
+		Assert.isTrue(maxFileSize > 0, "The maximum size of a cached file should be a positive number");
+		this.maxFileSize = maxFileSize;
+	}
+
+	/**
+	 * Gets the time in milliseconds after which a cached file is checked for changes on the file
+	 * system when it is requested, 0 to check on every request and -1 to never check
+	 * @return
+	 */
+	public long getCheckInterval() {
+		return checkInterval;
+	}
+
+	public void setCheckInterval(long checkInterval) {
+		Assert.isTrue(checkInterval >= -1, "The check interval should be -1 or more");
+		this.checkInterval = checkInterval;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import org.springframework.util.Assert;
+
+/**
+ * The configuration of the in memory cache of the responses of a {@link ServletMapping}. The
+ * successful responses to the GET requests are served from the memory for the time to live without
+ * calling the servlet, the least recently used ones are evicted once the cached responses exceed the
+ * maximum size.
+ * <p>
+ * The responses are cached apart for each value of the request headers named by their <em>Vary</em>
+ * header. The responses setting a cookie, marked private, no-cache or no-store or varying on every
+ * header are not cached, neither are the requests carrying credentials or marked no-cache served
+ * from the cache
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ResponseCacheConfig {
+
+	private int ttl = 60;						//default one, in seconds
+
+	private long maxSize = 16 * 1024 * 1024;	//default one, in bytes
+
+	private long coalescingTimeout = 5000;		//default one, in milliseconds
+
+	/**
+	 * Gets the time in seconds a response is served from the cache after it was cached
+	 * @return
+	 */
+	public int getTtl() {
+		return ttl;
+	}
+
+	public void setTtl(int ttl) {
+		Assert.isTrue(ttl > 0, "The time to live of the cached responses should be a positive number");
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Gets the maximum number of bytes of the bodies of all the cached responses together, a larger
+	 * response is never cached
+	 * @return
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(long maxSize) {
+		Assert.isTrue(maxSize > 0, "The maximum size of the cache should be a positive number");
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Gets the time in milliseconds a request waits for the response being computed by another
+	 * request, it calls the servlet itself once the time is over
+	 * @return
+	 */
+	public long getCoalescingTimeout() {
+		return coalescingTimeout;
+	}
+
+	public void setCoalescingTimeout(long coalescingTimeout) {
+		Assert.isTrue(coalescingTimeout >= 0, "The coalescing timeout should be a non negative number");
+		this.coalescingTimeout = coalescingTimeout;
+	}
+}
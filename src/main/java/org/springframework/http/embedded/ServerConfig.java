@@ -15,6 +15,11 @@
  */
 package org.springframework.http.embedded;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
 /**
  * The common and the implementation specific configuration if any for the {@link EmbeddedServer} 
  * implementation
@@ -26,8 +31,33 @@ public class ServerConfig {
 
 	private int startupPort = 8080;		//default one
 	
-	//TODO: Add support for SSL, config also should contain path to the certificate
+	private String host;				//binds to all the addresses by default
+	
 	private boolean sslSupported;
+	
+	private SslConfig sslConfig;
+	
+	private ThreadPoolConfig threadPoolConfig = new ThreadPoolConfig();	//default one
+	
+	private ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;	//default one
+	
+	private ConnectorConfig connectorConfig = new ConnectorConfig();	//default one
+	
+	private List<ListenerConfig> listeners = new ArrayList<ListenerConfig>();
+	
+	private String warExtractionDirectory;	//extracted to a new temporary directory by default
+	
+	private int deploymentParallelism = 1;	//default one, deployed one after the other
+	
+	private long drainTimeout = 30000;		//default one, in milliseconds
+	
+	private long stopTimeout = 30000;		//default one, in milliseconds
+	
+	private ContextRouting contextRouting = ContextRouting.PATH_MAP;	//default one
+	
+	private boolean jmxEnabled = true;		//default one
+	
+	private String healthCheckPath;		//no health check by default
 
 	/**
 	 * Gets the port on which the server listens to
@@ -45,6 +75,19 @@ public class ServerConfig {
 		this.startupPort = startupPort;
 	}
 
+	/**
+	 * Gets the host name or the address the server binds to on the startup port, null if the
+	 * server binds to all the addresses of the host 
+	 * @return
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
 	/**
 	 * Indicates if SSL is to be used for the embedded server
 	 * @return true if ssl is supported, else false. false by default
@@ -55,5 +98,163 @@ public class ServerConfig {
 
 	public void setSslSupported(boolean sslSupported) {
 		this.sslSupported = sslSupported;
-	}	
+	}
+
+	/**
+	 * Gets the SSL configuration used by the server on the startup port if SSL is supported
+	 * and by the listeners that support SSL
+	 * @return
+	 */
+	public SslConfig getSslConfig() {
+		return sslConfig;
+	}
+
+	public void setSslConfig(SslConfig sslConfig) {
+		this.sslConfig = sslConfig;
+	}
+
+	/**
+	 * Gets the configuration of the worker thread pool of the server
+	 * @return
+	 */
+	public ThreadPoolConfig getThreadPoolConfig() {
+		return threadPoolConfig;
+	}
+
+	public void setThreadPoolConfig(ThreadPoolConfig threadPoolConfig) {
+		this.threadPoolConfig = threadPoolConfig;
+	}
+
+	/**
+	 * Gets the mode in which the requests to all the deployed web applications are executed
+	 * @return
+	 */
+	public ExecutionMode getExecutionMode() {
+		return executionMode;
+	}
+
+	public void setExecutionMode(ExecutionMode executionMode) {
+		this.executionMode = executionMode;
+	}
+
+	/**
+	 * Gets the configuration of the connector accepting the connections on the startup port
+	 * @return
+	 */
+	public ConnectorConfig getConnectorConfig() {
+		return connectorConfig;
+	}
+
+	public void setConnectorConfig(ConnectorConfig connectorConfig) {
+		this.connectorConfig = connectorConfig;
+	}
+
+	/**
+	 * Gets the additional listeners the server listens on besides the startup port
+	 * @return
+	 */
+	public List<ListenerConfig> getListeners() {
+		return listeners;
+	}
+
+	public void setListeners(List<ListenerConfig> listeners) {
+		this.listeners = listeners;
+	}
+
+	/**
+	 * Gets the persistent directory the wars are extracted to, an unchanged war is deployed from
+	 * the directory it was extracted to on a previous start. Null if the wars are extracted to a
+	 * new temporary directory on every start
+	 * @return
+	 */
+	public String getWarExtractionDirectory() {
+		return warExtractionDirectory;
+	}
+
+	public void setWarExtractionDirectory(String warExtractionDirectory) {
+		this.warExtractionDirectory = warExtractionDirectory;
+	}
+
+	/**
+	 * Gets the maximum number of web applications deployed and started concurrently, 1 to
+	 * deploy and start them one after the other
+	 * @return
+	 */
+	public int getDeploymentParallelism() {
+		return deploymentParallelism;
+	}
+
+	public void setDeploymentParallelism(int deploymentParallelism) {
+		Assert.isTrue(deploymentParallelism > 0, "The deployment parallelism should be a positive number");
+		this.deploymentParallelism = deploymentParallelism;
+	}
+
+	/**
+	 * Gets the time in milliseconds the requests being handled by a web application are given to
+	 * complete when it is undeployed from the running server
+	 * @return
+	 */
+	public long getDrainTimeout() {
+		return drainTimeout;
+	}
+
+	public void setDrainTimeout(long drainTimeout) {
+		Assert.isTrue(drainTimeout >= 0, "The drain timeout should be a non negative number");
+		this.drainTimeout = drainTimeout;
+	}
+
+	/**
+	 * Gets the time in milliseconds the requests being handled are given to complete when the
+	 * server is stopped, once the connectors stopped accepting. The server is stopped right away
+	 * if 0
+	 * @return
+	 */
+	public long getStopTimeout() {
+		return stopTimeout;
+	}
+
+	public void setStopTimeout(long stopTimeout) {
+		Assert.isTrue(stopTimeout >= 0, "The stop timeout should be a non negative number");
+		this.stopTimeout = stopTimeout;
+	}
+
+	/**
+	 * Gets the way the requests are routed to the web applications deployed on the server
+	 * @return
+	 */
+	public ContextRouting getContextRouting() {
+		return contextRouting;
+	}
+
+	public void setContextRouting(ContextRouting contextRouting) {
+		this.contextRouting = contextRouting;
+	}
+
+	/**
+	 * Indicates if the statistics of the requests of the server and of each of its web applications
+	 * are published as MBeans on the platform MBean server, true by default
+	 * @return
+	 */
+	public boolean isJmxEnabled() {
+		return jmxEnabled;
+	}
+
+	public void setJmxEnabled(boolean jmxEnabled) {
+		this.jmxEnabled = jmxEnabled;
+	}
+
+	/**
+	 * Gets the path the probes of the health of the server are answered on ahead of the web
+	 * applications, null if the server does not answer them
+	 * @return
+	 */
+	public String getHealthCheckPath() {
+		return healthCheckPath;
+	}
+
+	public void setHealthCheckPath(String healthCheckPath) {
+		Assert.isTrue(healthCheckPath == null || (healthCheckPath.startsWith("/") && healthCheckPath.length() > 1), 
+				"The health check path should start with a / and not be the root");
+		this.healthCheckPath = healthCheckPath;
+	}
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A snapshot of the statistics of the requests handled by a server, as a whole and by each of the
+ * web applications deployed on it. The totals cover the web applications deployed when the snapshot
+ * is taken, the requests handled by the undeployed ones are no longer accounted for
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ServerStatistics {
+
+	private final RequestStatistics total;
+
+	private final Map<String, RequestStatistics> contexts;
+
+	public ServerStatistics(RequestStatistics total, Map<String, RequestStatistics> contexts) {
+		this.total = total;
+		this.contexts = Collections.unmodifiableMap(contexts);
+	}
+
+	/**
+	 * Gets the statistics of the requests handled by all the web applications together
+	 * @return
+	 */
+	public RequestStatistics getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets the statistics of the requests handled by each web application keyed by its
+	 * context path, in the order they were deployed
+	 * @return
+	 */
+	public Map<String, RequestStatistics> getContexts() {
+		return contexts;
+	}
+
+	/**
+	 * Gets the statistics of the web application deployed on the given context path, null
+	 * if none is deployed on it
+	 * @return
+	 */
+	public RequestStatistics getContext(String contextPath) {
+		return contexts.get(contextPath);
+	}
+}
@@ -28,6 +28,7 @@ public class ServletMapping {
 
 	private HttpServlet servlet;
 	private String urlPattern;	
+	private ResponseCacheConfig responseCacheConfig;
 	
 	public ServletMapping(HttpServlet servlet, String urlPattern) {
 		Assert.hasText(urlPattern);
@@ -50,5 +51,18 @@ public class ServletMapping {
 	public String getUrlPattern() {
 		return urlPattern;
 	}
+
+	/**
+	 * Gets the configuration of the cache of the responses of the servlet, null if its responses
+	 * are not cached
+	 * @return
+	 */
+	public ResponseCacheConfig getResponseCacheConfig() {
+		return responseCacheConfig;
+	}
+
+	public void setResponseCacheConfig(ResponseCacheConfig responseCacheConfig) {
+		this.responseCacheConfig = responseCacheConfig;
+	}
 	
 }
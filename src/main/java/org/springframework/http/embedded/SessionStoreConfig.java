@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import org.springframework.util.Assert;
+
+/**
+ * The configuration of the in memory store of the HTTP sessions of a {@link WebApplication}.
+ * The least recently accessed sessions are invalidated once the store holds the maximum number
+ * of sessions and a new one is created.
+ * <p>
+ * The sessions not accessed for the max inactive interval are invalidated by a background thread
+ * that looks for them every scavenge period
+ *
+ * @author Amol Nayak
+ *
+ */
+public class SessionStoreConfig {
+
+	private int maxSessions = 10000;			//default one
+
+	private int maxInactiveInterval = 1800;		//default one, in seconds
+
+	private int scavengePeriod = 30;			//default one, in seconds
+
+	/**
+	 * Gets the maximum number of sessions held in memory at a time
+	 * @return
+	 */
+	public int getMaxSessions() {
+		return maxSessions;
+	}
+
+	public void setMaxSessions(int maxSessions) {
+		Assert.isTrue(maxSessions > 0, "The maximum number of sessions should be a positive number");
+		this.maxSessions = maxSessions;
+	}
+
+	/**
+	 * Gets the time in seconds after which a session that is not accessed is invalidated,
+	 * -1 to never invalidate the idle sessions
+	 * @return
+	 */
+	public int getMaxInactiveInterval() {
+		return maxInactiveInterval;
+	}
+
+	public void setMaxInactiveInterval(int maxInactiveInterval) {
+		Assert.isTrue(maxInactiveInterval > 0 || maxInactiveInterval == -1, 
+				"The max inactive interval should be a positive number or -1");
+		this.maxInactiveInterval = maxInactiveInterval;
+	}
+
+	/**
+	 * Gets the time in seconds between two looks for the idle sessions, Jetty caps it at
+	 * 60 seconds
+	 * @return
+	 */
+	public int getScavengePeriod() {
+		return scavengePeriod;
+	}
+
+	public void setScavengePeriod(int scavengePeriod) {
+		Assert.isTrue(scavengePeriod > 0, "The scavenge period should be a positive number");
+		this.scavengePeriod = scavengePeriod;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.util.Locale;
+
+/**
+ * The outcome of stopping a server, available from {@link EmbeddedServer#getShutdownReport()} once
+ * the server is stopped. The requests being handled when the connectors stopped accepting are either
+ * drained, completed within the stop timeout, or aborted by the stop of the server
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ShutdownReport {
+
+	private final int drainedRequests;
+
+	private final int abortedRequests;
+
+	private final long stopTime;
+
+	public ShutdownReport(int drainedRequests, int abortedRequests, long stopTime) {
+		this.drainedRequests = drainedRequests;
+		this.abortedRequests = abortedRequests;
+		this.stopTime = stopTime;
+	}
+
+	/**
+	 * Gets the number of requests that were being handled when the server was stopped and
+	 * completed within the stop timeout
+	 * @return
+	 */
+	public int getDrainedRequests() {
+		return drainedRequests;
+	}
+
+	/**
+	 * Gets the number of requests still being handled when the stop timeout elapsed, cut off
+	 * by the stop of the server
+	 * @return
+	 */
+	public int getAbortedRequests() {
+		return abortedRequests;
+	}
+
+	/**
+	 * Gets the time taken to stop the server in microseconds, including the time waited for
+	 * the requests to drain
+	 * @return
+	 */
+	public long getStopTime() {
+		return stopTime;
+	}
+
+	/**
+	 * Gets the report on a single line, as logged when the server is stopped
+	 * @return
+	 */
+	public String getSummary() {
+		return String.format(Locale.ENGLISH, "Stopped in %.1f ms, drained %d request(s), aborted %d request(s)",
+				stopTime / 1000.0, drainedRequests, abortedRequests);
+	}
+
+	@Override
+	public String toString() {
+		return getSummary();
+	}
+}
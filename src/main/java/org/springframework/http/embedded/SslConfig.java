@@ -0,0 +1,226 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+/**
+ * The SSL configuration of the {@link EmbeddedServer}, used when SSL is supported by the server
+ * or one of its listeners. The sessions negotiated with the clients are cached so that repeat 
+ * clients resume them instead of doing a full handshake
+ * 
+ * @author Amol Nayak
+ *
+ */
+public class SslConfig {
+
+	private String keyStore;
+	
+	private String keyStoreType = "JKS";			//default one
+	
+	private String keyStorePassword;
+	
+	private String keyManagerPassword;
+	
+	private String certAlias;
+	
+	private String trustStore;
+	
+	private String trustStorePassword;
+	
+	private boolean needClientAuth;
+	
+	private String[] includeCipherSuites;
+	
+	private String[] excludeCipherSuites;
+	
+	private String[] includeProtocols;
+	
+	private boolean sessionCachingEnabled = true;	//default one
+	
+	private int sessionCacheSize = 20480;			//default one, same as the JDK's
+	
+	private int sessionTimeout = 86400;				//default one in seconds, same as the JDK's
+
+	/**
+	 * Gets the location of the key store holding the certificate of the server, either 
+	 * absolute or in the classpath in which case it is prefixed with "classpath:"
+	 * @return
+	 */
+	public String getKeyStore() {
+		return keyStore;
+	}
+
+	public void setKeyStore(String keyStore) {
+		this.keyStore = keyStore;
+	}
+
+	/**
+	 * Gets the type of the key store, JKS by default
+	 * @return
+	 */
+	public String getKeyStoreType() {
+		return keyStoreType;
+	}
+
+	public void setKeyStoreType(String keyStoreType) {
+		this.keyStoreType = keyStoreType;
+	}
+
+	/**
+	 * Gets the password of the key store
+	 * @return
+	 */
+	public String getKeyStorePassword() {
+		return keyStorePassword;
+	}
+
+	public void setKeyStorePassword(String keyStorePassword) {
+		this.keyStorePassword = keyStorePassword;
+	}
+
+	/**
+	 * Gets the password of the key in the key store, the key store password is used if not given
+	 * @return
+	 */
+	public String getKeyManagerPassword() {
+		return keyManagerPassword;
+	}
+
+	public void setKeyManagerPassword(String keyManagerPassword) {
+		this.keyManagerPassword = keyManagerPassword;
+	}
+
+	/**
+	 * Gets the alias of the certificate to be used from the key store
+	 * @return
+	 */
+	public String getCertAlias() {
+		return certAlias;
+	}
+
+	public void setCertAlias(String certAlias) {
+		this.certAlias = certAlias;
+	}
+
+	/**
+	 * Gets the location of the trust store used to validate the client certificates, 
+	 * the key store is used if not given
+	 * @return
+	 */
+	public String getTrustStore() {
+		return trustStore;
+	}
+
+	public void setTrustStore(String trustStore) {
+		this.trustStore = trustStore;
+	}
+
+	/**
+	 * Gets the password of the trust store
+	 * @return
+	 */
+	public String getTrustStorePassword() {
+		return trustStorePassword;
+	}
+
+	public void setTrustStorePassword(String trustStorePassword) {
+		this.trustStorePassword = trustStorePassword;
+	}
+
+	/**
+	 * Indicates if the clients need to authenticate with a certificate
+	 * @return true if client authentication is needed, false by default
+	 */
+	public boolean isNeedClientAuth() {
+		return needClientAuth;
+	}
+
+	public void setNeedClientAuth(boolean needClientAuth) {
+		this.needClientAuth = needClientAuth;
+	}
+
+	/**
+	 * Gets the cipher suites that can be negotiated, null if all the ones enabled by the JDK can be
+	 * @return
+	 */
+	public String[] getIncludeCipherSuites() {
+		return includeCipherSuites;
+	}
+
+	public void setIncludeCipherSuites(String[] includeCipherSuites) {
+		this.includeCipherSuites = includeCipherSuites;
+	}
+
+	/**
+	 * Gets the cipher suites that are never negotiated
+	 * @return
+	 */
+	public String[] getExcludeCipherSuites() {
+		return excludeCipherSuites;
+	}
+
+	public void setExcludeCipherSuites(String[] excludeCipherSuites) {
+		this.excludeCipherSuites = excludeCipherSuites;
+	}
+
+	/**
+	 * Gets the protocols, like TLSv1.2, that can be negotiated, null if all the ones enabled 
+	 * by the JDK can be
+	 * @return
+	 */
+	public String[] getIncludeProtocols() {
+		return includeProtocols;
+	}
+
+	public void setIncludeProtocols(String[] includeProtocols) {
+		this.includeProtocols = includeProtocols;
+	}
+
+	/**
+	 * Indicates if the negotiated sessions are cached so that the clients can resume them
+	 * @return true if the sessions are cached, true by default
+	 */
+	public boolean isSessionCachingEnabled() {
+		return sessionCachingEnabled;
+	}
+
+	public void setSessionCachingEnabled(boolean sessionCachingEnabled) {
+		this.sessionCachingEnabled = sessionCachingEnabled;
+	}
+
+	/**
+	 * Gets the maximum number of sessions cached, 0 for no limit
+	 * @return
+	 */
+	public int getSessionCacheSize() {
+		return sessionCacheSize;
+	}
+
+	public void setSessionCacheSize(int sessionCacheSize) {
+		this.sessionCacheSize = sessionCacheSize;
+	}
+
+	/**
+	 * Gets the time in seconds after which a cached session cannot be resumed, 0 for no limit
+	 * @return
+	 */
+	public int getSessionTimeout() {
+		return sessionTimeout;
+	}
+
+	public void setSessionTimeout(int sessionTimeout) {
+		this.sessionTimeout = sessionTimeout;
+	}
+}
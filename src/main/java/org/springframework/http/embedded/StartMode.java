@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+/**
+ * The enum enumerating the ways the {@link EmbeddedServerFactory} starts the server it creates
+ * along with the application context
+ * @author Amol Nayak
+ *
+ */
+public enum StartMode {
+	/**
+	 * The server is started when the factory is initialized, the refresh of the application
+	 * context waits for the server and its web applications to start
+	 */
+	BLOCKING,
+	/**
+	 * The web applications are started on a thread of their own while the rest of the application
+	 * context is initialized, the ports are opened once the application context is refreshed
+	 */
+	ON_REFRESH;
+}
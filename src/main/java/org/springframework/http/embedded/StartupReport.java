@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The time taken by each phase of bringing up a server, from its initialization to it accepting
+ * the requests, available from {@link EmbeddedServer#getStartupReport()} once the server is started.
+ * The phases taken for each web application or each connector are timed separately, the durations
+ * are in microseconds
+ *
+ * @author Amol Nayak
+ *
+ */
+public class StartupReport {
+
+	/**
+	 * The phases of bringing up a server
+	 */
+	public enum Phase {
+
+		/**
+		 * The initialization of the server with its configuration
+		 */
+		INITIALIZE("initialize"),
+
+		/**
+		 * The deployment of a web application before the server starts, building its handlers
+		 */
+		DEPLOY("deploy"),
+
+		/**
+		 * The start of a web application, initializing its servlets and filters
+		 */
+		START_CONTEXT("start"),
+
+		/**
+		 * The opening of the server socket of a connector
+		 */
+		BIND("bind"),
+
+		/**
+		 * The start of the server once its web applications are started and its connectors
+		 * bound, starting the threads
+		 */
+		START_SERVER("start-server");
+
+		private final String label;
+
+		private Phase(String label) {
+			this.label = label;
+		}
+	}
+
+	private final List<Timing> timings;
+
+	private final long startTime;
+
+	public StartupReport(List<Timing> timings, long startTime) {
+		this.timings = Collections.unmodifiableList(new ArrayList<Timing>(timings));
+		this.startTime = startTime;
+	}
+
+	/**
+	 * Gets the timings of all the phases, in the order they completed
+	 * @return
+	 */
+	public List<Timing> getTimings() {
+		return timings;
+	}
+
+	/**
+	 * Gets the timings of the given phase, one per web application or connector if the phase is
+	 * taken for each of them
+	 * @return
+	 */
+	public List<Timing> getTimings(Phase phase) {
+		List<Timing> timingsOfPhase = new ArrayList<Timing>();
+		for(Timing timing:timings) {
+			if(timing.getPhase().equals(phase))
+				timingsOfPhase.add(timing);
+		}
+		return timingsOfPhase;
+	}
+
+	/**
+	 * Gets the time taken to start the server in microseconds, from the call to start to the
+	 * server accepting the requests. The initialization and the deployments before it are not
+	 * included
+	 * @return
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Gets the report on a single line, as logged when the server is started
+	 * @return
+	 */
+	public String getSummary() {
+		StringBuilder summary = new StringBuilder("Started in ").append(toMillis(startTime)).append(" ms");
+		String separator = " (";
+		for(Timing timing:timings) {
+			summary.append(separator).append(timing);
+			separator = ", ";
+		}
+		if(!timings.isEmpty())
+			summary.append(")");
+		return summary.toString();
+	}
+
+	@Override
+	public String toString() {
+		return getSummary();
+	}
+
+	private static String toMillis(long micros) {
+		return String.format(Locale.ENGLISH, "%.1f", micros / 1000.0);
+	}
+
+	/**
+	 * The time taken by a phase, for a web application or a connector if taken for each of them
+	 */
+	public static class Timing {
+
+		private final Phase phase;
+
+		private final String name;
+
+		private final long duration;
+
+		public Timing(Phase phase, String name, long duration) {
+			this.phase = phase;
+			this.name = name;
+			this.duration = duration;
+		}
+
+		/**
+		 * Gets the phase timed
+		 * @return
+		 */
+		public Phase getPhase() {
+			return phase;
+		}
+
+		/**
+		 * Gets the context path of the web application or the address of the connector the
+		 * phase was taken for, null if taken for the server as a whole
+		 * @return
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the time taken by the phase in microseconds
+		 * @return
+		 */
+		public long getDuration() {
+			return duration;
+		}
+
+		@Override
+		public String toString() {
+			return phase.label + (name == null ? "" : " " + name) + " " + toMillis(duration) + " ms";
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.http.embedded.jetty.DrainableHandler;
+
+/**
+ * Publishes the statistics of the requests of a server and of its web applications on the platform
+ * MBean server. The MBeans are named after the host and the port the server is bound to, the
+ * host being 0.0.0.0 when the server listens on all the interfaces, as in
+ * <pre>
+ * org.springframework.http.embedded:type=EmbeddedServer,host="0.0.0.0",port=8080
+ * org.springframework.http.embedded:type=WebApplication,host="0.0.0.0",port=8080,context="/shop"
+ * org.springframework.http.embedded:type=ConcurrencyLimit,host="0.0.0.0",port=8080,context="/shop"
+ * </pre>
+ * Every attribute read takes a new snapshot of the statistics. A failure to publish an MBean is
+ * thrown to the caller, a failure to withdraw one is logged and otherwise ignored
+ *
+ * @author Amol Nayak
+ *
+ */
+class StatisticsMBeans {
+
+	private static final Log logger = LogFactory.getLog(StatisticsMBeans.class);
+
+	private static final String DOMAIN = "org.springframework.http.embedded";
+
+	private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+	private final String serverName;
+
+	private final Set<ObjectName> registered =
+			Collections.newSetFromMap(new ConcurrentHashMap<ObjectName, Boolean>());
+
+	/**
+	 * Names the MBeans after the given host, null for all the interfaces, and the port bound
+	 */
+	StatisticsMBeans(String host, int port) {
+		this.serverName = "host=" + ObjectName.quote(host == null ? "0.0.0.0" : host) + ",port=" + port;
+	}
+
+	/**
+	 * Publishes the statistics of all the web applications of the given server together
+	 */
+	void registerServer(final EmbeddedServer server) throws JMException {
+		register(DOMAIN + ":type=EmbeddedServer," + serverName, new LiveStatistics() {
+			@Override
+			protected RequestStatistics snapshot() {
+				return server.getStatistics().getTotal();
+			}
+		});
+	}
+
+	/**
+	 * Publishes the statistics of the web application deployed on the given context path
+	 */
+	void registerContext(String contextPath, final DrainableHandler handler) throws JMException {
+		register(getContextName(contextPath), new LiveStatistics() {
+			@Override
+			protected RequestStatistics snapshot() {
+				return handler.getStatistics();
+			}
+		});
+	}
+
+	/**
+	 * Publishes the admission control of the web application deployed on the given context path
+	 */
+	void registerConcurrencyLimit(String contextPath, ConcurrencyLimitMXBean concurrencyLimit) throws JMException {
+		register(getConcurrencyLimitName(contextPath), concurrencyLimit);
+	}
+
+	void unregisterContext(String contextPath) {
+		try {
+			unregister(new ObjectName(getContextName(contextPath)));
+			unregister(new ObjectName(getConcurrencyLimitName(contextPath)));
+		} catch (Exception e) {
+			logger.warn("Unable to withdraw the statistics of \"" + contextPath + "\"", e);
+		}
+	}
+
+	/**
+	 * Withdraws all the MBeans published
+	 */
+	void unregisterAll() {
+		for(ObjectName name:new ArrayList<ObjectName>(registered)) {
+			unregister(name);
+		}
+	}
+
+	private String getContextName(String contextPath) {
+		return DOMAIN + ":type=WebApplication," + serverName + ",context=" + ObjectName.quote(contextPath);
+	}
+
+	private String getConcurrencyLimitName(String contextPath) {
+		return DOMAIN + ":type=ConcurrencyLimit," + serverName + ",context=" + ObjectName.quote(contextPath);
+	}
+
+	private void register(String name, Object mbean) throws JMException {
+		ObjectName objectName = new ObjectName(name);
+		mbeanServer.registerMBean(mbean, objectName);
+		registered.add(objectName);
+	}
+
+	private void unregister(ObjectName name) {
+		if(!registered.remove(name))
+			return;
+		try {
+			mbeanServer.unregisterMBean(name);
+		} catch (Exception e) {
+			logger.warn("Unable to withdraw the statistics published as \"" + name + "\"", e);
+		}
+	}
+
+	/**
+	 * The MBean answering every attribute from a fresh snapshot of the statistics
+	 */
+	private static abstract class LiveStatistics implements RequestStatisticsMXBean {
+
+		protected abstract RequestStatistics snapshot();
+
+		@Override
+		public long getRequests() {
+			return snapshot().getRequests();
+		}
+
+		@Override
+		public int getActiveRequests() {
+			return snapshot().getActiveRequests();
+		}
+
+		@Override
+		public long getResponses1xx() {
+			return snapshot().getResponses1xx();
+		}
+
+		@Override
+		public long getResponses2xx() {
+			return snapshot().getResponses2xx();
+		}
+
+		@Override
+		public long getResponses3xx() {
+			return snapshot().getResponses3xx();
+		}
+
+		@Override
+		public long getResponses4xx() {
+			return snapshot().getResponses4xx();
+		}
+
+		@Override
+		public long getResponses5xx() {
+			return snapshot().getResponses5xx();
+		}
+
+		@Override
+		public long getMeanLatency() {
+			return snapshot().getMeanLatency();
+		}
+
+		@Override
+		public long getLatency50thPercentile() {
+			return snapshot().getLatency50thPercentile();
+		}
+
+		@Override
+		public long getLatency99thPercentile() {
+			return snapshot().getLatency99thPercentile();
+		}
+
+		@Override
+		public long getLatency999thPercentile() {
+			return snapshot().getLatency999thPercentile();
+		}
+
+		@Override
+		public long getMaxLatency() {
+			return snapshot().getMaxLatency();
+		}
+	}
+}
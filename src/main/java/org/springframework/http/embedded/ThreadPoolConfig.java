@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+/**
+ * The configuration of the worker thread pool used by the {@link EmbeddedServer} to
+ * process the requests. The pool is always bounded, requests that cannot be handed
+ * to a worker thread immediately wait in a queue of at most <em>maxQueued</em> jobs. The
+ * minimum number of threads should not be above the maximum one
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ThreadPoolConfig implements InitializingBean {
+
+	private int minThreads = 8;			//default one
+
+	private int maxThreads = 254;		//default one
+
+	private int idleTimeout = 60000;	//default one, in milliseconds
+
+	private int maxQueued = 1024;		//default one
+
+	/**
+	 * Checks the number of threads once both the minimum and the maximum are set
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		Assert.isTrue(minThreads <= maxThreads, "The minimum number of threads " + minThreads
+				+ " should not be above the maximum number of threads " + maxThreads);
+	}
+
+	/**
+	 * Gets the minimum number of threads kept alive in the pool
+	 * @return
+	 */
+	public int getMinThreads() {
+		return minThreads;
+	}
+
+	public void setMinThreads(int minThreads) {
+		this.minThreads = minThreads;
+	}
+
+	/**
+	 * Gets the maximum number of threads the pool will grow up to
+	 * @return
+	 */
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	public void setMaxThreads(int maxThreads) {
+		this.maxThreads = maxThreads;
+	}
+
+	/**
+	 * Gets the time in milliseconds after which a thread above the minimum
+	 * number of threads is stopped if it is idle
+	 * @return
+	 */
+	public int getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(int idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Gets the maximum number of jobs that can wait in the queue for a free thread
+	 * @return
+	 */
+	public int getMaxQueued() {
+		return maxQueued;
+	}
+
+	public void setMaxQueued(int maxQueued) {
+		Assert.isTrue(maxQueued > 0, "The maximum number of queued jobs should be a positive number");
+		this.maxQueued = maxQueued;
+	}
+}
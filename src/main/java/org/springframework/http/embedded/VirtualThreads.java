@@ -0,0 +1,57 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Gives access to the virtual thread executor of the JDK. The project is compiled 
+ * for older JDKs hence the executor is looked up reflectively
+ * @author Amol Nayak
+ *
+ */
+final class VirtualThreads {
+	
+	private static final Method NEW_EXECUTOR_METHOD = 
+		ReflectionUtils.findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+
+	private VirtualThreads() {		
+	}
+	
+	/**
+	 * Checks if the JDK the application is running on supports virtual threads
+	 * @return
+	 */
+	static boolean isSupported() {
+		return NEW_EXECUTOR_METHOD != null;
+	}
+	
+	/**
+	 * Creates a new executor that starts a new virtual thread for each task
+	 * @return
+	 * @throws 	IllegalStateException if virtual threads are not supported by the JDK 
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor() {
+		if(!isSupported())
+			throw new IllegalStateException("Virtual threads are not supported by the JDK, version " 
+					+ System.getProperty("java.version"));
+		return (ExecutorService)ReflectionUtils.invokeMethod(NEW_EXECUTOR_METHOD, null);
+	}
+}
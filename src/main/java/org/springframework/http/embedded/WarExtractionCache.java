@@ -0,0 +1,180 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * The persistent directory the war files are extracted to, each war is extracted to a directory
+ * named after the war, a hash of its canonical path and the SHA-256 checksum of its content. An
+ * unchanged war is deployed from the directory it was extracted to on a previous start, a changed
+ * war is extracted again and the directories of its previous versions are deleted. Only the
+ * versions extracted from the same path are deleted, the wars with the same name in other
+ * directories, possibly deployed by other servers sharing the directory, are left alone.
+ * <p>
+ * A war is extracted to a temporary directory first and renamed once completely extracted, a
+ * directory left incomplete by an interrupted start is thus never reused
+ *
+ * @author Amol Nayak
+ *
+ */
+class WarExtractionCache {
+
+	private static final Log logger = LogFactory.getLog(WarExtractionCache.class);
+
+	private static final String CHECKSUM_ALGORITHM = "SHA-256";
+
+	private static final String TEMPORARY_SUFFIX = ".extracting";
+
+	/**
+	 * The number of hex digits of the path hash in the directory name
+	 */
+	private static final int PATH_HASH_LENGTH = 8;
+
+	private final File directory;
+
+	WarExtractionCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Gets the directory the given war is extracted to, extracting it if it was not extracted
+	 * before with the same content
+	 * @return
+	 */
+	File getExtractedWar(File war) throws IOException {
+		String name = war.getName();
+		if(name.toLowerCase().endsWith(".war"))
+			name = name.substring(0, name.length() - 4);
+		String prefix = name + "-" + pathHash(war) + "-";
+		File extracted = new File(directory, prefix + checksum(war));
+		if(extracted.isDirectory()) {
+			if(logger.isInfoEnabled())
+				logger.info("Reusing the unchanged war extracted to " + extracted.getAbsolutePath());
+			return extracted;
+		}
+		if(!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Unable to create the war extraction directory " + directory.getAbsolutePath());
+		File temporary = File.createTempFile(prefix, TEMPORARY_SUFFIX, directory);
+		if(!temporary.delete() || !temporary.mkdir())
+			throw new IOException("Unable to create the directory " + temporary.getAbsolutePath());
+		try {
+			long start = System.currentTimeMillis();
+			extract(war, temporary);
+			if(!temporary.renameTo(extracted) && !extracted.isDirectory())
+				throw new IOException("Unable to rename " + temporary.getAbsolutePath() + " to " + extracted.getName());
+			if(logger.isInfoEnabled())
+				logger.info("Extracted the war " + war.getAbsolutePath() + " to " + extracted.getAbsolutePath()
+						+ " in " + (System.currentTimeMillis() - start) + " ms");
+		} finally {
+			//Left behind if another server extracted the same war concurrently
+			FileSystemUtils.deleteRecursively(temporary);
+		}
+		deletePreviousVersions(prefix, extracted);
+		return extracted;
+	}
+
+	private void deletePreviousVersions(String prefix, File current) {
+		File[] files = directory.listFiles();
+		if(files == null)
+			return;
+		for(File file:files) {
+			String suffix = file.getName().startsWith(prefix) ? file.getName().substring(prefix.length()) : null;
+			//Only the ones named after a checksum, a war named with the same prefix may be extracted here too
+			if(file.isDirectory() && !file.equals(current) && suffix != null && suffix.matches("[0-9a-f]{64}")) {
+				if(logger.isDebugEnabled())
+					logger.debug("Deleting the previous version of the war extracted to " + file.getAbsolutePath());
+				FileSystemUtils.deleteRecursively(file);
+			}
+		}
+	}
+
+	private void extract(File war, File target) throws IOException {
+		String targetPath = target.getCanonicalPath() + File.separator;
+		ZipFile zipFile = new ZipFile(war);
+		try {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while(entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				File file = new File(target, entry.getName());
+				if(!file.getCanonicalPath().startsWith(targetPath))
+					throw new IOException("The entry " + entry.getName() + " of " + war.getName()
+							+ " is outside the extraction directory");
+				if(entry.isDirectory()) {
+					file.mkdirs();
+					continue;
+				}
+				file.getParentFile().mkdirs();
+				FileCopyUtils.copy(zipFile.getInputStream(entry), new FileOutputStream(file));
+				if(entry.getTime() > 0)
+					file.setLastModified(entry.getTime());
+			}
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	private String pathHash(File war) throws IOException {
+		MessageDigest digest = createDigest();
+		digest.update(war.getCanonicalPath().getBytes("UTF-8"));
+		return toHex(digest.digest()).substring(0, PATH_HASH_LENGTH);
+	}
+
+	private String checksum(File war) throws IOException {
+		MessageDigest digest = createDigest();
+		InputStream in = new FileInputStream(war);
+		try {
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		return toHex(digest.digest());
+	}
+
+	private MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(CHECKSUM_ALGORITHM + " is not supported by the JDK", e);
+		}
+	}
+
+	private String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder();
+		for(byte b:bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+}
@@ -22,6 +22,7 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 /**
@@ -49,6 +50,22 @@ public class WebApplication implements InitializingBean {
 	private boolean webAppRootGiven;
 	
 	private String contextPath;
+	
+	private CompressionConfig compressionConfig;
+	
+	private ResourceCacheConfig resourceCacheConfig;
+	
+	private long zeroCopyThreshold;
+	
+	private int maxMappedFiles = 64;		//default one
+	
+	private boolean lazy;
+	
+	private boolean sessions;
+	
+	private SessionStoreConfig sessionStoreConfig;
+	
+	private ConcurrencyLimitConfig concurrencyLimitConfig;
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
@@ -180,5 +197,112 @@ public class WebApplication implements InitializingBean {
 	public void setContextPath(String contextPath) {
 		this.contextPath = contextPath;
 	}
+
+	/**
+	 * Gets the configuration of the compression of the responses of this application,
+	 * null if the responses are not compressed
+	 * @return
+	 */
+	public CompressionConfig getCompressionConfig() {
+		return compressionConfig;
+	}
+
+	public void setCompressionConfig(CompressionConfig compressionConfig) {
+		this.compressionConfig = compressionConfig;
+	}
+
+	/**
+	 * Gets the configuration of the in memory cache of the static files of this application,
+	 * null if the static files are not cached
+	 * @return
+	 */
+	public ResourceCacheConfig getResourceCacheConfig() {
+		return resourceCacheConfig;
+	}
+
+	public void setResourceCacheConfig(ResourceCacheConfig resourceCacheConfig) {
+		this.resourceCacheConfig = resourceCacheConfig;
+	}
+
+	/**
+	 * Gets the size in bytes from which the static files of this application are served from
+	 * memory mapped buffers without copying them through the heap, 0 if they never are
+	 * @return
+	 */
+	public long getZeroCopyThreshold() {
+		return zeroCopyThreshold;
+	}
+
+	public void setZeroCopyThreshold(long zeroCopyThreshold) {
+		Assert.isTrue(zeroCopyThreshold >= 0, "The zero copy threshold should be a non negative number");
+		this.zeroCopyThreshold = zeroCopyThreshold;
+	}
+
+	/**
+	 * Gets the maximum number of the static files of this application kept memory mapped, the
+	 * least recently served ones are unmapped first
+	 * @return
+	 */
+	public int getMaxMappedFiles() {
+		return maxMappedFiles;
+	}
+
+	public void setMaxMappedFiles(int maxMappedFiles) {
+		Assert.isTrue(maxMappedFiles > 0, "The maximum number of mapped files should be a positive number");
+		this.maxMappedFiles = maxMappedFiles;
+	}
+
+	/**
+	 * Indicates if this application is built and started on its first request rather than
+	 * when the server starts
+	 * @return
+	 */
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+
+	/**
+	 * Indicates if the servlet mappings of this application are deployed with the support for
+	 * the HTTP sessions, false by default. Without it, the servlets cannot create sessions. The
+	 * applications deployed from a war or a web app root always support sessions
+	 * @return
+	 */
+	public boolean isSessions() {
+		return sessions;
+	}
+
+	public void setSessions(boolean sessions) {
+		this.sessions = sessions;
+	}
+
+	/**
+	 * Gets the configuration of the bounded store of the HTTP sessions of this application, null
+	 * if the sessions are held as many as they are created until they expire
+	 * @return
+	 */
+	public SessionStoreConfig getSessionStoreConfig() {
+		return sessionStoreConfig;
+	}
+
+	public void setSessionStoreConfig(SessionStoreConfig sessionStoreConfig) {
+		this.sessionStoreConfig = sessionStoreConfig;
+	}
+
+	/**
+	 * Gets the configuration of the admission control of the requests to this application, null
+	 * if the application is let to handle as many requests at a time as the server threads allow
+	 * @return
+	 */
+	public ConcurrencyLimitConfig getConcurrencyLimitConfig() {
+		return concurrencyLimitConfig;
+	}
+
+	public void setConcurrencyLimitConfig(ConcurrencyLimitConfig concurrencyLimitConfig) {
+		this.concurrencyLimitConfig = concurrencyLimitConfig;
+	}
 	
-}
\ No newline at end of file
+}
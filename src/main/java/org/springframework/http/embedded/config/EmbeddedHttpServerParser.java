@@ -24,9 +24,18 @@ import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.ManagedList;
 import org.springframework.beans.factory.xml.AbstractBeanDefinitionParser;
 import org.springframework.beans.factory.xml.ParserContext;
+import org.springframework.http.embedded.CompressionConfig;
+import org.springframework.http.embedded.ConcurrencyLimitConfig;
+import org.springframework.http.embedded.ConnectorConfig;
 import org.springframework.http.embedded.EmbeddedServerFactory;
+import org.springframework.http.embedded.ListenerConfig;
+import org.springframework.http.embedded.ResourceCacheConfig;
+import org.springframework.http.embedded.ResponseCacheConfig;
 import org.springframework.http.embedded.ServerConfig;
 import org.springframework.http.embedded.ServletMapping;
+import org.springframework.http.embedded.SessionStoreConfig;
+import org.springframework.http.embedded.SslConfig;
+import org.springframework.http.embedded.ThreadPoolConfig;
 import org.springframework.http.embedded.WebApplication;
 import org.springframework.util.StringUtils;
 import org.springframework.util.xml.DomUtils;
@@ -42,6 +51,8 @@ public class EmbeddedHttpServerParser extends
 		AbstractBeanDefinitionParser {
 
 	private static final String TYPE= "type";
+	private static final String START_MODE_ATTRIBUTE = "start-mode";
+	private static final String START_MODE_PROPERTY = "startMode";
 	private static final String CONFIG = "config";
 	private static final String PORT_NUMBER_ATTRIBUTE = "port-number";
 	private static final String PORT_NUMBER_PROPERTY = "startupPort";
@@ -49,6 +60,50 @@ public class EmbeddedHttpServerParser extends
 	private static final String CONTEXT_PATH_ATTRIUTE = "context-path";
 	private static final String CONTEXT_PATH = "contextPath";
 	private static final String WAR_ELEMENT = "war";
+	private static final String COMPRESSION_ELEMENT = "compression";
+	private static final String COMPRESSION_PROPERTY = "compressionConfig";
+	private static final String MIN_SIZE_ATTRIBUTE = "min-size";
+	private static final String MIN_SIZE_PROPERTY = "minSize";
+	private static final String MIME_TYPES_ATTRIBUTE = "mime-types";
+	private static final String MIME_TYPES_PROPERTY = "mimeTypes";
+	private static final String LEVEL_ATTRIBUTE = "level";
+	private static final String LEVEL_PROPERTY = "level";
+	private static final String PRECOMPRESSED_ATTRIBUTE = "precompressed";
+	private static final String PRECOMPRESSED_PROPERTY = "precompressed";
+	private static final String RESOURCE_CACHE_ELEMENT = "resource-cache";
+	private static final String RESOURCE_CACHE_PROPERTY = "resourceCacheConfig";
+	private static final String MAX_SIZE_ATTRIBUTE = "max-size";
+	private static final String MAX_SIZE_PROPERTY = "maxSize";
+	private static final String MAX_FILE_SIZE_ATTRIBUTE = "max-file-size";
+	private static final String MAX_FILE_SIZE_PROPERTY = "maxFileSize";
+	private static final String CHECK_INTERVAL_ATTRIBUTE = "check-interval";
+	private static final String CHECK_INTERVAL_PROPERTY = "checkInterval";
+	private static final String ZERO_COPY_THRESHOLD_ATTRIBUTE = "zero-copy-threshold";
+	private static final String ZERO_COPY_THRESHOLD_PROPERTY = "zeroCopyThreshold";
+	private static final String MAX_MAPPED_FILES_ATTRIBUTE = "max-mapped-files";
+	private static final String MAX_MAPPED_FILES_PROPERTY = "maxMappedFiles";
+	private static final String LAZY_ATTRIBUTE = "lazy";
+	private static final String LAZY_PROPERTY = "lazy";
+	private static final String SESSIONS_ATTRIBUTE = "sessions";
+	private static final String SESSIONS_PROPERTY = "sessions";
+	private static final String SESSION_STORE_ELEMENT = "session-store";
+	private static final String SESSION_STORE_PROPERTY = "sessionStoreConfig";
+	private static final String MAX_SESSIONS_ATTRIBUTE = "max-sessions";
+	private static final String MAX_SESSIONS_PROPERTY = "maxSessions";
+	private static final String MAX_INACTIVE_INTERVAL_ATTRIBUTE = "max-inactive-interval";
+	private static final String MAX_INACTIVE_INTERVAL_PROPERTY = "maxInactiveInterval";
+	private static final String SCAVENGE_PERIOD_ATTRIBUTE = "scavenge-period";
+	private static final String SCAVENGE_PERIOD_PROPERTY = "scavengePeriod";
+	private static final String CONCURRENCY_LIMIT_ELEMENT = "concurrency-limit";
+	private static final String CONCURRENCY_LIMIT_PROPERTY = "concurrencyLimitConfig";
+	private static final String[][] CONCURRENCY_LIMIT_ATTRIBUTES_TO_PROPERTIES = {
+		{"initial-limit", "initialLimit"},
+		{"min-limit", "minLimit"},
+		{"max-limit", "maxLimit"},
+		{"latency-tolerance", "latencyTolerance"},
+		{"backoff-ratio", "backoffRatio"},
+		{"retry-after", "retryAfter"}
+	};
 	private static final String WEBAPP_DIR_ELEMENT = "webapp-dir";
 	private static final String SERVLET_MAPPING_ELEMENT = "servlet-mapping";
 	private static final String LOCATION_ATTRIBUTE = "location";
@@ -57,6 +112,79 @@ public class EmbeddedHttpServerParser extends
 	private static final String SERVLET_MAPPING_PROPERTY = "servletMappings";
 	private static final String SERVLET_REF_ATTRIBUTE = "servlet-ref";
 	private static final String URL_PATTERN_ATTRIBUTE = "url-pattern";
+	private static final String CACHE_TTL_ATTRIBUTE = "cache-ttl";
+	private static final String CACHE_MAX_SIZE_ATTRIBUTE = "cache-max-size";
+	private static final String CACHE_COALESCING_TIMEOUT_ATTRIBUTE = "cache-coalescing-timeout";
+	private static final String COALESCING_TIMEOUT_PROPERTY = "coalescingTimeout";
+	private static final String TTL_PROPERTY = "ttl";
+	private static final String RESPONSE_CACHE_PROPERTY = "responseCacheConfig";
+	private static final String HOST_ATTRIBUTE = "host";
+	private static final String HOST_PROPERTY = "host";
+	private static final String LISTENER_ELEMENT = "listener";
+	private static final String LISTENERS_PROPERTY = "listeners";
+	private static final String PORT_ATTRIBUTE = "port";
+	private static final String PORT_PROPERTY = "port";
+	private static final String EXECUTION_MODE_ATTRIBUTE = "execution-mode";
+	private static final String EXECUTION_MODE_PROPERTY = "executionMode";
+	private static final String WAR_EXTRACTION_DIRECTORY_ATTRIBUTE = "war-extraction-directory";
+	private static final String WAR_EXTRACTION_DIRECTORY_PROPERTY = "warExtractionDirectory";
+	private static final String DEPLOYMENT_PARALLELISM_ATTRIBUTE = "deployment-parallelism";
+	private static final String DEPLOYMENT_PARALLELISM_PROPERTY = "deploymentParallelism";
+	private static final String DRAIN_TIMEOUT_ATTRIBUTE = "drain-timeout";
+	private static final String DRAIN_TIMEOUT_PROPERTY = "drainTimeout";
+	private static final String STOP_TIMEOUT_ATTRIBUTE = "stop-timeout";
+	private static final String STOP_TIMEOUT_PROPERTY = "stopTimeout";
+	private static final String HEALTH_CHECK_PATH_ATTRIBUTE = "health-check-path";
+	private static final String HEALTH_CHECK_PATH_PROPERTY = "healthCheckPath";
+	private static final String CONTEXT_ROUTING_ATTRIBUTE = "context-routing";
+	private static final String CONTEXT_ROUTING_PROPERTY = "contextRouting";
+	private static final String JMX_ENABLED_ATTRIBUTE = "jmx-enabled";
+	private static final String JMX_ENABLED_PROPERTY = "jmxEnabled";
+	private static final String CONNECTOR_PROPERTY = "connectorConfig";
+	private static final String ACCEPTORS_ATTRIBUTE = "acceptors";
+	private static final String ACCEPTORS_PROPERTY = "acceptors";
+	private static final String ACCEPT_QUEUE_SIZE_ATTRIBUTE = "accept-queue-size";
+	private static final String ACCEPT_QUEUE_SIZE_PROPERTY = "acceptQueueSize";
+	private static final String TCP_NO_DELAY_ATTRIBUTE = "tcp-no-delay";
+	private static final String TCP_NO_DELAY_PROPERTY = "tcpNoDelay";
+	private static final String MAX_IDLE_TIME_ATTRIBUTE = "max-idle-time";
+	private static final String MAX_IDLE_TIME_PROPERTY = "maxIdleTime";
+	private static final String MAX_CONNECTIONS_ATTRIBUTE = "max-connections";
+	private static final String MAX_CONNECTIONS_PROPERTY = "maxConnections";
+	private static final String LOW_RESOURCES_CONNECTIONS_ATTRIBUTE = "low-resources-connections";
+	private static final String LOW_RESOURCES_CONNECTIONS_PROPERTY = "lowResourcesConnections";
+	private static final String LOW_RESOURCES_MAX_IDLE_TIME_ATTRIBUTE = "low-resources-max-idle-time";
+	private static final String LOW_RESOURCES_MAX_IDLE_TIME_PROPERTY = "lowResourcesMaxIdleTime";
+	private static final String SSL_SUPPORTED_ATTRIBUTE = "ssl-supported";
+	private static final String SSL_SUPPORTED_PROPERTY = "sslSupported";
+	private static final String SSL_ELEMENT = "ssl";
+	private static final String SSL_PROPERTY = "sslConfig";
+	private static final String[][] SSL_ATTRIBUTES_TO_PROPERTIES = {
+		{"key-store", "keyStore"},
+		{"key-store-type", "keyStoreType"},
+		{"key-store-password", "keyStorePassword"},
+		{"key-manager-password", "keyManagerPassword"},
+		{"cert-alias", "certAlias"},
+		{"trust-store", "trustStore"},
+		{"trust-store-password", "trustStorePassword"},
+		{"need-client-auth", "needClientAuth"},
+		{"include-cipher-suites", "includeCipherSuites"},
+		{"exclude-cipher-suites", "excludeCipherSuites"},
+		{"include-protocols", "includeProtocols"},
+		{"session-caching-enabled", "sessionCachingEnabled"},
+		{"session-cache-size", "sessionCacheSize"},
+		{"session-timeout", "sessionTimeout"}
+	};
+	private static final String THREAD_POOL_ELEMENT = "thread-pool";
+	private static final String THREAD_POOL_PROPERTY = "threadPoolConfig";
+	private static final String MIN_THREADS_ATTRIBUTE = "min-threads";
+	private static final String MIN_THREADS_PROPERTY = "minThreads";
+	private static final String MAX_THREADS_ATTRIBUTE = "max-threads";
+	private static final String MAX_THREADS_PROPERTY = "maxThreads";
+	private static final String IDLE_TIMEOUT_ATTRIBUTE = "idle-timeout";
+	private static final String IDLE_TIMEOUT_PROPERTY = "idleTimeout";
+	private static final String MAX_QUEUED_ATTRIBUTE = "max-queued";
+	private static final String MAX_QUEUED_PROPERTY = "maxQueued";
 		
 	@Override
 	protected AbstractBeanDefinition parseInternal(Element element,
@@ -66,19 +194,103 @@ public class EmbeddedHttpServerParser extends
 		builder.addPropertyValue("config", getConfigBeanDefinition(element));
 		builder.addPropertyValue("webApplications", getWebApplications(element));
 		builder.addPropertyValue(TYPE, type);
+		setPropertyIfPresent(builder, element, START_MODE_ATTRIBUTE, START_MODE_PROPERTY);
 		return builder.getBeanDefinition();
 	}
 
 	private AbstractBeanDefinition getConfigBeanDefinition(Element element) {
 		Element node = DomUtils.getChildElementByTagName(element, CONFIG);		
 		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(ServerConfig.class);
-		String portNumber = node.getAttribute(PORT_NUMBER_ATTRIBUTE);
-			if(StringUtils.hasText(portNumber))
-				builder.addPropertyValue(PORT_NUMBER_PROPERTY, Integer.valueOf(portNumber));
+		if(node == null)	//config is optional, use the defaults
+			return builder.getBeanDefinition();
+		//Set as text so that a placeholder is resolved before it is converted
+		setPropertyIfPresent(builder, node, PORT_NUMBER_ATTRIBUTE, PORT_NUMBER_PROPERTY);
+		setPropertyIfPresent(builder, node, HOST_ATTRIBUTE, HOST_PROPERTY);
+		setPropertyIfPresent(builder, node, EXECUTION_MODE_ATTRIBUTE, EXECUTION_MODE_PROPERTY);
+		setPropertyIfPresent(builder, node, SSL_SUPPORTED_ATTRIBUTE, SSL_SUPPORTED_PROPERTY);
+		setPropertyIfPresent(builder, node, WAR_EXTRACTION_DIRECTORY_ATTRIBUTE, WAR_EXTRACTION_DIRECTORY_PROPERTY);
+		setPropertyIfPresent(builder, node, DEPLOYMENT_PARALLELISM_ATTRIBUTE, DEPLOYMENT_PARALLELISM_PROPERTY);
+		setPropertyIfPresent(builder, node, DRAIN_TIMEOUT_ATTRIBUTE, DRAIN_TIMEOUT_PROPERTY);
+		setPropertyIfPresent(builder, node, STOP_TIMEOUT_ATTRIBUTE, STOP_TIMEOUT_PROPERTY);
+		setPropertyIfPresent(builder, node, CONTEXT_ROUTING_ATTRIBUTE, CONTEXT_ROUTING_PROPERTY);
+		setPropertyIfPresent(builder, node, JMX_ENABLED_ATTRIBUTE, JMX_ENABLED_PROPERTY);
+		setPropertyIfPresent(builder, node, HEALTH_CHECK_PATH_ATTRIBUTE, HEALTH_CHECK_PATH_PROPERTY);
+		builder.addPropertyValue(CONNECTOR_PROPERTY, getConnectorBeanDefinition(node, ConnectorConfig.class));
+		setThreadPoolIfPresent(builder, node);
+		Element sslElem = DomUtils.getChildElementByTagName(node, SSL_ELEMENT);
+		if(sslElem != null)
+			builder.addPropertyValue(SSL_PROPERTY, getSslBeanDefinition(sslElem));
+		List<Element> listenerElements = DomUtils.getChildElementsByTagName(node, LISTENER_ELEMENT);
+		if(!listenerElements.isEmpty()) {
+			ManagedList<BeanDefinition> listeners = new ManagedList<BeanDefinition>();
+			for(Element listenerElem:listenerElements) {
+				AbstractBeanDefinition listener = getConnectorBeanDefinition(listenerElem, ListenerConfig.class);
+				listener.getPropertyValues().addPropertyValue(PORT_PROPERTY, listenerElem.getAttribute(PORT_ATTRIBUTE));
+				String host = listenerElem.getAttribute(HOST_ATTRIBUTE);
+				if(StringUtils.hasText(host))
+					listener.getPropertyValues().addPropertyValue(HOST_PROPERTY, host);
+				listeners.add(listener);
+			}
+			builder.addPropertyValue(LISTENERS_PROPERTY, listeners);
+		}
 		//Other configs go here		
 		return builder.getBeanDefinition();
 	}
 	
+	private AbstractBeanDefinition getConnectorBeanDefinition(Element element, Class<? extends ConnectorConfig> connectorClass) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(connectorClass);
+		setPropertyIfPresent(builder, element, ACCEPTORS_ATTRIBUTE, ACCEPTORS_PROPERTY);
+		setPropertyIfPresent(builder, element, ACCEPT_QUEUE_SIZE_ATTRIBUTE, ACCEPT_QUEUE_SIZE_PROPERTY);
+		setPropertyIfPresent(builder, element, TCP_NO_DELAY_ATTRIBUTE, TCP_NO_DELAY_PROPERTY);
+		setPropertyIfPresent(builder, element, MAX_IDLE_TIME_ATTRIBUTE, MAX_IDLE_TIME_PROPERTY);
+		setPropertyIfPresent(builder, element, MAX_CONNECTIONS_ATTRIBUTE, MAX_CONNECTIONS_PROPERTY);
+		setPropertyIfPresent(builder, element, LOW_RESOURCES_CONNECTIONS_ATTRIBUTE, LOW_RESOURCES_CONNECTIONS_PROPERTY);
+		setPropertyIfPresent(builder, element, LOW_RESOURCES_MAX_IDLE_TIME_ATTRIBUTE, LOW_RESOURCES_MAX_IDLE_TIME_PROPERTY);
+		if(ListenerConfig.class.equals(connectorClass)) {
+			setPropertyIfPresent(builder, element, SSL_SUPPORTED_ATTRIBUTE, SSL_SUPPORTED_PROPERTY);
+			setThreadPoolIfPresent(builder, element);
+		}
+		return builder.getBeanDefinition();
+	}
+	
+	private AbstractBeanDefinition getSslBeanDefinition(Element element) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(SslConfig.class);
+		for(String[] attributeToProperty:SSL_ATTRIBUTES_TO_PROPERTIES) {
+			setPropertyIfPresent(builder, element, attributeToProperty[0], attributeToProperty[1]);
+		}
+		return builder.getBeanDefinition();
+	}
+	
+	/**
+	 * Sets the thread pool configuration on the provided builder if the thread-pool child 
+	 * element is present 
+	 */
+	private void setThreadPoolIfPresent(BeanDefinitionBuilder builder, Element element) {
+		Element threadPoolElem = DomUtils.getChildElementByTagName(element, THREAD_POOL_ELEMENT);
+		if(threadPoolElem != null)
+			builder.addPropertyValue(THREAD_POOL_PROPERTY, getThreadPoolBeanDefinition(threadPoolElem));
+	}
+	
+	private AbstractBeanDefinition getThreadPoolBeanDefinition(Element element) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(ThreadPoolConfig.class);
+		setPropertyIfPresent(builder, element, MIN_THREADS_ATTRIBUTE, MIN_THREADS_PROPERTY);
+		setPropertyIfPresent(builder, element, MAX_THREADS_ATTRIBUTE, MAX_THREADS_PROPERTY);
+		setPropertyIfPresent(builder, element, IDLE_TIMEOUT_ATTRIBUTE, IDLE_TIMEOUT_PROPERTY);
+		setPropertyIfPresent(builder, element, MAX_QUEUED_ATTRIBUTE, MAX_QUEUED_PROPERTY);
+		return builder.getBeanDefinition();
+	}
+	
+	/**
+	 * Sets the value of the given attribute on the provided property if the attribute is present
+	 * on the element, the conversion to the type of the property is left to the bean factory
+	 */
+	private void setPropertyIfPresent(BeanDefinitionBuilder builder, Element element, 
+			String attributeName, String propertyName) {
+		String value = element.getAttribute(attributeName);
+		if(StringUtils.hasText(value))
+			builder.addPropertyValue(propertyName, value);
+	}
+	
 	private ManagedList<BeanDefinition> getWebApplications(Element element) {
 		List<Element> webAppElements = DomUtils.getChildElementsByTagName(element, WEB_APP);		
 		ManagedList<BeanDefinition> beanDefs = new ManagedList<BeanDefinition>();
@@ -97,6 +309,10 @@ public class EmbeddedHttpServerParser extends
 		String contextPath = elem.getAttribute(CONTEXT_PATH_ATTRIUTE);
 		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(WebApplication.class);
 		builder.addPropertyValue(CONTEXT_PATH, contextPath);		
+		setPropertyIfPresent(builder, elem, ZERO_COPY_THRESHOLD_ATTRIBUTE, ZERO_COPY_THRESHOLD_PROPERTY);
+		setPropertyIfPresent(builder, elem, MAX_MAPPED_FILES_ATTRIBUTE, MAX_MAPPED_FILES_PROPERTY);
+		setPropertyIfPresent(builder, elem, LAZY_ATTRIBUTE, LAZY_PROPERTY);
+		setPropertyIfPresent(builder, elem, SESSIONS_ATTRIBUTE, SESSIONS_PROPERTY);
 		//Only one of war, webapp-dir or servlet-mapping is supported as per xsd
 		//Get the web app child element first
 		Element warElement = DomUtils.getChildElementByTagName(elem, WAR_ELEMENT);		
@@ -118,11 +334,66 @@ public class EmbeddedHttpServerParser extends
 					String urlPattern = servletMapElem.getAttribute(URL_PATTERN_ATTRIBUTE);
 					servletMapping.addConstructorArgReference(servletRef);
 					servletMapping.addConstructorArgValue(urlPattern);
+					if(StringUtils.hasText(servletMapElem.getAttribute(CACHE_TTL_ATTRIBUTE)))
+						servletMapping.addPropertyValue(RESPONSE_CACHE_PROPERTY, getResponseCacheBeanDefinition(servletMapElem));
 					servletMappingList.add(servletMapping.getBeanDefinition());
 				}
 				builder.addPropertyValue(SERVLET_MAPPING_PROPERTY, servletMappingList);
 			}
 		}
+		Element compressionElem = DomUtils.getChildElementByTagName(elem, COMPRESSION_ELEMENT);
+		if(compressionElem != null)
+			builder.addPropertyValue(COMPRESSION_PROPERTY, getCompressionBeanDefinition(compressionElem));
+		Element resourceCacheElem = DomUtils.getChildElementByTagName(elem, RESOURCE_CACHE_ELEMENT);
+		if(resourceCacheElem != null)
+			builder.addPropertyValue(RESOURCE_CACHE_PROPERTY, getResourceCacheBeanDefinition(resourceCacheElem));
+		Element sessionStoreElem = DomUtils.getChildElementByTagName(elem, SESSION_STORE_ELEMENT);
+		if(sessionStoreElem != null)
+			builder.addPropertyValue(SESSION_STORE_PROPERTY, getSessionStoreBeanDefinition(sessionStoreElem));
+		Element concurrencyLimitElem = DomUtils.getChildElementByTagName(elem, CONCURRENCY_LIMIT_ELEMENT);
+		if(concurrencyLimitElem != null)
+			builder.addPropertyValue(CONCURRENCY_LIMIT_PROPERTY, getConcurrencyLimitBeanDefinition(concurrencyLimitElem));
+		return builder.getBeanDefinition();
+	}
+	
+	private AbstractBeanDefinition getResponseCacheBeanDefinition(Element element) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(ResponseCacheConfig.class);
+		setPropertyIfPresent(builder, element, CACHE_TTL_ATTRIBUTE, TTL_PROPERTY);
+		setPropertyIfPresent(builder, element, CACHE_MAX_SIZE_ATTRIBUTE, MAX_SIZE_PROPERTY);
+		setPropertyIfPresent(builder, element, CACHE_COALESCING_TIMEOUT_ATTRIBUTE, COALESCING_TIMEOUT_PROPERTY);
+		return builder.getBeanDefinition();
+	}
+	
+	private AbstractBeanDefinition getConcurrencyLimitBeanDefinition(Element element) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(ConcurrencyLimitConfig.class);
+		for(String[] attributeToProperty:CONCURRENCY_LIMIT_ATTRIBUTES_TO_PROPERTIES) {
+			setPropertyIfPresent(builder, element, attributeToProperty[0], attributeToProperty[1]);
+		}
+		return builder.getBeanDefinition();
+	}
+	
+	private AbstractBeanDefinition getSessionStoreBeanDefinition(Element element) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(SessionStoreConfig.class);
+		setPropertyIfPresent(builder, element, MAX_SESSIONS_ATTRIBUTE, MAX_SESSIONS_PROPERTY);
+		setPropertyIfPresent(builder, element, MAX_INACTIVE_INTERVAL_ATTRIBUTE, MAX_INACTIVE_INTERVAL_PROPERTY);
+		setPropertyIfPresent(builder, element, SCAVENGE_PERIOD_ATTRIBUTE, SCAVENGE_PERIOD_PROPERTY);
+		return builder.getBeanDefinition();
+	}
+	
+	private AbstractBeanDefinition getResourceCacheBeanDefinition(Element element) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(ResourceCacheConfig.class);
+		setPropertyIfPresent(builder, element, MAX_SIZE_ATTRIBUTE, MAX_SIZE_PROPERTY);
+		setPropertyIfPresent(builder, element, MAX_FILE_SIZE_ATTRIBUTE, MAX_FILE_SIZE_PROPERTY);
+		setPropertyIfPresent(builder, element, CHECK_INTERVAL_ATTRIBUTE, CHECK_INTERVAL_PROPERTY);
+		return builder.getBeanDefinition();
+	}
+	
+	private AbstractBeanDefinition getCompressionBeanDefinition(Element element) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(CompressionConfig.class);
+		setPropertyIfPresent(builder, element, MIN_SIZE_ATTRIBUTE, MIN_SIZE_PROPERTY);
+		setPropertyIfPresent(builder, element, MIME_TYPES_ATTRIBUTE, MIME_TYPES_PROPERTY);
+		setPropertyIfPresent(builder, element, LEVEL_ATTRIBUTE, LEVEL_PROPERTY);
+		setPropertyIfPresent(builder, element, PRECOMPRESSED_ATTRIBUTE, PRECOMPRESSED_PROPERTY);
 		return builder.getBeanDefinition();
 	}
 
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpSession;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.jetty.http.HttpCookie;
+import org.eclipse.jetty.server.session.AbstractSession;
+import org.eclipse.jetty.server.session.HashSessionManager;
+import org.springframework.http.embedded.SessionStoreConfig;
+
+/**
+ * The session manager of a web application keeping at most the configured number of sessions
+ * in memory. Once the limit is reached, the least recently accessed sessions are invalidated to
+ * make room for the new ones, so that a client creating sessions without ever coming back cannot
+ * exhaust the heap.
+ * <p>
+ * The sessions idle for longer than the max inactive interval are invalidated by the scavenger
+ * thread of Jetty that runs every scavenge period. The size of the sessions in memory is an estimate
+ * computed from the attributes when asked for, it does not account for the objects shared between
+ * the sessions
+ *
+ * @author Amol Nayak
+ *
+ */
+public class BoundedSessionManager extends HashSessionManager {
+
+	private static final Log logger = LogFactory.getLog(BoundedSessionManager.class);
+
+	/**
+	 * The estimated bytes held by a session without any attribute, the session object, its id
+	 * and its map of attributes
+	 */
+	static final int SESSION_OVERHEAD = 256;
+
+	/**
+	 * The estimated bytes of an attribute value whose size is not known
+	 */
+	static final int DEFAULT_VALUE_SIZE = 64;
+
+	private final int maxSessions;
+
+	private final LinkedHashMap<String, AbstractSession> accessOrder =
+			new LinkedHashMap<String, AbstractSession>(16, 0.75f, true);	//guarded by itself
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	public BoundedSessionManager(SessionStoreConfig storeConfig) {
+		this.maxSessions = storeConfig.getMaxSessions();
+		setMaxInactiveInterval(storeConfig.getMaxInactiveInterval());
+		setScavengePeriod(storeConfig.getScavengePeriod());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.session.HashSessionManager#addSession(org.eclipse.jetty.server.session.AbstractSession)
+	 */
+	@Override
+	protected void addSession(AbstractSession session) {
+		super.addSession(session);
+		List<AbstractSession> evicted = null;
+		synchronized (accessOrder) {
+			accessOrder.put(session.getClusterId(), session);
+			Iterator<AbstractSession> eldest = accessOrder.values().iterator();
+			while(accessOrder.size() > maxSessions && eldest.hasNext()) {
+				AbstractSession candidate = eldest.next();
+				if(candidate == session)
+					break;
+				eldest.remove();
+				if(evicted == null)
+					evicted = new ArrayList<AbstractSession>();
+				evicted.add(candidate);
+			}
+		}
+		if(evicted != null) {
+			//Invalidated outside the lock as the listeners of the application are notified
+			for(AbstractSession candidate:evicted) {
+				try {
+					candidate.invalidate();
+					evictions.incrementAndGet();
+				} catch (IllegalStateException e) {
+					//Invalidated concurrently, by the application or the scavenger
+				}
+			}
+			if(logger.isDebugEnabled())
+				logger.debug("Evicted " + evicted.size() + " least recently used session(s) above " + maxSessions);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.session.AbstractSessionManager#access(javax.servlet.http.HttpSession, boolean)
+	 */
+	@Override
+	public HttpCookie access(HttpSession session, boolean secure) {
+		HttpCookie cookie = super.access(session, secure);
+		if(session instanceof AbstractSession) {
+			String clusterId = ((AbstractSession)session).getClusterId();
+			synchronized (accessOrder) {
+				//Moves it to the most recently used end
+				accessOrder.get(clusterId);
+			}
+		}
+		return cookie;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.session.HashSessionManager#removeSession(java.lang.String)
+	 */
+	@Override
+	protected boolean removeSession(String clusterId) {
+		synchronized (accessOrder) {
+			accessOrder.remove(clusterId);
+		}
+		return super.removeSession(clusterId);
+	}
+
+	/**
+	 * Gets the maximum number of sessions held in memory, unlike {@link #getMaxSessions()}
+	 * of Jetty which is the peak number of sessions seen
+	 * @return
+	 */
+	public int getSessionLimit() {
+		return maxSessions;
+	}
+
+	/**
+	 * Gets the number of sessions invalidated to keep the sessions within the maximum
+	 * @return
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Gets the estimated number of bytes held in memory by the live sessions and their attributes
+	 * @return
+	 */
+	public long getEstimatedBytes() {
+		long bytes = 0;
+		for(AbstractSession session:_sessions.values()) {
+			bytes += SESSION_OVERHEAD;
+			try {
+				for(String name:session.getNames()) {
+					bytes += estimateSize(name) + estimateSize(session.getAttribute(name));
+				}
+			} catch (IllegalStateException e) {
+				//Invalidated while being estimated
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Estimates the bytes held by the given attribute value from its type, the values of unknown
+	 * types are counted at a fixed size
+	 */
+	static long estimateSize(Object value) {
+		if(value == null)
+			return 0;
+		if(value instanceof CharSequence)
+			return 40 + 2L * ((CharSequence)value).length();
+		if(value instanceof byte[])
+			return 16 + ((byte[])value).length;
+		if(value instanceof char[])
+			return 16 + 2L * ((char[])value).length;
+		if(value instanceof Number || value instanceof Boolean || value instanceof Character)
+			return 16;
+		if(value instanceof Collection)
+			return DEFAULT_VALUE_SIZE + 16L * ((Collection<?>)value).size();
+		if(value instanceof Map)
+			return DEFAULT_VALUE_SIZE + 32L * ((Map<?, ?>)value).size();
+		return DEFAULT_VALUE_SIZE;
+	}
+
+	@Override
+	public String toString() {
+		return "BoundedSessionManager[sessions=" + getSessions() + ", maxSessions=" + maxSessions
+				+ ", evictions=" + evictions.get() + "]";
+	}
+}
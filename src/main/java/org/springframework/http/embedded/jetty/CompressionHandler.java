@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.http.gzip.GzipResponseWrapper;
+import org.eclipse.jetty.http.gzip.GzipStream;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.GzipHandler;
+import org.springframework.http.embedded.CompressionConfig;
+
+/**
+ * The handler wrapping the context handler of a web application to compress its responses as
+ * per the provided {@link CompressionConfig}. Unlike the {@link GzipHandler} it extends, the
+ * compression level can be chosen and the responses vary on the accepted encoding.
+ * <p>
+ * Every response of a compressible content type carries a <em>Vary: Accept-Encoding</em> header,
+ * the ones compressed as well as the ones sent as is to the clients not accepting gzip, the ones
+ * below the minimum size and the precompressed static files. The responses that already have a
+ * content encoding, like the precompressed static files, are not compressed again
+ *
+ * @author Amol Nayak
+ *
+ */
+public class CompressionHandler extends GzipHandler {
+
+	private final CompressionConfig compressionConfig;
+
+	public CompressionHandler(CompressionConfig compressionConfig) {
+		this.compressionConfig = compressionConfig;
+		setMinGzipSize(compressionConfig.getMinSize());
+		setMimeTypes(new HashSet<String>(Arrays.asList(compressionConfig.getMimeTypes())));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.GzipHandler#handle(java.lang.String, org.eclipse.jetty.server.Request, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+	 */
+	@Override
+	public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		//Wrapped whether or not the client accepts gzip, the uncompressed responses vary too
+		super.handle(target, baseRequest, request, new VaryResponseWrapper(response, _mimeTypes));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.GzipHandler#newGzipResponseWrapper(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+	 */
+	@Override
+	protected GzipResponseWrapper newGzipResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+		GzipResponseWrapper wrapper = new GzipResponseWrapper(request, response) {
+			@Override
+			protected GzipStream newGzipStream(HttpServletRequest request, HttpServletResponse response,
+					long contentLength, int bufferSize, int minGzipSize) throws IOException {
+				return new LevelGzipStream(request, response, contentLength, bufferSize, minGzipSize,
+						compressionConfig.getLevel());
+			}
+		};
+		wrapper.setMimeTypes(_mimeTypes);
+		wrapper.setBufferSize(_bufferSize);
+		wrapper.setMinGzipSize(_minGzipSize);
+		return wrapper;
+	}
+
+	/**
+	 * Gets the configuration the responses are compressed with
+	 * @return
+	 */
+	public CompressionConfig getCompressionConfig() {
+		return compressionConfig;
+	}
+
+	/**
+	 * The stream compressing the response with the given level
+	 */
+	private static class LevelGzipStream extends GzipStream {
+
+		private final int level;
+
+		private LevelGzipStream(HttpServletRequest request, HttpServletResponse response, long contentLength,
+				int bufferSize, int minGzipSize, int level) throws IOException {
+			super(request, response, contentLength, bufferSize, minGzipSize);
+			this.level = level;
+		}
+
+		@Override
+		protected boolean setContentEncodingGzip() {
+			//Compressed even without a content type, hence varies whatever the content type
+			if(_response instanceof VaryResponseWrapper)
+				((VaryResponseWrapper)_response).vary();
+			else
+				_response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			return super.setContentEncodingGzip();
+		}
+
+		/**
+		 * Same as the one of the super class except for the level of the gzip stream created. The
+		 * one of Jetty 7.5 creates its gzip stream inline and writes the buffered content through it
+		 * right away, and the deflater of a gzip stream is reachable only from a subclass of it, the
+		 * level can thus not be set on the stream created by the super class
+		 */
+		@Override
+		public void doGzip() throws IOException {
+			if(level == Deflater.DEFAULT_COMPRESSION || _gzOut != null) {
+				super.doGzip();
+				return;
+			}
+			if(_response.isCommitted())
+				throw new IllegalStateException();
+			if(setContentEncodingGzip()) {
+				_out = _gzOut = newGzipOutputStream(_response.getOutputStream());
+				if(_bOut != null) {
+					_out.write(_bOut.getBuf(), 0, _bOut.getCount());
+					_bOut = null;
+				}
+			} else {
+				doNotGzip();
+			}
+		}
+
+		private GZIPOutputStream newGzipOutputStream(OutputStream out) throws IOException {
+			return new GZIPOutputStream(out, _bufferSize) {
+				{
+					def.setLevel(level);
+				}
+			};
+		}
+	}
+}
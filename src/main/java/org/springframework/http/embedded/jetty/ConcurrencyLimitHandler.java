@@ -0,0 +1,208 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.continuation.Continuation;
+import org.eclipse.jetty.continuation.ContinuationListener;
+import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.server.AsyncContinuation;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.springframework.http.embedded.ConcurrencyLimitConfig;
+import org.springframework.http.embedded.ConcurrencyLimitMXBean;
+
+/**
+ * The handler admitting at most as many requests at a time to a web application as its current
+ * limit, the requests beyond it are answered right away with a 503 status and a <em>Retry-After</em>
+ * header without reaching the application. A slow application thus holds a bounded number of the
+ * threads of the server and the other applications keep being served.
+ * <p>
+ * The limit is adjusted as the requests complete, additive increase and multiplicative decrease.
+ * The usual latency of the application starts as the lowest latency of its first requests, which
+ * are slowed down by the initialization of the application and do not adjust the limit. It then
+ * moves slowly along with the latencies of the requests completing in time, the slower ones are left
+ * out so that the usual latency does not creep up along with the overload it is meant to detect.
+ * A request taking longer than the latency tolerance times the usual latency multiplies the limit
+ * by the backoff ratio, at most once per usual latency so that the requests slowed down together
+ * count once. A request completing in time while at least half the limit is in use grows the limit
+ * by the inverse of the limit, by one once as many requests as the limit completed.
+ * <p>
+ * The admission takes a compare and set, the adjustment a short lock once the request completes.
+ * A suspended request holds its place until it completes
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ConcurrencyLimitHandler extends HandlerWrapper implements ConcurrencyLimitMXBean {
+
+	/**
+	 * The weight of a latency in the usual latency
+	 */
+	private static final double SMOOTHING = 0.01;
+
+	/**
+	 * The number of the first requests whose lowest latency starts the usual latency
+	 */
+	private static final int SEED_REQUESTS = 10;
+
+	private final ConcurrencyLimitConfig config;
+
+	private final String retryAfter;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	private volatile int currentLimit;
+
+	private double limit;					//guarded by this
+
+	private double baselineLatency;			//guarded by this, in microseconds
+
+	private int seedRequests;				//guarded by this
+
+	private long lastDecrease;				//guarded by this, in nanoseconds
+
+	public ConcurrencyLimitHandler(ConcurrencyLimitConfig config) {
+		config.afterPropertiesSet();
+		this.config = config;
+		this.retryAfter = String.valueOf(config.getRetryAfter());
+		this.limit = config.getInitialLimit();
+		this.currentLimit = (int)limit;
+		//The origin of the nano time is arbitrary, the first decrease is measured from now
+		this.lastDecrease = System.nanoTime();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.HandlerWrapper#handle(java.lang.String, org.eclipse.jetty.server.Request, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+	 */
+	@Override
+	public void handle(String target, Request baseRequest, HttpServletRequest request,
+			HttpServletResponse response) throws IOException, ServletException {
+		AsyncContinuation continuation = baseRequest.getAsyncContinuation();
+		if(!continuation.isInitial()) {
+			//A resumed request, admitted already
+			super.handle(target, baseRequest, request, response);
+			return;
+		}
+		if(!tryAcquire()) {
+			rejected.incrementAndGet();
+			baseRequest.setHandled(true);
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+			return;
+		}
+		final long start = System.nanoTime();
+		try {
+			super.handle(target, baseRequest, request, response);
+		} finally {
+			if(continuation.isSuspended()) {
+				continuation.addContinuationListener(new ContinuationListener() {
+					@Override
+					public void onComplete(Continuation continuation) {
+						release(start);
+					}
+
+					@Override
+					public void onTimeout(Continuation continuation) {
+						//Released when completed after the timeout
+					}
+				});
+			} else {
+				release(start);
+			}
+		}
+	}
+
+	private boolean tryAcquire() {
+		while(true) {
+			int current = inFlight.get();
+			if(current >= currentLimit)
+				return false;
+			if(inFlight.compareAndSet(current, current + 1))
+				return true;
+		}
+	}
+
+	private void release(long start) {
+		long now = System.nanoTime();
+		adjust((now - start) / 1000, now, inFlight.getAndDecrement());
+	}
+
+	/**
+	 * Adjusts the limit to the latency of a request that completed with the given number of
+	 * requests in flight, itself included
+	 */
+	private synchronized void adjust(long latency, long now, int inFlightRequests) {
+		if(seedRequests < SEED_REQUESTS) {
+			//The lowest one, the first requests may include the lazy initialization of the application
+			long seed = Math.max(latency, 1);
+			baselineLatency = seedRequests++ == 0 ? seed : Math.min(baselineLatency, seed);
+			return;
+		}
+		if(latency > config.getLatencyTolerance() * baselineLatency) {
+			if(now - lastDecrease > baselineLatency * 1000) {
+				limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+				lastDecrease = now;
+			}
+		} else {
+			if(inFlightRequests * 2 >= limit)
+				limit = Math.min(config.getMaxLimit(), limit + 1 / limit);
+			baselineLatency += (latency - baselineLatency) * SMOOTHING;
+		}
+		currentLimit = (int)limit;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.ConcurrencyLimitMXBean#getLimit()
+	 */
+	@Override
+	public int getLimit() {
+		return currentLimit;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.ConcurrencyLimitMXBean#getInFlightRequests()
+	 */
+	@Override
+	public int getInFlightRequests() {
+		return inFlight.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.ConcurrencyLimitMXBean#getRejectedRequests()
+	 */
+	@Override
+	public long getRejectedRequests() {
+		return rejected.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.http.embedded.ConcurrencyLimitMXBean#getBaselineLatency()
+	 */
+	@Override
+	public synchronized long getBaselineLatency() {
+		return (long)baselineLatency;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.nio.SelectChannelEndPoint;
+import org.eclipse.jetty.io.nio.SelectorManager.SelectSet;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.springframework.http.embedded.ConnectorConfig;
+
+/**
+ * The NIO select channel connector that is tuned as per the provided {@link ConnectorConfig}
+ * @author Amol Nayak
+ *
+ */
+public class ConfigurableSelectChannelConnector extends SelectChannelConnector {
+	
+	private final ConnectorConfig connectorConfig;
+	
+	private final ConnectionMonitor connectionMonitor;
+
+	public ConfigurableSelectChannelConnector(ConnectorConfig connectorConfig) {
+		this.connectorConfig = connectorConfig;
+		this.connectionMonitor = new ConnectionMonitor(connectorConfig);
+		ConnectorSupport.configure(this, connectorConfig);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.nio.SelectChannelConnector#doStart()
+	 */
+	@Override
+	protected void doStart() throws Exception {
+		ConnectorSupport.startDedicatedThreadPool(this);
+		super.doStart();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.AbstractConnector#configure(java.net.Socket)
+	 */
+	@Override
+	protected void configure(Socket socket) throws IOException {
+		super.configure(socket);
+		ConnectorSupport.configure(socket, connectorConfig);
+		connectionMonitor.accepted(socket);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.nio.SelectChannelConnector#newEndPoint(java.nio.channels.SocketChannel, org.eclipse.jetty.io.nio.SelectorManager.SelectSet, java.nio.channels.SelectionKey)
+	 */
+	@Override
+	protected SelectChannelEndPoint newEndPoint(SocketChannel channel, SelectSet selectSet, SelectionKey key) 
+			throws IOException {
+		SelectChannelEndPoint endPoint = null;
+		boolean opened = false;
+		try {
+			endPoint = super.newEndPoint(channel, selectSet, key);
+			connectionMonitor.opened(endPoint, super.isLowResources());
+			opened = true;
+		} finally {
+			if(!opened)
+				connectionMonitor.failed(channel, endPoint);
+		}
+		return endPoint;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.nio.SelectChannelConnector#endPointClosed(org.eclipse.jetty.io.nio.SelectChannelEndPoint)
+	 */
+	@Override
+	protected void endPointClosed(SelectChannelEndPoint endPoint) {
+		super.endPointClosed(endPoint);
+		connectionMonitor.closed(endPoint);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.nio.SelectChannelConnector#customize(org.eclipse.jetty.io.EndPoint, org.eclipse.jetty.server.Request)
+	 */
+	@Override
+	public void customize(EndPoint endpoint, Request request) throws IOException {
+		super.customize(endpoint, request);
+		connectionMonitor.customize(endpoint, super.isLowResources());
+	}
+
+	/**
+	 * The connector is low on resources if the thread pool is low on threads or if the open
+	 * connections reach the low resources connections or the maximum connections configured 
+	 */
+	@Override
+	public boolean isLowResources() {
+		return super.isLowResources() || connectionMonitor.isLowOnConnections();
+	}
+	
+	/**
+	 * Gets the number of connections currently open on this connector
+	 * @return
+	 */
+	public int getOpenConnections() {
+		return connectionMonitor.getOpenConnections();
+	}
+	
+	/**
+	 * Gets the configuration this connector is tuned with
+	 * @return
+	 */
+	public ConnectorConfig getConnectorConfig() {
+		return connectorConfig;
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+
+import org.eclipse.jetty.http.HttpSchemes;
+import org.eclipse.jetty.http.ssl.SslContextFactory;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.nio.SelectChannelEndPoint;
+import org.eclipse.jetty.io.nio.SelectorManager.SelectSet;
+import org.eclipse.jetty.io.nio.SslSelectChannelEndPoint;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.ssl.ServletSSL;
+import org.eclipse.jetty.server.ssl.SslSelectChannelConnector;
+import org.eclipse.jetty.util.TypeUtil;
+import org.springframework.http.embedded.ConnectorConfig;
+
+/**
+ * The NIO SSL connector that is tuned as per the provided {@link ConnectorConfig}. The protocols
+ * the SSL engines are restricted to can be set on this connector as the {@link SslContextFactory}
+ * does not support it.
+ * <p>
+ * The SSL attributes of the requests are set by this connector as the one of Jetty reads the 
+ * certificates of the client using an API that is no longer supported by the recent JDKs
+ *   
+ * @author Amol Nayak
+ *
+ */
+public class ConfigurableSslSelectChannelConnector extends SslSelectChannelConnector {
+	
+	private static final String SSL_ATTRIBUTES_KEY = ConfigurableSslSelectChannelConnector.class.getName() + ".attributes";
+
+	private final ConnectorConfig connectorConfig;
+	
+	private final ConnectionMonitor connectionMonitor;
+	
+	private String[] includeProtocols;
+	
+	public ConfigurableSslSelectChannelConnector(ConnectorConfig connectorConfig, SslContextFactory sslContextFactory) {
+		super(sslContextFactory);
+		this.connectorConfig = connectorConfig;
+		this.connectionMonitor = new ConnectionMonitor(connectorConfig);
+		ConnectorSupport.configure(this, connectorConfig);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.ssl.SslSelectChannelConnector#doStart()
+	 */
+	@Override
+	protected void doStart() throws Exception {
+		ConnectorSupport.startDedicatedThreadPool(this);
+		super.doStart();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.AbstractConnector#configure(java.net.Socket)
+	 */
+	@Override
+	protected void configure(Socket socket) throws IOException {
+		super.configure(socket);
+		ConnectorSupport.configure(socket, connectorConfig);
+		connectionMonitor.accepted(socket);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.nio.SelectChannelConnector#newEndPoint(java.nio.channels.SocketChannel, org.eclipse.jetty.io.nio.SelectorManager.SelectSet, java.nio.channels.SelectionKey)
+	 */
+	@Override
+	protected SelectChannelEndPoint newEndPoint(SocketChannel channel, SelectSet selectSet, SelectionKey key) 
+			throws IOException {
+		SelectChannelEndPoint endPoint = null;
+		boolean opened = false;
+		try {
+			endPoint = super.newEndPoint(channel, selectSet, key);
+			connectionMonitor.opened(endPoint, super.isLowResources());
+			opened = true;
+		} finally {
+			if(!opened)
+				connectionMonitor.failed(channel, endPoint);
+		}
+		return endPoint;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.nio.SelectChannelConnector#endPointClosed(org.eclipse.jetty.io.nio.SelectChannelEndPoint)
+	 */
+	@Override
+	protected void endPointClosed(SelectChannelEndPoint endPoint) {
+		super.endPointClosed(endPoint);
+		connectionMonitor.closed(endPoint);
+	}
+
+	/**
+	 * The connector is low on resources if the thread pool is low on threads or if the open
+	 * connections reach the low resources connections or the maximum connections configured 
+	 */
+	@Override
+	public boolean isLowResources() {
+		return super.isLowResources() || connectionMonitor.isLowOnConnections();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.ssl.SslSelectChannelConnector#createSSLEngine(java.nio.channels.SocketChannel)
+	 */
+	@Override
+	protected SSLEngine createSSLEngine(SocketChannel channel) throws IOException {
+		SSLEngine engine = super.createSSLEngine(channel);
+		if(includeProtocols != null)
+			engine.setEnabledProtocols(includeProtocols);
+		return engine;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.ssl.SslSelectChannelConnector#customize(org.eclipse.jetty.io.EndPoint, org.eclipse.jetty.server.Request)
+	 */
+	@Override
+	public void customize(EndPoint endpoint, Request request) throws IOException {
+		//Does what the super classes do, except for reading the client certificates
+		request.setScheme(HttpSchemes.HTTPS);
+		SelectChannelEndPoint channelEndPoint = (SelectChannelEndPoint)endpoint;
+		channelEndPoint.cancelIdle();
+		request.setTimeStamp(channelEndPoint.getSelectSet().getNow());
+		endpoint.setMaxIdleTime(_maxIdleTime);
+		if(isForwarded())
+			checkForwardedHeaders(endpoint, request);
+		
+		SSLSession sslSession = ((SslSelectChannelEndPoint)endpoint).getSSLEngine().getSession();
+		SslAttributes attributes = (SslAttributes)sslSession.getValue(SSL_ATTRIBUTES_KEY);
+		if(attributes == null) {
+			attributes = new SslAttributes(sslSession);
+			sslSession.putValue(SSL_ATTRIBUTES_KEY, attributes);
+		}
+		if(attributes.certificates != null)
+			request.setAttribute("javax.servlet.request.X509Certificate", attributes.certificates);
+		request.setAttribute("javax.servlet.request.cipher_suite", sslSession.getCipherSuite());
+		request.setAttribute("javax.servlet.request.key_size", attributes.keySize);
+		request.setAttribute("javax.servlet.request.ssl_session_id", attributes.sessionId);
+		connectionMonitor.customize(endpoint, super.isLowResources());
+	}
+	
+	/**
+	 * Gets the number of connections currently open on this connector
+	 * @return
+	 */
+	public int getOpenConnections() {
+		return connectionMonitor.getOpenConnections();
+	}
+	
+	/**
+	 * Gets the configuration this connector is tuned with
+	 * @return
+	 */
+	public ConnectorConfig getConnectorConfig() {
+		return connectorConfig;
+	}
+
+	/**
+	 * Gets the protocols the SSL engines are restricted to, null if the defaults of the 
+	 * JDK are used
+	 * @return
+	 */
+	public String[] getIncludeProtocols() {
+		return includeProtocols;
+	}
+
+	public void setIncludeProtocols(String[] includeProtocols) {
+		this.includeProtocols = includeProtocols;
+	}
+
+	/**
+	 * The attributes of an SSL session that are computed once and then cached in the session
+	 */
+	private static class SslAttributes {
+		
+		private final Integer keySize;
+		private final X509Certificate[] certificates;
+		private final String sessionId;
+		
+		private SslAttributes(SSLSession sslSession) {
+			keySize = Integer.valueOf(ServletSSL.deduceKeyLength(sslSession.getCipherSuite()));
+			sessionId = TypeUtil.toHexString(sslSession.getId());
+			X509Certificate[] peerCertificates = null;
+			try {
+				Certificate[] certificates = sslSession.getPeerCertificates();
+				peerCertificates = new X509Certificate[certificates.length];
+				for(int i = 0; i < certificates.length; i++) {
+					peerCertificates[i] = (X509Certificate)certificates[i];
+				}
+			} catch (SSLPeerUnverifiedException e) {
+				//The client did not authenticate with a certificate
+			}
+			this.certificates = peerCertificates;
+		}
+	}
+}
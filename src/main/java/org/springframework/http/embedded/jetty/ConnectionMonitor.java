@@ -0,0 +1,198 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.jetty.io.EndPoint;
+import org.springframework.http.embedded.ConnectorConfig;
+
+/**
+ * Keeps track of the open connections of a connector to enforce the maximum number of connections
+ * and to shorten the idle time of the connections when the connector is low on resources.
+ * <p>
+ * The low resources settings of the Jetty NIO connectors are not acted upon by the selectors of
+ * Jetty 7, hence the idle time is changed on the end points by the connectors using this class.
+ * <p>
+ * A permit is taken for every accepted channel and returned once, when the end point of the channel
+ * is closed, when its end point could not be created, or when the channel is found closed without
+ * an end point. Once the maximum is reached, the acceptor thread blocks till a permit is returned,
+ * the connections pending meanwhile wait in the accept queue of the server socket
+ *
+ * @author Amol Nayak
+ *
+ */
+final class ConnectionMonitor {
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final ConnectorConfig connectorConfig;
+
+	/**
+	 * The interval, in milliseconds, at which a blocked acceptor looks for the permits of the closed channels
+	 */
+	private static final long CLOSED_CHANNELS_CHECK_INTERVAL = 1000;
+
+	private final Set<EndPoint> endPoints = Collections.newSetFromMap(new ConcurrentHashMap<EndPoint, Boolean>());
+
+	private final Set<SocketChannel> admittedChannels =
+			Collections.newSetFromMap(new ConcurrentHashMap<SocketChannel, Boolean>());
+
+	private final Semaphore permits;
+
+	private final AtomicBoolean lowResources = new AtomicBoolean(false);
+
+	ConnectionMonitor(ConnectorConfig connectorConfig) {
+		this.connectorConfig = connectorConfig;
+		permits = connectorConfig.getMaxConnections() > 0 ? new Semaphore(connectorConfig.getMaxConnections()) : null;
+	}
+
+	/**
+	 * Invoked by the acceptor thread for every accepted socket, blocks the acceptor thread till
+	 * the number of open connections is below the maximum. The accepted socket is closed if the
+	 * thread is interrupted
+	 */
+	void accepted(Socket socket) throws IOException {
+		if(permits == null)
+			return;
+		if(!permits.tryAcquire()) {
+			if(logger.isDebugEnabled())
+				logger.debug("Maximum of " + connectorConfig.getMaxConnections()
+						+ " connections reached, waiting for a connection to close");
+			try {
+				while(!permits.tryAcquire(CLOSED_CHANNELS_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+					releaseClosedChannels();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				socket.close();
+				throw new InterruptedIOException("Interrupted while waiting for a connection to close");
+			}
+		}
+		admittedChannels.add(socket.getChannel());
+	}
+
+	/**
+	 * Invoked when the end point of an accepted connection is created
+	 */
+	void opened(EndPoint endPoint, boolean lowOnThreads) throws IOException {
+		endPoints.add(endPoint);
+		if(!isLowResources(lowOnThreads))
+			return;
+		if(lowResources.compareAndSet(false, true)) {
+			int maxIdleTime = connectorConfig.getLowResourcesMaxIdleTime();
+			if(maxIdleTime > 0) {
+				logger.info("Low on resources with " + endPoints.size() + " open connections, reducing the idle time of the connections to "
+						+ maxIdleTime + " ms");
+				for(EndPoint openEndPoint:endPoints) {
+					shortenIdleTime(openEndPoint);
+				}
+			}
+		} else {
+			shortenIdleTime(endPoint);
+		}
+	}
+
+	/**
+	 * Invoked when a request is received on the end point after the connector set its idle time
+	 */
+	void customize(EndPoint endPoint, boolean lowOnThreads) throws IOException {
+		if(isLowResources(lowOnThreads)) {
+			shortenIdleTime(endPoint);
+		} else if(lowResources.compareAndSet(true, false) && logger.isInfoEnabled()) {
+			logger.info("No longer low on resources with " + endPoints.size() + " open connections");
+		}
+	}
+
+	/**
+	 * Invoked when the end point of a connection is closed
+	 */
+	void closed(EndPoint endPoint) {
+		endPoints.remove(endPoint);
+		release(endPoint.getTransport());
+	}
+
+	/**
+	 * Invoked when the end point of an accepted channel could not be created or opened
+	 */
+	void failed(SocketChannel channel, EndPoint endPoint) {
+		if(endPoint != null)
+			endPoints.remove(endPoint);
+		release(channel);
+	}
+
+	/**
+	 * Indicates if the number of open connections has reached the low resources connections
+	 * or the maximum number of connections
+	 * @return
+	 */
+	boolean isLowOnConnections() {
+		int open = endPoints.size();
+		return (connectorConfig.getLowResourcesConnections() > 0 && open >= connectorConfig.getLowResourcesConnections())
+			|| (connectorConfig.getMaxConnections() > 0 && open >= connectorConfig.getMaxConnections());
+	}
+
+	/**
+	 * Gets the number of connections currently open
+	 * @return
+	 */
+	int getOpenConnections() {
+		return endPoints.size();
+	}
+
+	/**
+	 * Returns the permit of the given channel, if it still holds one
+	 */
+	private void release(Object channel) {
+		if(permits != null && admittedChannels.remove(channel))
+			permits.release();
+	}
+
+	/**
+	 * Returns the permits of the channels closed without their end points being closed, such as
+	 * the ones closed by the selector before registering them
+	 */
+	private void releaseClosedChannels() {
+		for(SocketChannel channel:admittedChannels) {
+			if(!channel.isOpen() && admittedChannels.remove(channel)) {
+				if(logger.isDebugEnabled())
+					logger.debug("Releasing the connection permit of a channel closed without an end point");
+				permits.release();
+			}
+		}
+	}
+
+	private boolean isLowResources(boolean lowOnThreads) {
+		return lowOnThreads || isLowOnConnections();
+	}
+
+	private void shortenIdleTime(EndPoint endPoint) throws IOException {
+		int maxIdleTime = connectorConfig.getLowResourcesMaxIdleTime();
+		if(maxIdleTime > 0 && maxIdleTime < endPoint.getMaxIdleTime())
+			endPoint.setMaxIdleTime(maxIdleTime);
+	}
+}
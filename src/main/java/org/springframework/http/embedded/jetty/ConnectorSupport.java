@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.net.Socket;
+import java.net.SocketException;
+
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.springframework.http.embedded.ConnectorConfig;
+
+/**
+ * The common tuning of the plain and the SSL connectors as per the {@link ConnectorConfig}
+ * @author Amol Nayak
+ *
+ */
+final class ConnectorSupport {
+
+	private ConnectorSupport() {		
+	}
+	
+	/**
+	 * Applies the configuration to the connector before it is started
+	 */
+	static void configure(AbstractConnector connector, ConnectorConfig connectorConfig) {
+		connector.setAcceptors(connectorConfig.getAcceptors());
+		connector.setAcceptQueueSize(connectorConfig.getAcceptQueueSize());
+		connector.setMaxIdleTime(connectorConfig.getMaxIdleTime());
+		connector.setLowResourcesMaxIdleTime(connectorConfig.getLowResourcesMaxIdleTime());
+	}
+	
+	/**
+	 * Starts the thread pool dedicated to the connector if any. The selectors of the connector are 
+	 * dispatched before the {@link AbstractConnector} starts such a thread pool 
+	 */
+	static void startDedicatedThreadPool(AbstractConnector connector) throws Exception {
+		ThreadPool threadPool = connector.getThreadPool();
+		if(threadPool instanceof LifeCycle && threadPool != connector.getServer().getThreadPool())
+			((LifeCycle)threadPool).start();
+	}
+	
+	/**
+	 * Configures an accepted socket, the connectors always disable Nagle's algorithm by default
+	 */
+	static void configure(Socket socket, ConnectorConfig connectorConfig) throws SocketException {
+		if(!connectorConfig.isTcpNoDelay())
+			socket.setTcpNoDelay(false);
+	}
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.AsyncContinuation;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HandlerContainer;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.HandlerCollection;
+
+/**
+ * The handler routing the requests to the handlers of the web applications by the longest context
+ * path that prefixes the request path, a replacement of the context handler collection of Jetty
+ * for the servers hosting many contexts.
+ * <p>
+ * The context paths are held in a trie of path segments built whenever the handlers change. A request
+ * is routed by walking the segments of its path in the trie, the segments are hashed and compared in
+ * place so that no object is allocated per request. Should the handler of the longest matching context
+ * path not handle the request, as when its virtual hosts do not match, the handlers of the shorter
+ * matching context paths are tried in turn
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ContextRouter extends HandlerCollection {
+
+	private volatile Node root = new Node();
+
+	public ContextRouter() {
+		super(true);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.HandlerCollection#setHandlers(org.eclipse.jetty.server.Handler[])
+	 */
+	@Override
+	public void setHandlers(Handler[] handlers) {
+		super.setHandlers(handlers);
+		root = buildTrie(handlers);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.HandlerCollection#handle(java.lang.String, org.eclipse.jetty.server.Request, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+	 */
+	@Override
+	public void handle(String target, Request baseRequest, HttpServletRequest request,
+			HttpServletResponse response) throws IOException, ServletException {
+		if(!isStarted())
+			return;
+		AsyncContinuation async = baseRequest.getAsyncContinuation();
+		if(async.isAsync()) {
+			//A resumed request goes back to the context it was suspended in
+			ContextHandler context = async.getContextHandler();
+			if(context != null) {
+				context.handle(target, baseRequest, request, response);
+				return;
+			}
+		}
+		if(target == null || !target.startsWith("/")) {
+			Handler[] handlers = getHandlers();
+			for(int i = 0; handlers != null && i < handlers.length && !baseRequest.isHandled(); i++) {
+				handlers[i].handle(target, baseRequest, request, response);
+			}
+			return;
+		}
+		for(Node node = root.match(target); node != null && !baseRequest.isHandled(); node = node.ancestorWithHandlers) {
+			Handler[] handlers = node.handlers;
+			for(int i = 0; i < handlers.length && !baseRequest.isHandled(); i++) {
+				handlers[i].handle(target, baseRequest, request, response);
+			}
+		}
+	}
+
+	private static Node buildTrie(Handler[] handlers) {
+		Map<String, List<Handler>> branchesByPath = new LinkedHashMap<String, List<Handler>>();
+		for(int i = 0; handlers != null && i < handlers.length; i++) {
+			Handler branch = handlers[i];
+			Handler[] contexts;
+			if(branch instanceof ContextHandler)
+				contexts = new Handler[]{branch};
+			else if(branch instanceof HandlerContainer)
+				contexts = ((HandlerContainer)branch).getChildHandlersByClass(ContextHandler.class);
+			else
+				continue;
+			for(Handler context:contexts) {
+				String contextPath = ((ContextHandler)context).getContextPath();
+				List<Handler> branches = branchesByPath.get(contextPath);
+				if(branches == null) {
+					branches = new ArrayList<Handler>();
+					branchesByPath.put(contextPath, branches);
+				}
+				if(!branches.contains(branch))
+					branches.add(branch);
+			}
+		}
+		Node root = new Node();
+		for(Map.Entry<String, List<Handler>> entry:branchesByPath.entrySet()) {
+			Node node = root;
+			for(String segment:entry.getKey().split("/")) {
+				if(segment.length() > 0)
+					node = node.getOrAddChild(segment);
+			}
+			node.setHandlers(entry.getValue());
+		}
+		root.link(null);
+		return root;
+	}
+
+	/**
+	 * A node of the trie, one per path segment. The children are held in an open addressing
+	 * table keyed by the hash of their segment
+	 */
+	private static final class Node {
+
+		private static final Handler[] NO_HANDLERS = new Handler[0];
+
+		private String[] segments = new String[4];
+		private int[] hashes = new int[4];
+		private Node[] children = new Node[4];
+		private int size;
+
+		private Handler[] handlers = NO_HANDLERS;
+
+		/**
+		 * The nearest node between the root and this one having handlers, tried when the
+		 * handlers of this node do not handle the request
+		 */
+		private Node ancestorWithHandlers;
+
+		private Node getOrAddChild(String segment) {
+			int hash = hash(segment, 0, segment.length());
+			int mask = segments.length - 1;
+			for(int i = hash & mask; segments[i] != null; i = (i + 1) & mask) {
+				if(hashes[i] == hash && segments[i].equals(segment))
+					return children[i];
+			}
+			if((size + 1) * 2 > segments.length)
+				resize();
+			Node child = new Node();
+			put(segment, hash, child);
+			return child;
+		}
+
+		private void put(String segment, int hash, Node child) {
+			int mask = segments.length - 1;
+			int i = hash & mask;
+			while(segments[i] != null) {
+				i = (i + 1) & mask;
+			}
+			segments[i] = segment;
+			hashes[i] = hash;
+			children[i] = child;
+			size++;
+		}
+
+		private void resize() {
+			String[] oldSegments = segments;
+			int[] oldHashes = hashes;
+			Node[] oldChildren = children;
+			segments = new String[oldSegments.length * 2];
+			hashes = new int[oldSegments.length * 2];
+			children = new Node[oldSegments.length * 2];
+			size = 0;
+			for(int i = 0; i < oldSegments.length; i++) {
+				if(oldSegments[i] != null)
+					put(oldSegments[i], oldHashes[i], oldChildren[i]);
+			}
+		}
+
+		private void setHandlers(List<Handler> branches) {
+			handlers = branches.toArray(new Handler[branches.size()]);
+		}
+
+		private void link(Node ancestor) {
+			ancestorWithHandlers = ancestor;
+			Node nearest = handlers.length > 0 ? this : ancestor;
+			for(int i = 0; i < children.length; i++) {
+				if(children[i] != null)
+					children[i].link(nearest);
+			}
+		}
+
+		/**
+		 * Gets the deepest node having handlers whose path prefixes the given path by whole segments
+		 */
+		private Node match(String path) {
+			Node node = this;
+			Node matched = handlers.length > 0 ? this : null;
+			int length = path.length();
+			int start = 1;
+			while(start < length) {
+				int end = path.indexOf('/', start);
+				if(end < 0)
+					end = length;
+				if(end > start) {
+					node = node.child(path, start, end);
+					if(node == null)
+						break;
+					if(node.handlers.length > 0)
+						matched = node;
+				}
+				start = end + 1;
+			}
+			return matched;
+		}
+
+		private Node child(String path, int start, int end) {
+			if(size == 0)
+				return null;
+			int length = end - start;
+			int hash = hash(path, start, end);
+			int mask = segments.length - 1;
+			for(int i = hash & mask; segments[i] != null; i = (i + 1) & mask) {
+				String segment = segments[i];
+				if(hashes[i] == hash && segment.length() == length && path.regionMatches(start, segment, 0, length))
+					return children[i];
+			}
+			return null;
+		}
+
+		private static int hash(String value, int start, int end) {
+			int hash = 0;
+			for(int i = start; i < end; i++) {
+				hash = 31 * hash + value.charAt(i);
+			}
+			return hash ^ (hash >>> 16);
+		}
+	}
+}
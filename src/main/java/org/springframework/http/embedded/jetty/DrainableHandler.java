@@ -0,0 +1,193 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.continuation.Continuation;
+import org.eclipse.jetty.continuation.ContinuationListener;
+import org.eclipse.jetty.http.HttpHeaderValues;
+import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.server.AsyncContinuation;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.springframework.http.embedded.LatencyHistogram;
+import org.springframework.http.embedded.RequestStatistics;
+
+/**
+ * The outermost handler of a deployed web application that counts the requests being handled by
+ * the application so that they can be let to complete before the application is undeployed. Once
+ * draining, the new requests to the application are answered with a 503 status and a
+ * <em>Connection: close</em> header.
+ * <p>
+ * A request is counted only until the thread dispatched to the application returns, the suspended
+ * requests are not waited for.
+ * <p>
+ * The handler also keeps the statistics of the requests to the application, the number of responses
+ * by status class and the histogram of the latencies. The latency of a suspended request is recorded
+ * when it completes. Recording takes a few atomic increments, no lock is taken on the way of a request
+ *
+ * @author Amol Nayak
+ *
+ */
+public class DrainableHandler extends HandlerWrapper {
+
+	private static final long POLL_INTERVAL = 10;
+
+	private final AtomicInteger activeRequests = new AtomicInteger();
+
+	private volatile boolean draining;
+
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	private final AtomicLongArray responses = new AtomicLongArray(5);
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.HandlerWrapper#handle(java.lang.String, org.eclipse.jetty.server.Request, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+	 */
+	@Override
+	public void handle(String target, Request baseRequest, HttpServletRequest request,
+			HttpServletResponse response) throws IOException, ServletException {
+		AsyncContinuation continuation = baseRequest.getAsyncContinuation();
+		if(!continuation.isInitial()) {
+			//A resumed request, recorded once it completes
+			super.handle(target, baseRequest, request, response);
+			return;
+		}
+		final long start = System.nanoTime();
+		//Counted before checking the flag, a drain never misses a request it let through
+		activeRequests.incrementAndGet();
+		try {
+			if(draining) {
+				baseRequest.setHandled(true);
+				response.setHeader(HttpHeaders.CONNECTION, HttpHeaderValues.CLOSE);
+				response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+				return;
+			}
+			super.handle(target, baseRequest, request, response);
+		} finally {
+			activeRequests.decrementAndGet();
+			final Response baseResponse = baseRequest.getResponse();
+			if(continuation.isSuspended()) {
+				continuation.addContinuationListener(new ContinuationListener() {
+					@Override
+					public void onComplete(Continuation continuation) {
+						record(baseResponse.getStatus(), start);
+					}
+
+					@Override
+					public void onTimeout(Continuation continuation) {
+						//Recorded when completed after the timeout
+					}
+				});
+			} else {
+				//Not handled by the application, answered with a 404 by the server unless another takes it
+				record(baseRequest.isHandled() ? baseResponse.getStatus() : HttpServletResponse.SC_NOT_FOUND, start);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.HandlerWrapper#doStart()
+	 */
+	@Override
+	protected void doStart() throws Exception {
+		//Accepts the requests again when the server is restarted after a graceful stop
+		draining = false;
+		super.doStart();
+	}
+
+	private void record(int status, long start) {
+		latencies.record((System.nanoTime() - start) / 1000);
+		int statusClass = status / 100 - 1;
+		responses.incrementAndGet(statusClass < 0 ? 0 : statusClass > 4 ? 4 : statusClass);
+	}
+
+	/**
+	 * Stops accepting new requests and waits up to the given time in milliseconds for the ones
+	 * being handled to complete
+	 * @return the number of requests still being handled when the time is up, 0 if all completed
+	 */
+	public int drain(long timeout) throws InterruptedException {
+		startDraining();
+		long deadline = System.currentTimeMillis() + timeout;
+		while(activeRequests.get() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(POLL_INTERVAL);
+		}
+		return activeRequests.get();
+	}
+
+	/**
+	 * Stops accepting new requests without waiting for the ones being handled, the handlers of
+	 * several applications are all drained at once this way before waiting for each of them
+	 * @return the number of requests being handled
+	 */
+	public int startDraining() {
+		draining = true;
+		return activeRequests.get();
+	}
+
+	/**
+	 * Gets the number of requests being handled by the application currently
+	 * @return
+	 */
+	public int getActiveRequests() {
+		return activeRequests.get();
+	}
+
+	/**
+	 * Gets the histogram of the latencies of the requests handled by the application
+	 * @return
+	 */
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	/**
+	 * Gets the number of responses of the application by status class, from 1xx to 5xx
+	 * @return
+	 */
+	public long[] getResponses() {
+		long[] counts = new long[responses.length()];
+		for(int i = 0; i < counts.length; i++) {
+			counts[i] = responses.get(i);
+		}
+		return counts;
+	}
+
+	/**
+	 * Takes a snapshot of the statistics of the requests handled by the application
+	 * @return
+	 */
+	public RequestStatistics getStatistics() {
+		return new RequestStatistics(activeRequests.get(), getResponses(), latencies);
+	}
+
+	/**
+	 * Indicates if the application is no longer accepting new requests
+	 * @return
+	 */
+	public boolean isDraining() {
+		return draining;
+	}
+}
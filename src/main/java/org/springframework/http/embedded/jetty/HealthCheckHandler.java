@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.springframework.http.embedded.EmbeddedServer;
+import org.springframework.http.embedded.ServerRunStatus;
+
+/**
+ * The handler ahead of the routing of the requests to the web applications that answers the probes
+ * of the load balancers. A request to the health check path is answered with a 200 status and
+ * <em>UP</em> when the server is running and all its web applications accept the requests, with a 503
+ * status and the status of the server, or <em>NOT_READY</em> if a web application does not, otherwise.
+ * A request to the health check path followed by the context path of a web application is answered
+ * the same way for that application alone.
+ * <p>
+ * The probes are answered from preencoded bytes, nothing is allocated per request on top of what the
+ * connection does for any request. The bytes are written one at a time, the connection copies them to
+ * its buffer as is where writing an array wraps it first, and the content length is worked out by the
+ * connection from the bytes written. The other requests are passed on to the web applications
+ *
+ * @author Amol Nayak
+ *
+ */
+public class HealthCheckHandler extends HandlerWrapper {
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	private static final byte[] UP = encode("UP");
+
+	private static final byte[] NOT_READY = encode("NOT_READY");
+
+	private static final byte[] DOWN = encode("DOWN");
+
+	private final Map<ServerRunStatus, byte[]> statuses = new EnumMap<ServerRunStatus, byte[]>(ServerRunStatus.class);
+
+	private final EmbeddedServer embeddedServer;
+
+	private final String path;
+
+	private volatile DrainableHandler[] contexts = new DrainableHandler[0];
+
+	private volatile Map<String, DrainableHandler> contextsByPath = new HashMap<String, DrainableHandler>();
+
+	/**
+	 * @param embeddedServer	the server whose status is reported
+	 * @param path				the path the probes are sent to
+	 */
+	public HealthCheckHandler(EmbeddedServer embeddedServer, String path) {
+		this.embeddedServer = embeddedServer;
+		this.path = path;
+		for(ServerRunStatus status:ServerRunStatus.values()) {
+			statuses.put(status, encode(status.name()));
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.HandlerWrapper#handle(java.lang.String, org.eclipse.jetty.server.Request, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+	 */
+	@Override
+	public void handle(String target, Request baseRequest, HttpServletRequest request,
+			HttpServletResponse response) throws IOException, ServletException {
+		if(!target.startsWith(path)) {
+			super.handle(target, baseRequest, request, response);
+			return;
+		}
+		ServerRunStatus status = embeddedServer.getStatus();
+		boolean running = ServerRunStatus.RUNNING.equals(status);
+		if(target.length() == path.length()) {
+			if(!running) {
+				respond(baseRequest, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, statuses.get(status));
+				return;
+			}
+			for(DrainableHandler context:contexts) {
+				if(!isReady(context)) {
+					respond(baseRequest, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, NOT_READY);
+					return;
+				}
+			}
+			respond(baseRequest, response, HttpServletResponse.SC_OK, UP);
+			return;
+		}
+		DrainableHandler context = contextsByPath.get(target);
+		if(context == null) {
+			//Not a probe, the path may belong to a web application
+			super.handle(target, baseRequest, request, response);
+			return;
+		}
+		if(running && isReady(context))
+			respond(baseRequest, response, HttpServletResponse.SC_OK, UP);
+		else
+			respond(baseRequest, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, DOWN);
+	}
+
+	private boolean isReady(DrainableHandler context) {
+		return context.isStarted() && !context.isDraining();
+	}
+
+	private void respond(Request baseRequest, HttpServletResponse response, int status, byte[] body) 
+			throws IOException {
+		baseRequest.setHandled(true);
+		response.setStatus(status);
+		ServletOutputStream out = response.getOutputStream();
+		for(int i = 0; i < body.length; i++) {
+			out.write(body[i]);
+		}
+	}
+
+	/**
+	 * Sets the web applications whose readiness is reported, by their context paths. Invoked
+	 * whenever a web application is deployed or undeployed
+	 */
+	public void setContexts(Map<String, DrainableHandler> handlers) {
+		Map<String, DrainableHandler> byPath = new HashMap<String, DrainableHandler>();
+		for(Map.Entry<String, DrainableHandler> entry:handlers.entrySet()) {
+			byPath.put(path + entry.getKey(), entry.getValue());
+		}
+		contextsByPath = byPath;
+		contexts = handlers.values().toArray(new DrainableHandler[handlers.size()]);
+	}
+
+	/**
+	 * Gets the path the probes are sent to
+	 * @return
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	private static byte[] encode(String text) {
+		return (text + "\n").getBytes(ASCII);
+	}
+}
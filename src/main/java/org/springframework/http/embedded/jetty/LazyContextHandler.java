@@ -0,0 +1,166 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandlerContainer;
+import org.eclipse.jetty.server.handler.ContextHandler;
+
+/**
+ * The handler of a web application that is built and started on the first request to its context
+ * path. Until then only an empty {@link ContextHandler} with the context path of the application is
+ * held, which is what the context handler collection of the server maps the requests with.
+ * <p>
+ * The concurrent first requests wait for the application to be built and started once. Should that
+ * fail, the requests are answered with a 503 status and the next request attempts it again. The
+ * application is discarded when this handler is stopped and built again on the first request after
+ * the server is restarted
+ *
+ * @author Amol Nayak
+ *
+ */
+public class LazyContextHandler extends AbstractHandlerContainer {
+
+	private static final Log logger = LogFactory.getLog(LazyContextHandler.class);
+
+	private final ContextHandler placeholder;
+
+	private final Callable<Handler> handlerFactory;
+
+	private volatile Handler handler;
+
+	/**
+	 * Creates the handler of the application deployed on the given context path, the factory
+	 * builds the handler of the application on the first request
+	 */
+	public LazyContextHandler(String contextPath, Callable<Handler> handlerFactory) {
+		this.placeholder = new ContextHandler(contextPath);
+		this.handlerFactory = handlerFactory;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.Handler#handle(java.lang.String, org.eclipse.jetty.server.Request, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+	 */
+	@Override
+	public void handle(String target, Request baseRequest, HttpServletRequest request,
+			HttpServletResponse response) throws IOException, ServletException {
+		Handler current = handler;
+		if(current == null) {
+			current = activate();
+			if(current == null) {
+				baseRequest.setHandled(true);
+				response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+				return;
+			}
+		}
+		current.handle(target, baseRequest, request, response);
+	}
+
+	/**
+	 * Builds and starts the handler of the application unless another request already did,
+	 * null if the application could not be started
+	 */
+	private synchronized Handler activate() {
+		if(handler != null)
+			return handler;
+		if(!isStarted())
+			return null;
+		long start = System.currentTimeMillis();
+		Handler current = null;
+		try {
+			current = handlerFactory.call();
+			current.setServer(getServer());
+			current.start();
+		} catch (Exception e) {
+			logger.error("Unable to start the web application on the context path \""
+					+ placeholder.getContextPath() + "\" on its first request", e);
+			stopQuietly(current);
+			return null;
+		}
+		if(logger.isInfoEnabled())
+			logger.info("Started the web application on the context path \"" + placeholder.getContextPath()
+					+ "\" on its first request in " + (System.currentTimeMillis() - start) + " ms");
+		handler = current;
+		return current;
+	}
+
+	/**
+	 * Indicates if the application was built and started by a request
+	 * @return
+	 */
+	public boolean isActivated() {
+		return handler != null;
+	}
+
+	/**
+	 * Gets the context path the application is deployed on
+	 * @return
+	 */
+	public String getContextPath() {
+		return placeholder.getContextPath();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.HandlerContainer#getHandlers()
+	 */
+	@Override
+	public Handler[] getHandlers() {
+		Handler current = handler;
+		return new Handler[]{current == null ? placeholder : current};
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.AbstractHandlerContainer#expandChildren(java.lang.Object, java.lang.Class)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected Object expandChildren(Object list, Class<?> byClass) {
+		return expandHandler(getHandlers()[0], list, (Class<Handler>)byClass);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.handler.AbstractHandler#doStop()
+	 */
+	@Override
+	protected synchronized void doStop() throws Exception {
+		Handler current = handler;
+		handler = null;
+		if(current != null)
+			current.stop();
+		super.doStop();
+	}
+
+	private void stopQuietly(Handler current) {
+		if(current == null)
+			return;
+		try {
+			current.stop();
+		} catch (Exception e) {
+			logger.warn("Unable to stop the web application on the context path \""
+					+ placeholder.getContextPath() + "\"", e);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * The memory mappings of the whole files served by the {@link StaticContentServlet}, keyed on
+ * their absolute path. At most the given number of files are kept mapped, the least recently
+ * used ones are dropped to make room for the new ones. A file is mapped again when its last
+ * modified date or its length changes, and the mappings of the files changed or deleted since
+ * are dropped whenever a file is mapped.
+ * <p>
+ * A dropped mapping is unmapped once garbage collected, the responses still writing it are
+ * not affected
+ *
+ * @author Amol Nayak
+ *
+ */
+class MappedFileCache {
+
+	private final int maxFiles;
+
+	private final LinkedHashMap<String, MappedFile> entries =
+			new LinkedHashMap<String, MappedFile>(16, 0.75f, true);	//guarded by itself
+
+	MappedFileCache(int maxFiles) {
+		this.maxFiles = maxFiles;
+	}
+
+	/**
+	 * Gets the mapping of the whole given file, mapping it again if it was modified since
+	 * @return
+	 */
+	ByteBuffer getMapping(File file) throws IOException {
+		String path = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		synchronized (entries) {
+			MappedFile mapped = entries.get(path);
+			if(mapped != null && mapped.isCurrent(lastModified, length))
+				return mapped.buffer;
+		}
+		MappedFile mapped;
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			//The mapping stays valid after the channel is closed
+			FileChannel channel = randomAccessFile.getChannel();
+			mapped = new MappedFile(file, lastModified, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			randomAccessFile.close();
+		}
+		synchronized (entries) {
+			//A mapping created concurrently for the same file is replaced
+			entries.put(path, mapped);
+			Iterator<MappedFile> iterator = entries.values().iterator();
+			while(iterator.hasNext()) {
+				MappedFile candidate = iterator.next();
+				if(entries.size() > maxFiles && candidate != mapped)
+					iterator.remove();
+				else if(!candidate.isCurrent(candidate.file.lastModified(), candidate.file.length()))
+					//Changed or deleted, the file is mapped again if still requested
+					iterator.remove();
+			}
+		}
+		return mapped.buffer;
+	}
+
+	/**
+	 * Checks if the given file is mapped, without changing the order of the mappings
+	 * @return
+	 */
+	boolean isMapped(File file) {
+		synchronized (entries) {
+			return entries.containsKey(file.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Gets the number of files mapped
+	 * @return
+	 */
+	int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * The mapping of a whole file along with the last modified date of the file when mapped
+	 */
+	private static class MappedFile {
+
+		private final File file;
+		private final long lastModified;
+		private final ByteBuffer buffer;
+
+		MappedFile(File file, long lastModified, ByteBuffer buffer) {
+			this.file = file;
+			this.lastModified = lastModified;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Checks if the mapping is of the file with the given last modified date and length,
+		 * a deleted file has neither
+		 * @return
+		 */
+		boolean isCurrent(long lastModified, long length) {
+			return lastModified != 0 && this.lastModified == lastModified && buffer.capacity() == length;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.io.Buffer;
+import org.eclipse.jetty.io.ByteArrayBuffer;
+import org.eclipse.jetty.io.nio.DirectNIOBuffer;
+import org.eclipse.jetty.util.resource.Resource;
+
+/**
+ * The content of a region of a file that is written to the connection straight from a memory
+ * mapped buffer. The pages of the file are copied by the kernel from the page cache to the socket,
+ * the content is never copied through the heap.
+ * <p>
+ * The content is a slice of the mapping of the whole file, the mapping is shared by all the
+ * requests for the file and is owned by the {@link StaticContentServlet}, releasing the content
+ * thus leaves the mapping as is
+ *
+ * @author Amol Nayak
+ *
+ */
+final class MappedFileContent implements HttpContent {
+
+	private final Resource resource;
+	private final Buffer contentType;
+	private final Buffer lastModified;
+	private final ByteBuffer mappedBuffer;
+
+	MappedFileContent(Resource resource, ByteBuffer mapping, String contentType, long offset, long length) {
+		this.resource = resource;
+		this.contentType = contentType == null ? null : new ByteArrayBuffer(contentType);
+		long modified = resource.lastModified();
+		this.lastModified = modified > 0 ? new ByteArrayBuffer(HttpFields.formatDate(modified)) : null;
+		ByteBuffer region = mapping.duplicate();
+		region.position((int)offset);
+		region.limit((int)(offset + length));
+		this.mappedBuffer = region.slice();
+	}
+
+	@Override
+	public Buffer getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public Buffer getLastModified() {
+		return lastModified;
+	}
+
+	@Override
+	public Buffer getIndirectBuffer() {
+		return null;
+	}
+
+	@Override
+	public Buffer getDirectBuffer() {
+		return new DirectNIOBuffer(mappedBuffer.duplicate(), true);
+	}
+
+	@Override
+	public Resource getResource() {
+		return resource;
+	}
+
+	@Override
+	public long getContentLength() {
+		return mappedBuffer.capacity();
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		final ByteBuffer buffer = mappedBuffer.duplicate();
+		return new InputStream() {
+			@Override
+			public int read() throws IOException {
+				return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+			}
+
+			@Override
+			public int read(byte[] bytes, int offset, int length) throws IOException {
+				if(!buffer.hasRemaining())
+					return -1;
+				int read = Math.min(length, buffer.remaining());
+				buffer.get(bytes, offset, read);
+				return read;
+			}
+		};
+	}
+
+	@Override
+	public void release() {
+		//The mapping is shared with the other requests for the file, it is kept by the servlet
+	}
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.embedded.ResponseCacheConfig;
+
+/**
+ * The cache of the responses of a servlet used by the {@link ResponseCachingServlet}. The responses
+ * are evicted in the least recently used order once the cached bytes exceed the maximum size, an
+ * expired response is dropped when it is next looked up.
+ * <p>
+ * A response is cached under the URL requested, its scheme and host included, along with the values
+ * of the request headers named by its <em>Vary</em> header. The names are cached under the URL itself from its last response, as
+ * an entry counted in the size of the cache and expired and evicted like the responses. The lookup
+ * of a URL whose names are not cached uses the URL alone.
+ * <p>
+ * Only one request computes the response of a key at a time, the others requesting it meanwhile wait
+ * for it up to the coalescing timeout and are served from the cache once it is cached
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ResponseCache {
+
+	private final ResponseCacheConfig cacheConfig;
+
+	private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true);
+
+	private long cachedBytes;
+
+	private final ConcurrentMap<String, CountDownLatch> computing = new ConcurrentHashMap<String, CountDownLatch>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong coalesced = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	public ResponseCache(ResponseCacheConfig cacheConfig) {
+		this.cacheConfig = cacheConfig;
+	}
+
+	/**
+	 * Gets the key the response to the given request is cached under
+	 * @return
+	 */
+	String getKey(HttpServletRequest request) {
+		String url = getUrl(request);
+		String[] names = null;
+		synchronized (entries) {
+			CachedResponse entry = entries.get(url);
+			if(entry != null && entry.getVaryNames() != null) {
+				if(entry.isExpired(System.currentTimeMillis())) {
+					entries.remove(url);
+					cachedBytes -= entry.getSize();
+				} else {
+					names = entry.getVaryNames();
+				}
+			}
+		}
+		return names == null ? url : getKey(url, names, request);
+	}
+
+	private String getKey(String url, String[] names, HttpServletRequest request) {
+		StringBuilder key = new StringBuilder(url);
+		for(String name:names) {
+			key.append('\n').append(name).append(':');
+			Enumeration<?> values = request.getHeaders(name);
+			while(values != null && values.hasMoreElements()) {
+				key.append(values.nextElement()).append(',');
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Gets the URL requested, the server name being the host requested if any as for the virtual hosts
+	 * @return
+	 */
+	private static String getUrl(HttpServletRequest request) {
+		StringBuilder url = new StringBuilder(request.getScheme()).append("://")
+				.append(request.getServerName().toLowerCase()).append(':').append(request.getServerPort())
+				.append(request.getRequestURI());
+		String query = request.getQueryString();
+		if(query != null)
+			url.append('?').append(query);
+		return url.toString();
+	}
+
+	/**
+	 * Gets the response cached under the given key if it is not expired
+	 * @return
+	 */
+	CachedResponse get(String key) {
+		synchronized (entries) {
+			CachedResponse response = entries.get(key);
+			if(response == null || response.getVaryNames() != null)
+				return null;
+			if(response.isExpired(System.currentTimeMillis())) {
+				entries.remove(key);
+				cachedBytes -= response.getSize();
+				return null;
+			}
+			hits.incrementAndGet();
+			return response;
+		}
+	}
+
+	/**
+	 * Caches the given response to the given request whose <em>Vary</em> header named the given
+	 * request headers, along with the names under the URL if there are any
+	 */
+	void put(HttpServletRequest request, List<String> varyNames, CachedResponse response) {
+		String url = getUrl(request);
+		if(varyNames.isEmpty()) {
+			put(url, response);
+			return;
+		}
+		String[] names = varyNames.toArray(new String[varyNames.size()]);
+		synchronized (entries) {
+			put(url, new CachedResponse(names, getTimeToLive()));
+			put(getKey(url, names, request), response);
+		}
+	}
+
+	/**
+	 * Caches the given entry under the given key, evicting the least recently used entries
+	 * to stay within the maximum size
+	 */
+	private void put(String key, CachedResponse response) {
+		synchronized (entries) {
+			CachedResponse previous = entries.put(key, response);
+			if(previous != null)
+				cachedBytes -= previous.getSize();
+			cachedBytes += response.getSize();
+			Iterator<CachedResponse> eldest = entries.values().iterator();
+			while(cachedBytes > cacheConfig.getMaxSize() && eldest.hasNext()) {
+				cachedBytes -= eldest.next().getSize();
+				eldest.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Claims the computation of the response under the given key
+	 * @return null if claimed, the latch released once the request that claimed it is done otherwise
+	 */
+	CountDownLatch claim(String key, CountDownLatch done) {
+		CountDownLatch other = computing.putIfAbsent(key, done);
+		if(other == null)
+			misses.incrementAndGet();
+		else
+			coalesced.incrementAndGet();
+		return other;
+	}
+
+	/**
+	 * Releases the computation of the response under the given key, claimed with the given latch
+	 */
+	void release(String key, CountDownLatch done) {
+		computing.remove(key, done);
+		done.countDown();
+	}
+
+	/**
+	 * Gets the maximum size of a cached response
+	 * @return
+	 */
+	long getMaxSize() {
+		return cacheConfig.getMaxSize();
+	}
+
+	/**
+	 * Gets the time in milliseconds a request waits for the response being computed by another one
+	 * @return
+	 */
+	long getCoalescingTimeout() {
+		return cacheConfig.getCoalescingTimeout();
+	}
+
+	/**
+	 * Gets the time in milliseconds a response is served from the cache after it was cached
+	 * @return
+	 */
+	long getTimeToLive() {
+		return cacheConfig.getTtl() * 1000L;
+	}
+
+	/**
+	 * Drops all the cached responses
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			cachedBytes = 0;
+		}
+	}
+
+	/**
+	 * Gets the number of entries cached currently, the names of the <em>Vary</em> headers of the URLs
+	 * and the expired entries not looked up since included
+	 * @return
+	 */
+	public int getCachedResponses() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Gets the number of bytes of the bodies of all the responses cached currently, along with the
+	 * number of characters of the names of the <em>Vary</em> headers cached for their URLs
+	 * @return
+	 */
+	public long getCachedBytes() {
+		synchronized (entries) {
+			return cachedBytes;
+		}
+	}
+
+	/**
+	 * Gets the number of requests served from the cache, including the ones that waited for the
+	 * response to be computed by another request
+	 * @return
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of requests that called the servlet to compute a response not cached
+	 * @return
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Gets the number of requests that waited for the response being computed by another request
+	 * rather than calling the servlet themselves
+	 * @return
+	 */
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	/**
+	 * Gets the number of responses evicted to keep the cache within its maximum size
+	 * @return
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ResponseCache[responses=" + getCachedResponses() + ", bytes=" + getCachedBytes() + ", hits="
+			+ getHits() + ", misses=" + getMisses() + ", coalesced=" + getCoalesced() + ", evictions="
+			+ getEvictions() + "]";
+	}
+
+	/**
+	 * A response held in memory, its headers in the order they were set. The entry cached under a
+	 * URL whose responses vary holds the names of the request headers they vary on instead
+	 */
+	static final class CachedResponse {
+
+		private final List<String[]> headers;
+		private final String contentType;
+		private final byte[] body;
+		private final String[] varyNames;
+		private final long cachedAt;
+		private final long expiresAt;
+
+		CachedResponse(List<String[]> headers, String contentType, byte[] body, long timeToLive) {
+			this(headers, contentType, body, null, timeToLive);
+		}
+
+		private CachedResponse(String[] varyNames, long timeToLive) {
+			this(null, null, null, varyNames, timeToLive);
+		}
+
+		private CachedResponse(List<String[]> headers, String contentType, byte[] body, String[] varyNames, 
+				long timeToLive) {
+			this.headers = headers;
+			this.contentType = contentType;
+			this.body = body;
+			this.varyNames = varyNames;
+			this.cachedAt = System.currentTimeMillis();
+			this.expiresAt = cachedAt + timeToLive;
+		}
+
+		private boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+
+		long getSize() {
+			if(body != null)
+				return body.length;
+			long size = 0;
+			for(String name:varyNames) {
+				size += name.length();
+			}
+			return size;
+		}
+
+		/**
+		 * Gets the names of the request headers the responses of the URL vary on, null for a response
+		 * @return
+		 */
+		private String[] getVaryNames() {
+			return varyNames;
+		}
+
+		List<String[]> getHeaders() {
+			return headers;
+		}
+
+		/**
+		 * Gets the last value of the given header, null if the response does not have it
+		 * @return
+		 */
+		String getHeader(String name) {
+			String value = null;
+			for(String[] header:headers) {
+				if(header[0].equalsIgnoreCase(name))
+					value = header[1];
+			}
+			return value;
+		}
+
+		String getContentType() {
+			return contentType;
+		}
+
+		byte[] getBody() {
+			return body;
+		}
+
+		/**
+		 * Gets the time in seconds since the response was cached, the <em>Age</em> of the response
+		 * @return
+		 */
+		long getAge() {
+			return (System.currentTimeMillis() - cachedAt) / 1000;
+		}
+	}
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.eclipse.jetty.continuation.ContinuationSupport;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.http.HttpMethods;
+import org.springframework.util.StringUtils;
+
+/**
+ * The servlet put in place of a servlet of a servlet mapping whose responses are cached. A GET request
+ * whose response is cached is answered from the {@link ResponseCache} without calling the servlet,
+ * the response to the others is captured as the servlet writes it through to the client and cached
+ * once complete if it is cacheable.
+ * <p>
+ * A response is cacheable if its status is 200, it does not set a cookie, its <em>Cache-Control</em>
+ * header does not mark it private, no-cache or no-store, its <em>Vary</em> header is not * and its
+ * body fits in the cache. A request waiting for the response computed by another one calls the servlet
+ * itself once the coalescing timeout is over. The requests carrying an <em>Authorization</em> header
+ * always go to the servlet, as do the suspended ones.
+ * <p>
+ * A request with a <em>Cache-Control</em> or a <em>Pragma</em> header of no-cache goes to the servlet
+ * and its response replaces the cached one. A request served from the cache whose <em>If-None-Match</em>
+ * header matches the <em>ETag</em> of the cached response, or failing that whose <em>If-Modified-Since</em>
+ * date is not before its <em>Last-Modified</em> date, is answered with a 304 status
+ *
+ * @author Amol Nayak
+ *
+ */
+public class ResponseCachingServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private final HttpServlet servlet;
+
+	private final ResponseCache cache;
+
+	public ResponseCachingServlet(HttpServlet servlet, ResponseCache cache) {
+		this.servlet = servlet;
+		this.cache = cache;
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.servlet.GenericServlet#init(javax.servlet.ServletConfig)
+	 */
+	@Override
+	public void init(ServletConfig config) throws ServletException {
+		super.init(config);
+		servlet.init(config);
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.servlet.GenericServlet#destroy()
+	 */
+	@Override
+	public void destroy() {
+		servlet.destroy();
+		cache.clear();
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.servlet.GenericServlet#getServletInfo()
+	 */
+	@Override
+	public String getServletInfo() {
+		return servlet.getServletInfo();
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.servlet.http.HttpServlet#service(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+	 */
+	@Override
+	protected void service(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		if(!HttpMethods.GET.equals(request.getMethod()) || request.getHeader(HttpHeaders.AUTHORIZATION) != null) {
+			servlet.service(request, response);
+			return;
+		}
+		if(isNoCache(request)) {
+			//Not coalesced either, the client asks for a response of the servlet
+			serviceAndCache(request, response);
+			return;
+		}
+		String key = cache.getKey(request);
+		ResponseCache.CachedResponse cached = cache.get(key);
+		if(cached != null) {
+			write(cached, request, response);
+			return;
+		}
+		CountDownLatch done = new CountDownLatch(1);
+		CountDownLatch computing = cache.claim(key, done);
+		if(computing != null) {
+			//Computed by another request, served from the cache once it is done if it was cacheable.
+			//The wait is bounded so that a hung servlet does not hold every request for the key
+			try {
+				if(computing.await(cache.getCoalescingTimeout(), TimeUnit.MILLISECONDS))
+					cached = cache.get(cache.getKey(request));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if(cached != null)
+				write(cached, request, response);
+			else
+				servlet.service(request, response);
+			return;
+		}
+		try {
+			serviceAndCache(request, response);
+		} finally {
+			cache.release(key, done);
+		}
+	}
+
+	/**
+	 * Calls the servlet and caches its response if it is cacheable
+	 */
+	private void serviceAndCache(HttpServletRequest request, HttpServletResponse response) 
+			throws ServletException, IOException {
+		CapturingResponse capturingResponse = new CapturingResponse(response, cache.getMaxSize());
+		servlet.service(request, capturingResponse);
+		capturingResponse.finish();
+		if(capturingResponse.isCacheable() && !ContinuationSupport.getContinuation(request).isSuspended()) {
+			cache.put(request, capturingResponse.getVary(), capturingResponse.toCachedResponse(cache.getTimeToLive()));
+		}
+	}
+
+	/**
+	 * Checks if the given request asks for a response of the servlet rather than of a cache
+	 * @return
+	 */
+	private boolean isNoCache(HttpServletRequest request) {
+		String cacheControl = request.getHeader(HttpHeaders.CACHE_CONTROL);
+		if(cacheControl != null)
+			return cacheControl.toLowerCase().contains("no-cache");
+		//Sent by the HTTP/1.0 clients, ignored when a Cache-Control header is present
+		String pragma = request.getHeader(HttpHeaders.PRAGMA);
+		return pragma != null && pragma.toLowerCase().contains("no-cache");
+	}
+
+	/**
+	 * Checks if the validators of the given cached response match the conditional headers of the
+	 * given request, the <em>If-Modified-Since</em> header is ignored if an <em>If-None-Match</em>
+	 * header is present
+	 * @return
+	 */
+	private boolean isNotModified(ResponseCache.CachedResponse cached, HttpServletRequest request) {
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if(ifNoneMatch != null) {
+			String eTag = cached.getHeader(HttpHeaders.ETAG);
+			if(eTag == null)
+				return false;
+			for(String tag:ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				//The weak comparison, as for a GET request
+				if(tag.equals("*") || stripWeakPrefix(tag).equals(stripWeakPrefix(eTag)))
+					return true;
+			}
+			return false;
+		}
+		String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+		String lastModified = cached.getHeader(HttpHeaders.LAST_MODIFIED);
+		if(ifModifiedSince == null || lastModified == null)
+			return false;
+		long since = HttpFields.parseDate(ifModifiedSince);
+		long modified = HttpFields.parseDate(lastModified);
+		return since != -1 && modified != -1 && modified <= since;
+	}
+
+	private static String stripWeakPrefix(String eTag) {
+		return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+	}
+
+	private void write(ResponseCache.CachedResponse cached, HttpServletRequest request, HttpServletResponse response) 
+			throws IOException {
+		if(isNotModified(cached, request)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			for(String[] header:cached.getHeaders()) {
+				if(isNotModifiedHeader(header[0]))
+					response.addHeader(header[0], header[1]);
+			}
+			response.setHeader(HttpHeaders.AGE, String.valueOf(cached.getAge()));
+			return;
+		}
+		response.setStatus(HttpServletResponse.SC_OK);
+		for(String[] header:cached.getHeaders()) {
+			response.addHeader(header[0], header[1]);
+		}
+		if(cached.getContentType() != null)
+			response.setContentType(cached.getContentType());
+		response.setHeader(HttpHeaders.AGE, String.valueOf(cached.getAge()));
+		byte[] body = cached.getBody();
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	/**
+	 * Checks if the given header of a cached response is sent along with a 304 status, the ones
+	 * the client would update its own cached response with
+	 * @return
+	 */
+	private static boolean isNotModifiedHeader(String name) {
+		return HttpHeaders.ETAG.equalsIgnoreCase(name) || HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(name)
+				|| HttpHeaders.EXPIRES.equalsIgnoreCase(name) || HttpHeaders.VARY.equalsIgnoreCase(name)
+				|| HttpHeaders.CONTENT_LOCATION.equalsIgnoreCase(name);
+	}
+
+	/**
+	 * The response passing through all the servlet writes while keeping a copy of its headers and
+	 * of its body, the copy of the body is dropped once larger than the maximum size
+	 */
+	private static class CapturingResponse extends HttpServletResponseWrapper {
+
+		private final long maxSize;
+
+		private final List<String[]> headers = new ArrayList<String[]>();
+
+		private ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private int status = HttpServletResponse.SC_OK;
+
+		private boolean cookieSet;
+
+		private boolean finishing;
+
+		private ServletOutputStream outputStream;
+
+		private PrintWriter writer;
+
+		private CapturingResponse(HttpServletResponse response, long maxSize) {
+			super(response);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public void setStatus(int sc) {
+			super.setStatus(sc);
+			status = sc;
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public void setStatus(int sc, String sm) {
+			super.setStatus(sc, sm);
+			status = sc;
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			super.sendError(sc);
+			status = sc;
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			super.sendError(sc, msg);
+			status = sc;
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			super.sendRedirect(location);
+			status = HttpServletResponse.SC_MOVED_TEMPORARILY;
+		}
+
+		@Override
+		public void addCookie(Cookie cookie) {
+			super.addCookie(cookie);
+			cookieSet = true;
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			super.setHeader(name, value);
+			removeHeader(name);
+			addCapturedHeader(name, value);
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			super.addHeader(name, value);
+			addCapturedHeader(name, value);
+		}
+
+		@Override
+		public void setDateHeader(String name, long date) {
+			super.setDateHeader(name, date);
+			removeHeader(name);
+			addCapturedHeader(name, HttpFields.formatDate(date));
+		}
+
+		@Override
+		public void addDateHeader(String name, long date) {
+			super.addDateHeader(name, date);
+			addCapturedHeader(name, HttpFields.formatDate(date));
+		}
+
+		@Override
+		public void setIntHeader(String name, int value) {
+			super.setIntHeader(name, value);
+			removeHeader(name);
+			addCapturedHeader(name, String.valueOf(value));
+		}
+
+		@Override
+		public void addIntHeader(String name, int value) {
+			super.addIntHeader(name, value);
+			addCapturedHeader(name, String.valueOf(value));
+		}
+
+		private void addCapturedHeader(String name, String value) {
+			//Worked out again from the body cached
+			if(!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name))
+				headers.add(new String[]{name, value});
+		}
+
+		private void removeHeader(String name) {
+			for(Iterator<String[]> iterator = headers.iterator(); iterator.hasNext();) {
+				if(iterator.next()[0].equalsIgnoreCase(name))
+					iterator.remove();
+			}
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if(writer != null)
+				throw new IllegalStateException("The writer of the response is already in use");
+			return getCapturingStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if(writer == null) {
+				if(outputStream != null)
+					throw new IllegalStateException("The output stream of the response is already in use");
+				//Declares the charset in the content type as the writer of the container does
+				String encoding = getCharacterEncoding();
+				setCharacterEncoding(encoding);
+				writer = new PrintWriter(new OutputStreamWriter(getCapturingStream(), encoding));
+			}
+			return writer;
+		}
+
+		private ServletOutputStream getCapturingStream() throws IOException {
+			if(outputStream == null)
+				outputStream = new CapturingOutputStream(super.getOutputStream());
+			return outputStream;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if(writer != null)
+				writer.flush();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void resetBuffer() {
+			super.resetBuffer();
+			if(body != null)
+				body.reset();
+		}
+
+		@Override
+		public void reset() {
+			super.reset();
+			headers.clear();
+			status = HttpServletResponse.SC_OK;
+			cookieSet = false;
+			if(body != null)
+				body.reset();
+		}
+
+		/**
+		 * Writes out the characters buffered by the writer without flushing the response, the server
+		 * still works out the length of the response once the request completes
+		 */
+		private void finish() {
+			if(writer != null) {
+				finishing = true;
+				writer.flush();
+			}
+		}
+
+		private boolean isCacheable() {
+			if(status != HttpServletResponse.SC_OK || cookieSet || body == null)
+				return false;
+			for(String[] header:headers) {
+				String name = header[0];
+				String value = header[1].toLowerCase();
+				if(HttpHeaders.SET_COOKIE.equalsIgnoreCase(name))
+					return false;
+				if(HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(name) && (value.contains("private") 
+						|| value.contains("no-cache") || value.contains("no-store")))
+					return false;
+				if(HttpHeaders.VARY.equalsIgnoreCase(name) && value.contains("*"))
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Gets the names of the request headers the response varies on
+		 * @return
+		 */
+		private List<String> getVary() {
+			List<String> names = new ArrayList<String>();
+			for(String[] header:headers) {
+				if(HttpHeaders.VARY.equalsIgnoreCase(header[0])) {
+					for(String name:StringUtils.commaDelimitedListToStringArray(header[1])) {
+						name = name.trim().toLowerCase();
+						if(name.length() > 0 && !names.contains(name))
+							names.add(name);
+					}
+				}
+			}
+			return names;
+		}
+
+		private ResponseCache.CachedResponse toCachedResponse(long timeToLive) {
+			return new ResponseCache.CachedResponse(new ArrayList<String[]>(headers), getContentType(),
+					body.toByteArray(), timeToLive);
+		}
+
+		private void capture(byte[] bytes, int offset, int length) {
+			if(body == null)
+				return;
+			if(body.size() + length > maxSize)
+				body = null;
+			else
+				body.write(bytes, offset, length);
+		}
+
+		/**
+		 * Writes through to the output stream of the response and to the copy of the body
+		 */
+		private class CapturingOutputStream extends ServletOutputStream {
+
+			private final ServletOutputStream out;
+
+			private CapturingOutputStream(ServletOutputStream out) {
+				this.out = out;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				if(body == null)
+					return;
+				if(body.size() >= maxSize)
+					body = null;
+				else
+					body.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				capture(b, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				if(!finishing)
+					out.flush();
+			}
+
+			@Override
+			public void close() throws IOException {
+				out.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Enumeration;
+import java.util.EventListener;
+import java.util.List;
+
+import javax.servlet.Filter;
+import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.ServletResponse;
+import javax.servlet.UnavailableException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.http.HttpMethods;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConnection;
+import org.eclipse.jetty.server.InclusiveByteRange;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.nio.NIOConnector;
+import org.eclipse.jetty.server.ssl.SslConnector;
+import org.eclipse.jetty.servlet.DefaultServlet;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.resource.Resource;
+
+/**
+ * The default servlet of the web applications whose static files are cached in a
+ * {@link StaticResourceCache} or whose large static files are served without copying them
+ * through the heap.
+ * <p>
+ * Along with the last modified date, the cached files are served with their ETag and the
+ * requests with a matching <em>If-None-Match</em> header are answered with a 304 status.
+ * <p>
+ * The files of at least the zero copy threshold are memory mapped and the mapped buffer is
+ * written to the socket channel as is, for the whole file as well as for a single byte range.
+ * Each file is mapped once and the mapping is shared by all the requests for it, the file is
+ * mapped again only when its last modified date or length changes. At most the configured number
+ * of files are kept mapped, see {@link MappedFileCache}.
+ * The responses over SSL, the compressed responses and the multi part byte ranges are served
+ * by the {@link DefaultServlet} as usual
+ *
+ * @author Amol Nayak
+ *
+ */
+public class StaticContentServlet extends DefaultServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String RESOURCE_CACHE_PARAMETER = "org.eclipse.jetty.servlet.Default.resourceCache";
+
+	private static final String ZERO_COPY_THRESHOLD = "zeroCopyThreshold";
+
+	private static final String ZERO_COPY_THRESHOLD_PARAMETER = "org.eclipse.jetty.servlet.Default." + ZERO_COPY_THRESHOLD;
+
+	private static final String MAX_MAPPED_FILES = "maxMappedFiles";
+
+	private static final String MAX_MAPPED_FILES_PARAMETER = "org.eclipse.jetty.servlet.Default." + MAX_MAPPED_FILES;
+
+	private static final int DEFAULT_MAX_MAPPED_FILES = 64;
+
+	private long zeroCopyThreshold;
+
+	private MappedFileCache mappedFiles;
+
+	/**
+	 * Makes the given context serve its static files through this servlet in place of the default
+	 * servlet declared by the web defaults descriptor. The cache is optional and so is the zero copy
+	 * threshold, 0 to never serve the files from mapped buffers, of which at most the given number
+	 * of files are kept mapped
+	 */
+	public static void install(ServletContextHandler context, StaticResourceCache cache, long zeroCopyThreshold, 
+			int maxMappedFiles) {
+		if(cache != null) {
+			String attributeName = StaticResourceCache.class.getName();
+			context.setAttribute(attributeName, cache);
+			context.setInitParameter(RESOURCE_CACHE_PARAMETER, attributeName);
+		}
+		if(zeroCopyThreshold > 0)
+			context.setInitParameter(ZERO_COPY_THRESHOLD_PARAMETER, String.valueOf(zeroCopyThreshold));
+		context.setInitParameter(MAX_MAPPED_FILES_PARAMETER, String.valueOf(maxMappedFiles));
+		context.addDecorator(new DefaultServletReplacer());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.servlet.DefaultServlet#init()
+	 */
+	@Override
+	public void init() throws UnavailableException {
+		super.init();
+		//Falls back to the context init parameter prefixed as the ones of the default servlet
+		String threshold = getInitParameter(ZERO_COPY_THRESHOLD);
+		if(threshold != null)
+			zeroCopyThreshold = Long.parseLong(threshold.trim());
+		String maxMappedFiles = getInitParameter(MAX_MAPPED_FILES);
+		mappedFiles = new MappedFileCache(maxMappedFiles != null 
+				? Integer.parseInt(maxMappedFiles.trim()) : DEFAULT_MAX_MAPPED_FILES);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.servlet.DefaultServlet#destroy()
+	 */
+	@Override
+	public void destroy() {
+		if(mappedFiles != null)
+			mappedFiles.clear();
+		super.destroy();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.servlet.DefaultServlet#passConditionalHeaders(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, org.eclipse.jetty.util.resource.Resource, org.eclipse.jetty.http.HttpContent)
+	 */
+	@Override
+	protected boolean passConditionalHeaders(HttpServletRequest request, HttpServletResponse response,
+			Resource resource, HttpContent content) throws IOException {
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if(ifNoneMatch == null || !(content instanceof StaticResourceCache.CachedContent)
+				|| !(HttpMethods.GET.equals(request.getMethod()) || HttpMethods.HEAD.equals(request.getMethod())))
+			return super.passConditionalHeaders(request, response, resource, content);
+		String eTag = ((StaticResourceCache.CachedContent)content).getETag();
+		for(String tag:ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if(tag.equals(eTag) || tag.equals("*")) {
+				response.reset();
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				response.setHeader(HttpHeaders.ETAG, eTag);
+				response.flushBuffer();
+				return false;
+			}
+		}
+		//The If-Modified-Since header is ignored when an If-None-Match header is present
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.servlet.DefaultServlet#sendData(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, boolean, org.eclipse.jetty.util.resource.Resource, org.eclipse.jetty.http.HttpContent, java.util.Enumeration)
+	 */
+	@Override
+	@SuppressWarnings("rawtypes")
+	protected void sendData(HttpServletRequest request, HttpServletResponse response, boolean include, 
+			Resource resource, HttpContent content, Enumeration reqRanges) throws IOException {
+		if(!include && content instanceof StaticResourceCache.CachedContent)
+			response.setHeader(HttpHeaders.ETAG, ((StaticResourceCache.CachedContent)content).getETag());
+		else if(!include && isZeroCopy(request, response, resource)) {
+			ByteBuffer mapping = mappedFiles.getMapping(resource.getFile());
+			long length = mapping.capacity();
+			String contentType = getServletContext().getMimeType(resource.toString());
+			if(contentType != null)
+				//Through the wrappers, the ones of the compressed web applications vary on it
+				response.setContentType(contentType);
+			if(reqRanges == null || !reqRanges.hasMoreElements()) {
+				writeOptionHeaders(unwrap(response).getHttpFields());
+				sendContent(response, new MappedFileContent(resource, mapping, contentType, 0, length));
+				return;
+			}
+			List<?> ranges = InclusiveByteRange.satisfiableRanges(reqRanges, length);
+			if(ranges != null && ranges.size() == 1) {
+				InclusiveByteRange range = (InclusiveByteRange)ranges.get(0);
+				writeOptionHeaders(unwrap(response).getHttpFields());
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader(HttpHeaders.CONTENT_RANGE, range.toHeaderRangeString(length));
+				sendContent(response, new MappedFileContent(resource, mapping, contentType, 
+						range.getFirst(length), range.getSize(length)));
+				return;
+			}
+			//The ranges were consumed, the default servlet parses them again
+			reqRanges = request.getHeaders(HttpHeaders.RANGE);
+		}
+		super.sendData(request, response, include, resource, content, reqRanges);
+	}
+
+	/**
+	 * Checks if the given resource is to be written from a mapped buffer, the mapped buffer is
+	 * written as is only by the connectors using direct buffers without SSL
+	 */
+	private boolean isZeroCopy(HttpServletRequest request, HttpServletResponse response, Resource resource) 
+			throws IOException {
+		if(zeroCopyThreshold <= 0 || !HttpMethods.GET.equals(request.getMethod()))
+			return false;
+		long length = resource.length();
+		if(length < zeroCopyThreshold || length > Integer.MAX_VALUE || resource.getFile() == null)
+			return false;
+		HttpConnection connection = HttpConnection.getCurrentConnection();
+		if(connection == null || unwrap(response) == null 
+				|| !(response.getOutputStream() instanceof HttpConnection.Output))
+			return false;
+		Connector connector = connection.getConnector();
+		return connector instanceof NIOConnector && ((NIOConnector)connector).getUseDirectBuffers()
+				&& !(connector instanceof SslConnector);
+	}
+
+	/**
+	 * Gets the response of the connection from the response wrapped only to add the <em>Vary</em>
+	 * header, the other wrappers may change the content and are returned as is
+	 * @return
+	 */
+	private Response unwrap(HttpServletResponse response) {
+		ServletResponse unwrapped = response instanceof VaryResponseWrapper 
+				? ((VaryResponseWrapper)response).getResponse() : response;
+		return unwrapped instanceof Response ? (Response)unwrapped : null;
+	}
+
+	/**
+	 * Writes the given content to the output of the connection, the buffers of the content
+	 * are written to the channel of the connection as is
+	 */
+	private void sendContent(HttpServletResponse response, MappedFileContent content) throws IOException {
+		((HttpConnection.Output)response.getOutputStream()).sendContent(content);
+	}
+
+	/**
+	 * Replaces the class of the default servlet declared in the web defaults descriptor
+	 * before the servlets of the context are initialized
+	 */
+	private static class DefaultServletReplacer implements ServletContextHandler.Decorator {
+
+		@Override
+		public void decorateServletHolder(ServletHolder holder) throws ServletException {
+			if(DefaultServlet.class.getName().equals(holder.getClassName()))
+				holder.setClassName(StaticContentServlet.class.getName());
+		}
+
+		@Override
+		public <T extends Filter> T decorateFilterInstance(T filter) throws ServletException {
+			return filter;
+		}
+
+		@Override
+		public <T extends Servlet> T decorateServletInstance(T servlet) throws ServletException {
+			return servlet;
+		}
+
+		@Override
+		public <T extends EventListener> T decorateListenerInstance(T listener) throws ServletException {
+			return listener;
+		}
+
+		@Override
+		public void decorateFilterHolder(FilterHolder filter) throws ServletException {
+		}
+
+		@Override
+		public void destroyServletInstance(Servlet servlet) {
+		}
+
+		@Override
+		public void destroyFilterInstance(Filter filter) {
+		}
+
+		@Override
+		public void destroyListenerInstance(EventListener listener) {
+		}
+	}
+}
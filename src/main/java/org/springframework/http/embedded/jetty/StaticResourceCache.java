@@ -0,0 +1,423 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.io.Buffer;
+import org.eclipse.jetty.io.ByteArrayBuffer;
+import org.eclipse.jetty.io.View;
+import org.eclipse.jetty.server.ResourceCache;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.springframework.http.embedded.ResourceCacheConfig;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * The cache of the static files of a web application used by its default servlet in place of
+ * the {@link ResourceCache} of Jetty. The files are evicted in the least recently used order
+ * once the cached bytes exceed the maximum size.
+ * <p>
+ * Unlike the cache of Jetty, a hit does not touch the file system as long as the file was
+ * checked for changes within the check interval. The cached files carry a strong ETag derived
+ * from their content, see {@link StaticContentServlet}
+ *
+ * @author Amol Nayak
+ *
+ */
+public class StaticResourceCache extends ResourceCache {
+
+	private final ResourceCacheConfig cacheConfig;
+
+	private final ResourceFactory resourceFactory;
+
+	private final MimeTypes mimeTypes;
+
+	private final LinkedHashMap<String, CachedContent> entries = new LinkedHashMap<String, CachedContent>(16, 0.75f, true);
+
+	private long cachedBytes;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	public StaticResourceCache(ResourceCacheConfig cacheConfig, final ContextHandler contextHandler) {
+		this(cacheConfig, new ResourceFactory() {
+			@Override
+			public Resource getResource(String path) {
+				try {
+					return contextHandler.getResource(path);
+				} catch (MalformedURLException e) {
+					return null;
+				}
+			}
+		}, contextHandler.getMimeTypes());
+	}
+
+	private StaticResourceCache(ResourceCacheConfig cacheConfig, ResourceFactory resourceFactory, MimeTypes mimeTypes) {
+		super(null, resourceFactory, mimeTypes);
+		this.cacheConfig = cacheConfig;
+		this.resourceFactory = resourceFactory;
+		this.mimeTypes = mimeTypes;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.ResourceCache#lookup(java.lang.String)
+	 */
+	@Override
+	public HttpContent lookup(String pathInContext) throws IOException {
+		CachedContent content;
+		synchronized (entries) {
+			content = entries.get(pathInContext);
+		}
+		if(content != null) {
+			if(content.isValid(cacheConfig.getCheckInterval())) {
+				hits.incrementAndGet();
+				return content;
+			}
+			//Changed on the file system since it was cached
+			remove(content);
+		}
+		misses.incrementAndGet();
+		Resource resource = resourceFactory.getResource(pathInContext);
+		if(resource == null || !resource.exists())
+			return null;
+		Buffer contentType = mimeTypes.getMimeByExtension(resource.toString());
+		if(!isCacheable(resource))
+			return new HttpContent.ResourceAsHttpContent(resource, contentType);
+		long lastModified = resource.lastModified();
+		byte[] bytes = FileCopyUtils.copyToByteArray(resource.getInputStream());
+		content = new CachedContent(pathInContext, resource, contentType, lastModified, bytes);
+		add(content);
+		return content;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.ResourceCache#isCacheable(org.eclipse.jetty.util.resource.Resource)
+	 */
+	@Override
+	protected boolean isCacheable(Resource resource) {
+		long length = resource.length();
+		return !resource.isDirectory() && length >= 0 && length <= cacheConfig.getMaxFileSize()
+			&& length <= cacheConfig.getMaxSize();
+	}
+
+	private void add(CachedContent content) {
+		synchronized (entries) {
+			CachedContent previous = entries.put(content.key, content);
+			if(previous != null)
+				cachedBytes -= previous.bytes.length;
+			cachedBytes += content.bytes.length;
+			Iterator<CachedContent> eldest = entries.values().iterator();
+			while(cachedBytes > cacheConfig.getMaxSize() && eldest.hasNext()) {
+				cachedBytes -= eldest.next().bytes.length;
+				eldest.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	private void remove(CachedContent content) {
+		synchronized (entries) {
+			if(entries.get(content.key) == content) {
+				entries.remove(content.key);
+				cachedBytes -= content.bytes.length;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.ResourceCache#flushCache()
+	 */
+	@Override
+	public void flushCache() {
+		synchronized (entries) {
+			entries.clear();
+			cachedBytes = 0;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.ResourceCache#getCachedSize()
+	 */
+	@Override
+	public int getCachedSize() {
+		return (int)Math.min(getCachedBytes(), Integer.MAX_VALUE);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.ResourceCache#getCachedFiles()
+	 */
+	@Override
+	public int getCachedFiles() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Gets the number of bytes of all the files cached currently
+	 * @return
+	 */
+	public long getCachedBytes() {
+		synchronized (entries) {
+			return cachedBytes;
+		}
+	}
+
+	/**
+	 * Gets the number of lookups served from the cache
+	 * @return
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of lookups that had to go to the file system, including the ones for the
+	 * files that are not cacheable and the ones for the cached files found changed
+	 * @return
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Gets the number of files evicted to keep the cache within its maximum size
+	 * @return
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jetty.server.ResourceCache#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StaticResourceCache[files=" + getCachedFiles() + ", bytes=" + getCachedBytes() + ", hits="
+			+ getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+	}
+
+	/**
+	 * A file held in memory along with the headers served with it
+	 */
+	static final class CachedContent implements HttpContent {
+
+		private final String key;
+		private final Resource resource;
+		private final Buffer contentType;
+		private final long lastModified;
+		private final Buffer lastModifiedHeader;
+		private final byte[] bytes;
+		private final Buffer buffer;
+		private final String eTag;
+		private volatile long validatedAt;
+
+		private CachedContent(String key, Resource resource, Buffer contentType, long lastModified, byte[] bytes) {
+			this.key = key;
+			this.contentType = contentType;
+			this.lastModified = lastModified;
+			this.lastModifiedHeader = lastModified > 0 ? new ByteArrayBuffer(HttpFields.formatDate(lastModified)) : null;
+			this.bytes = bytes;
+			this.buffer = new ByteArrayBuffer(bytes, 0, bytes.length, Buffer.READONLY);
+			this.eTag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+			this.resource = new CachedResource(resource, this);
+			this.validatedAt = System.currentTimeMillis();
+		}
+
+		/**
+		 * Checks the file for changes if it was not checked within the given interval
+		 */
+		private boolean isValid(long checkInterval) {
+			long now = System.currentTimeMillis();
+			if(checkInterval < 0 || now - validatedAt < checkInterval)
+				return true;
+			Resource file = ((CachedResource)resource).delegate;
+			if(file.exists() && file.lastModified() == lastModified && file.length() == bytes.length) {
+				validatedAt = now;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Gets the strong entity tag of the content
+		 * @return
+		 */
+		String getETag() {
+			return eTag;
+		}
+
+		@Override
+		public Buffer getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public Buffer getLastModified() {
+			return lastModifiedHeader;
+		}
+
+		@Override
+		public Buffer getIndirectBuffer() {
+			//Each response reads through its own view of the shared buffer
+			return new View(buffer);
+		}
+
+		@Override
+		public Buffer getDirectBuffer() {
+			return null;
+		}
+
+		@Override
+		public Resource getResource() {
+			return resource;
+		}
+
+		@Override
+		public long getContentLength() {
+			return bytes.length;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return new ByteArrayInputStream(bytes);
+		}
+
+		@Override
+		public void release() {
+			//Released when evicted
+		}
+	}
+
+	/**
+	 * The resource of a cached file that answers the questions of the default servlet about
+	 * the file from the memory, the rest are delegated to the resource of the file
+	 */
+	private static final class CachedResource extends Resource {
+
+		private final Resource delegate;
+		private final CachedContent content;
+
+		private CachedResource(Resource delegate, CachedContent content) {
+			this.delegate = delegate;
+			this.content = content;
+		}
+
+		@Override
+		public boolean exists() {
+			return true;
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return false;
+		}
+
+		@Override
+		public long lastModified() {
+			return content.lastModified;
+		}
+
+		@Override
+		public long length() {
+			return content.bytes.length;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return content.getInputStream();
+		}
+
+		@Override
+		public boolean isContainedIn(Resource r) throws MalformedURLException {
+			return delegate.isContainedIn(r);
+		}
+
+		@Override
+		public void release() {
+			delegate.release();
+		}
+
+		@Override
+		public URL getURL() {
+			return delegate.getURL();
+		}
+
+		@Override
+		public File getFile() throws IOException {
+			return delegate.getFile();
+		}
+
+		@Override
+		public String getName() {
+			return delegate.getName();
+		}
+
+		@Override
+		public URL getAlias() {
+			return delegate.getAlias();
+		}
+
+		@Override
+		public OutputStream getOutputStream() throws IOException, SecurityException {
+			return delegate.getOutputStream();
+		}
+
+		@Override
+		public boolean delete() throws SecurityException {
+			return delegate.delete();
+		}
+
+		@Override
+		public boolean renameTo(Resource dest) throws SecurityException {
+			return delegate.renameTo(dest);
+		}
+
+		@Override
+		public String[] list() {
+			return delegate.list();
+		}
+
+		@Override
+		public Resource addPath(String path) throws IOException, MalformedURLException {
+			return delegate.addPath(path);
+		}
+
+		@Override
+		public String toString() {
+			return delegate.toString();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import java.util.Set;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.eclipse.jetty.http.HttpHeaders;
+
+/**
+ * The wrapper of the responses of a web application whose responses are compressed, adds the
+ * <em>Vary: Accept-Encoding</em> header to every response whose content type is compressible,
+ * whether or not it ends up compressed. A shared cache thus never serves the encoding stored
+ * for one client to another client
+ *
+ * @author Amol Nayak
+ *
+ */
+class VaryResponseWrapper extends HttpServletResponseWrapper {
+
+	private final Set<String> mimeTypes;
+
+	private boolean varied;
+
+	VaryResponseWrapper(HttpServletResponse response, Set<String> mimeTypes) {
+		super(response);
+		this.mimeTypes = mimeTypes;
+	}
+
+	@Override
+	public void setContentType(String type) {
+		super.setContentType(type);
+		varyIfCompressible(type);
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		super.setHeader(name, value);
+		if(HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name))
+			varyIfCompressible(value);
+		else if(HttpHeaders.VARY.equalsIgnoreCase(name))
+			//Replaces the one added before, if any
+			varied = isAcceptEncoding(value);
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		super.addHeader(name, value);
+		if(HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name))
+			varyIfCompressible(value);
+		else if(HttpHeaders.VARY.equalsIgnoreCase(name) && isAcceptEncoding(value))
+			varied = true;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		varied = false;
+	}
+
+	/**
+	 * Adds the <em>Vary</em> header unless already added, the response may be compressed whatever
+	 * its content type
+	 */
+	void vary() {
+		if(!varied && !isCommitted()) {
+			varied = true;
+			super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		}
+	}
+
+	private boolean isAcceptEncoding(String vary) {
+		return vary != null && vary.toLowerCase().contains(HttpHeaders.ACCEPT_ENCODING.toLowerCase());
+	}
+
+	private void varyIfCompressible(String contentType) {
+		if(contentType == null)
+			return;
+		int parameters = contentType.indexOf(';');
+		String mimeType = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim();
+		if(mimeTypes == null || mimeTypes.contains(mimeType.toLowerCase()))
+			vary();
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.getStatus;
+
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * Tests the server started and stopped without blocking the caller
+ * @author Amol Nayak
+ *
+ */
+public class AsyncStartTest {
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void startsAndStopsAsynchronously() throws Exception {
+		createServer(getFreePort());
+		StartupReport report = server.startAsync().get(10, TimeUnit.SECONDS);
+		assertNotNull(report);
+		assertEquals(ServerRunStatus.RUNNING, server.getStatus());
+		assertEquals(200, getStatus(port, "/app/hello"));
+		//Already started
+		try {
+			server.startAsync().get(10, TimeUnit.SECONDS);
+			fail("Expected the start to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertNotNull(server.stopAsync().get(10, TimeUnit.SECONDS));
+		assertEquals(ServerRunStatus.STOPPED, server.getStatus());
+	}
+
+	@Test
+	public void failsWithTheCause() throws Exception {
+		ServerSocket taken = new ServerSocket(0);
+		try {
+			createServer(taken.getLocalPort());
+			server.startAsync().get(10, TimeUnit.SECONDS);
+			fail("Expected the start to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof BindException);
+			assertEquals(ServerRunStatus.FAILED, server.getStatus());
+		} finally {
+			taken.close();
+		}
+	}
+
+	@Test
+	public void opensPortsOnceSignalled() throws Exception {
+		createServer(getFreePort());
+		CompletableFuture<Object> openPorts = new CompletableFuture<Object>();
+		CompletableFuture<StartupReport> started = server.startAsync(openPorts);
+		Thread.sleep(500);
+		assertFalse(started.isDone());
+		assertEquals(ServerRunStatus.STARTING, server.getStatus());
+		try {
+			getStatus(port, "/app/hello");
+			fail("Expected the connection to be refused");
+		} catch (ConnectException e) {
+			//Not listening yet
+		}
+		openPorts.complete(null);
+		assertNotNull(started.get(10, TimeUnit.SECONDS));
+		assertEquals(200, getStatus(port, "/app/hello"));
+	}
+
+	@Test
+	public void stopsBeforePortsOpened() throws Exception {
+		createServer(getFreePort());
+		CompletableFuture<Object> openPorts = new CompletableFuture<Object>();
+		CompletableFuture<StartupReport> started = server.startAsync(openPorts);
+		server.stop();
+		assertEquals(ServerRunStatus.STOPPED, server.getStatus());
+		openPorts.complete(null);
+		try {
+			started.get(10, TimeUnit.SECONDS);
+			fail("Expected the start to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(ServerRunStatus.STOPPED, server.getStatus());
+	}
+
+	@Test
+	public void factoryOpensPortsOnRefresh() throws Exception {
+		port = getFreePort();
+		System.setProperty("async.port", String.valueOf(port));
+		ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("async-start-test.xml");
+		EmbeddedServer embeddedServer = context.getBean(EmbeddedServer.class);
+		try {
+			long deadline = System.currentTimeMillis() + 10000;
+			while(!ServerRunStatus.RUNNING.equals(embeddedServer.getStatus()) && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(200, getStatus(port, "/async/hello"));
+		} finally {
+			context.close();
+		}
+		assertEquals(ServerRunStatus.STOPPED, embeddedServer.getStatus());
+	}
+
+	private void createServer(int port) throws Exception {
+		this.port = port;
+		server = new EmbeddedJettyServer();
+		ServerConfig config = new ServerConfig();
+		config.setStartupPort(port);
+		server.initialize(config);
+		server.deployApplication(createWebApplication("/app", new TestHttpServlet(), "/hello"));
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.loadContext;
+import static org.springframework.http.embedded.HttpTestSupport.readBytes;
+import static org.springframework.http.embedded.HttpTestSupport.write;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * Tests the compression of the responses of a web application deployed from a web app root
+ * along with the serving of the precompressed static files
+ * @author Amol Nayak
+ *
+ */
+public class CompressionTest {
+
+	@Rule
+	public TemporaryFolder webAppRoot = new TemporaryFolder();
+
+	private EmbeddedServer server;
+	private int port;
+	private String script;
+
+	@Before
+	public void startServer() throws Exception {
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < 500; i++) {
+			builder.append("function f").append(i).append("() { return ").append(i).append("; }\n");
+		}
+		script = builder.toString();
+		write(new File(webAppRoot.getRoot(), "app.js"), script.getBytes("UTF-8"));
+		write(new File(webAppRoot.getRoot(), "small.css"), "p {}".getBytes("UTF-8"));
+		write(new File(webAppRoot.getRoot(), "image.png"), new byte[100]);
+		write(new File(webAppRoot.getRoot(), "styles.css"), "body { margin: 0; }".getBytes("UTF-8"));
+		write(new File(webAppRoot.getRoot(), "styles.css.gz"), gzip("/* precompressed */ body { margin: 0; }"));
+
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		WebApplication webApp = new WebApplication();
+		webApp.setWebAppRoot(webAppRoot.getRoot().getAbsolutePath());
+		webApp.setContextPath("/static");
+		CompressionConfig compressionConfig = new CompressionConfig();
+		compressionConfig.setLevel(9);
+		webApp.setCompressionConfig(compressionConfig);
+		webApp.afterPropertiesSet();
+		server = deployAndStart(config, webApp);
+	}
+
+	@After
+	public void stopServer() {
+		server.stop();
+	}
+
+	@Test
+	public void compressesResponsesForClientsAcceptingGzip() throws Exception {
+		HttpURLConnection connection = open("/static/app.js", true);
+		assertEquals(200, connection.getResponseCode());
+		assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+		assertEquals("Accept-Encoding", connection.getHeaderField("Vary"));
+		assertEquals(script, read(new GZIPInputStream(connection.getInputStream())));
+
+		connection = open("/static/app.js", false);
+		assertNull(connection.getHeaderField("Content-Encoding"));
+		assertEquals("Accept-Encoding", connection.getHeaderField("Vary"));
+		assertEquals(script, read(connection.getInputStream()));
+	}
+
+	@Test
+	public void doesNotCompressSmallResponses() throws Exception {
+		HttpURLConnection connection = open("/static/small.css", true);
+		assertNull(connection.getHeaderField("Content-Encoding"));
+		//Compressible, a shared cache must not serve it to all the clients
+		assertEquals("Accept-Encoding", connection.getHeaderField("Vary"));
+		assertEquals("p {}", read(connection.getInputStream()));
+
+		connection = open("/static/image.png", true);
+		assertNull(connection.getHeaderField("Content-Encoding"));
+		assertNull(connection.getHeaderField("Vary"));
+		assertEquals(100, readBytes(connection.getInputStream()).length);
+	}
+
+	@Test
+	public void servesPrecompressedFiles() throws Exception {
+		HttpURLConnection connection = open("/static/styles.css", true);
+		assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+		assertEquals(1, connection.getHeaderFields().get("Vary").size());
+		assertEquals("Accept-Encoding", connection.getHeaderField("Vary"));
+		assertEquals("/* precompressed */ body { margin: 0; }", read(new GZIPInputStream(connection.getInputStream())));
+
+		connection = open("/static/styles.css", false);
+		assertNull(connection.getHeaderField("Content-Encoding"));
+		assertEquals("Accept-Encoding", connection.getHeaderField("Vary"));
+		assertEquals("body { margin: 0; }", read(connection.getInputStream()));
+	}
+
+	@Test
+	public void configuredThroughNamespace() throws Exception {
+		System.setProperty("test.webapp.root", webAppRoot.getRoot().getAbsolutePath());
+		port = getFreePort();
+		ClassPathXmlApplicationContext context = loadContext("compression-test.xml", port);
+		try {
+			HttpURLConnection connection = open("/compressed/app.js", true);
+			assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+			assertEquals(script, read(new GZIPInputStream(connection.getInputStream())));
+
+			connection = open("/compressed/small.css", true);
+			assertNull(connection.getHeaderField("Content-Encoding"));
+			assertEquals("p {}", read(connection.getInputStream()));
+		} finally {
+			context.close();
+		}
+	}
+
+	private HttpURLConnection open(String path, boolean acceptGzip) throws IOException {
+		HttpURLConnection connection = HttpTestSupport.open(port, path);
+		if(acceptGzip)
+			connection.setRequestProperty("Accept-Encoding", "gzip");
+		return connection;
+	}
+
+	private String read(InputStream in) throws IOException {
+		return new String(readBytes(in), "UTF-8");
+	}
+
+	private byte[] gzip(String content) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GZIPOutputStream out = new GZIPOutputStream(bytes);
+		out.write(content.getBytes("UTF-8"));
+		out.close();
+		return bytes.toByteArray();
+	}
+}
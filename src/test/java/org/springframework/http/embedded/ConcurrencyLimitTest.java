@@ -0,0 +1,235 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.loadContext;
+import static org.springframework.http.embedded.HttpTestSupport.readBytes;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.http.embedded.jetty.ConcurrencyLimitHandler;
+
+/**
+ * Tests the adaptive limit of the concurrent requests of a web application
+ * @author Amol Nayak
+ *
+ */
+public class ConcurrencyLimitTest {
+
+	private final CountDownLatch requestsStarted = new CountDownLatch(2);
+
+	private final CountDownLatch releaseRequests = new CountDownLatch(1);
+
+	private final ExecutorService clients = Executors.newFixedThreadPool(2);
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		releaseRequests.countDown();
+		clients.shutdownNow();
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void rejectsRequestsBeyondLimit() throws Exception {
+		ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+		config.setInitialLimit(2);
+		config.setMinLimit(2);
+		config.setRetryAfter(5);
+		startServer(config);
+		List<Future<Integer>> blocked = new ArrayList<Future<Integer>>();
+		for(int i = 0; i < 2; i++) {
+			blocked.add(clients.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					return get("/app/blocking").getResponseCode();
+				}
+			}));
+		}
+		assertTrue(requestsStarted.await(10, TimeUnit.SECONDS));
+		ConcurrencyLimitMXBean limiter = server.getConcurrencyLimiter("/app");
+		assertEquals(2, limiter.getInFlightRequests());
+
+		HttpURLConnection rejected = get("/app/fast");
+		assertEquals(503, rejected.getResponseCode());
+		assertEquals("5", rejected.getHeaderField("Retry-After"));
+		assertEquals(1, limiter.getRejectedRequests());
+
+		ObjectName name = new ObjectName("org.springframework.http.embedded:type=ConcurrencyLimit,host=" 
+				+ ObjectName.quote("0.0.0.0") + ",port=" + port + ",context=" + ObjectName.quote("/app"));
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+		assertEquals(1L, mbeanServer.getAttribute(name, "RejectedRequests"));
+
+		releaseRequests.countDown();
+		for(Future<Integer> request:blocked) {
+			assertEquals(200, request.get(10, TimeUnit.SECONDS).intValue());
+		}
+		assertEquals(0, limiter.getInFlightRequests());
+		assertEquals(200, getStatus("/app/fast"));
+
+		assertTrue(server.undeployApplication("/app"));
+		assertFalse(mbeanServer.isRegistered(name));
+	}
+
+	@Test
+	public void decreasesLimitWhenLatencyRises() throws Exception {
+		ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+		config.setInitialLimit(10);
+		startServer(config);
+		for(int i = 0; i < 20; i++) {
+			assertEquals(200, getStatus("/app/fast"));
+		}
+		ConcurrencyLimitMXBean limiter = server.getConcurrencyLimiter("/app");
+		int limit = limiter.getLimit();
+		long baselineLatency = limiter.getBaselineLatency();
+		assertTrue(baselineLatency > 0);
+		assertEquals(200, getStatus("/app/slow"));
+		assertTrue(limiter.getLimit() < limit);
+		//The slow requests do not raise the usual latency, each of them keeps lowering the limit
+		limit = limiter.getLimit();
+		assertEquals(200, getStatus("/app/slow"));
+		assertEquals(200, getStatus("/app/slow"));
+		assertTrue(limiter.getLimit() < limit);
+		assertEquals(baselineLatency, limiter.getBaselineLatency());
+	}
+
+	@Test
+	public void ignoresSlowFirstRequestInUsualLatency() throws Exception {
+		ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+		config.setInitialLimit(10);
+		startServer(config);
+		//As slow as the first request of an application initialized lazily
+		assertEquals(200, getStatus("/app/slow"));
+		for(int i = 0; i < 19; i++) {
+			assertEquals(200, getStatus("/app/fast"));
+		}
+		ConcurrencyLimitMXBean limiter = server.getConcurrencyLimiter("/app");
+		assertTrue(limiter.getBaselineLatency() * config.getLatencyTolerance() < 300000);
+		int limit = limiter.getLimit();
+		assertEquals(200, getStatus("/app/slow"));
+		assertTrue(limiter.getLimit() < limit);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsInitialLimitOutsideBounds() {
+		ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+		config.setMaxLimit(10);
+		config.setInitialLimit(20);
+		new ConcurrencyLimitHandler(config);
+	}
+
+	@Test
+	public void increasesLimitWhileInUse() throws Exception {
+		ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+		config.setInitialLimit(1);
+		//Tolerates the jitter of the fast requests
+		config.setLatencyTolerance(1000);
+		startServer(config);
+		//The first 10 start the usual latency
+		for(int i = 0; i < 20; i++) {
+			assertEquals(200, getStatus("/app/fast"));
+		}
+		//Grows while the single request in flight is at least half the limit
+		assertEquals(2, server.getConcurrencyLimiter("/app").getLimit());
+	}
+
+	@Test
+	public void configuredThroughNamespace() throws Exception {
+		port = getFreePort();
+		ClassPathXmlApplicationContext context = loadContext("concurrency-limit-test.xml", port);
+		try {
+			EmbeddedJettyServer embeddedServer = (EmbeddedJettyServer)context.getBean(EmbeddedServer.class);
+			ConcurrencyLimitMXBean limiter = embeddedServer.getConcurrencyLimiter("/test");
+			assertNotNull(limiter);
+			assertEquals(50, limiter.getLimit());
+			assertEquals(200, getStatus("/test/hello"));
+			assertEquals(0, limiter.getRejectedRequests());
+		} finally {
+			context.close();
+		}
+	}
+
+	private void startServer(ConcurrencyLimitConfig concurrencyLimitConfig) throws Exception {
+		ServerConfig config = createConfig();
+		config.setJmxEnabled(true);
+		port = config.getStartupPort();
+		WebApplication webApp = createWebApplication("/app", new TestServlet(), "/*");
+		webApp.setConcurrencyLimitConfig(concurrencyLimitConfig);
+		server = deployAndStart(config, webApp);
+	}
+
+	private HttpURLConnection get(String path) throws IOException {
+		HttpURLConnection connection = HttpTestSupport.open(port, path);
+		readBytes(connection);
+		return connection;
+	}
+
+	private int getStatus(String path) throws IOException {
+		return HttpTestSupport.getStatus(port, path);
+	}
+
+	private class TestServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			try {
+				if(req.getRequestURI().endsWith("/blocking")) {
+					requestsStarted.countDown();
+					releaseRequests.await(20, TimeUnit.SECONDS);
+				} else if(req.getRequestURI().endsWith("/slow")) {
+					Thread.sleep(300);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			resp.getWriter().write("ok");
+		}
+	}
+}
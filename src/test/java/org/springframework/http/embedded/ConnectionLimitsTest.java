@@ -0,0 +1,205 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.loadContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * Tests the idle time, the maximum connections and the low resources mode of the connectors
+ * of the embedded jetty server using kept alive connections
+ * @author Amol Nayak
+ *
+ */
+public class ConnectionLimitsTest {
+
+	private EmbeddedServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void closesIdleConnections() throws Exception {
+		ConnectorConfig connectorConfig = new ConnectorConfig();
+		connectorConfig.setMaxIdleTime(500);
+		startServer(connectorConfig);
+		Socket socket = connect();
+		try {
+			request(socket);
+			long start = System.currentTimeMillis();
+			assertEquals(-1, socket.getInputStream().read());
+			assertTrue(System.currentTimeMillis() - start < 5000);
+		} finally {
+			socket.close();
+		}
+	}
+
+	@Test
+	public void acceptsConnectionsOnlyBelowTheMaximum() throws Exception {
+		ConnectorConfig connectorConfig = new ConnectorConfig();
+		connectorConfig.setMaxConnections(2);
+		connectorConfig.setLowResourcesMaxIdleTime(0);
+		startServer(connectorConfig);
+		Socket first = connect();
+		Socket second = connect();
+		Socket third = connect();
+		try {
+			request(first);
+			request(second);
+			//Accepted by the operating system but not served till a connection is closed
+			third.setSoTimeout(1000);
+			try {
+				request(third);
+				fail("Expected the third connection to wait for a connection to close");
+			} catch (SocketTimeoutException e) {
+				//expected
+			}
+			first.close();
+			third.setSoTimeout(10000);
+			readResponse(third);
+		} finally {
+			first.close();
+			second.close();
+			third.close();
+		}
+	}
+
+	@Test
+	public void shortensIdleTimeWhenLowOnResources() throws Exception {
+		ConnectorConfig connectorConfig = new ConnectorConfig();
+		connectorConfig.setMaxIdleTime(60000);
+		connectorConfig.setLowResourcesConnections(2);
+		connectorConfig.setLowResourcesMaxIdleTime(500);
+		startServer(connectorConfig);
+		Socket first = connect();
+		try {
+			request(first);
+			Socket second = connect();
+			try {
+				request(second);
+				//Both the connections are closed as the second one made the connector low on resources
+				assertEquals(-1, first.getInputStream().read());
+				assertEquals(-1, second.getInputStream().read());
+			} finally {
+				second.close();
+			}
+		} finally {
+			first.close();
+		}
+	}
+
+	@Test
+	public void tunedThroughNamespace() throws Exception {
+		port = getFreePort();
+		ClassPathXmlApplicationContext context = loadContext("connector-tuning-test.xml", port);
+		try {
+			Socket socket = connect();
+			try {
+				request(socket);
+				request(socket);
+			} finally {
+				socket.close();
+			}
+		} finally {
+			context.close();
+		}
+	}
+
+	@Test
+	public void closesIdleConnectionsConfiguredThroughNamespace() throws Exception {
+		port = getFreePort();
+		ClassPathXmlApplicationContext context = loadContext("connection-limits-test.xml", port);
+		try {
+			Socket socket = connect();
+			try {
+				request(socket);
+				long start = System.currentTimeMillis();
+				assertEquals(-1, socket.getInputStream().read());
+				assertTrue(System.currentTimeMillis() - start < 5000);
+			} finally {
+				socket.close();
+			}
+		} finally {
+			context.close();
+		}
+	}
+
+	private void startServer(ConnectorConfig connectorConfig) throws Exception {
+		ServerConfig config = createConfig();
+		config.setConnectorConfig(connectorConfig);
+		port = config.getStartupPort();
+		server = deployAndStart(config, createWebApplication("/test", new TestHttpServlet(), "/hello"));
+	}
+
+	private Socket connect() throws IOException {
+		Socket socket = new Socket("localhost", port);
+		socket.setSoTimeout(10000);
+		return socket;
+	}
+
+	/**
+	 * Sends a request on the kept alive connection and reads the complete response
+	 */
+	private void request(Socket socket) throws IOException {
+		OutputStream out = socket.getOutputStream();
+		out.write("GET /test/hello HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes("ISO-8859-1"));
+		out.flush();
+		readResponse(socket);
+	}
+
+	/**
+	 * Reads the response headers and the body of the length given in the Content-Length header
+	 */
+	private void readResponse(Socket socket) throws IOException {
+		InputStream in = socket.getInputStream();
+		StringBuilder headers = new StringBuilder();
+		while(!headers.toString().endsWith("\r\n\r\n")) {
+			int read = in.read();
+			if(read == -1)
+				throw new IOException("Connection closed before the response was read");
+			headers.append((char)read);
+		}
+		assertTrue(headers.toString(), headers.toString().startsWith("HTTP/1.1 200 OK"));
+		int contentLength = 0;
+		for(String header:headers.toString().split("\r\n")) {
+			if(header.toLowerCase().startsWith("content-length:"))
+				contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+		}
+		for(int i = 0; i < contentLength; i++) {
+			in.read();
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.get;
+import static org.springframework.http.embedded.HttpTestSupport.getStatus;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the routing of the requests by the trie of the context paths
+ * @author Amol Nayak
+ *
+ */
+public class ContextRouterTest {
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void routesToLongestContextPath() throws Exception {
+		startServer("/", "/shop", "/shop/admin", "/shopping");
+		assertEquals("/shop", get(port, "/shop/path"));
+		assertEquals("/shop/admin", get(port, "/shop/admin/path"));
+		assertEquals("/shopping", get(port, "/shopping/path"));
+		assertEquals("", get(port, "/path"));
+		assertEquals("/shop", get(port, "/shop/path/more"));
+		//Matched by whole segments only, the root context has nothing on this path
+		assertEquals(404, getStatus(port, "/shops/path"));
+	}
+
+	@Test
+	public void routesToHotDeployedContexts() throws Exception {
+		startServer("/first");
+		assertEquals(404, getStatus(port, "/second/path"));
+		server.deployApplication(createWebApplication("/second", new ContextPathServlet(), "/path/*"));
+		assertEquals("/second", get(port, "/second/path"));
+		assertTrue(server.undeployApplication("/first"));
+		assertEquals(404, getStatus(port, "/first/path"));
+		assertEquals("/second", get(port, "/second/path"));
+	}
+
+	private void startServer(String... contextPaths) throws Exception {
+		ServerConfig config = createConfig();
+		config.setContextRouting(ContextRouting.TRIE);
+		port = config.getStartupPort();
+		WebApplication[] webApps = new WebApplication[contextPaths.length];
+		for(int i = 0; i < contextPaths.length; i++) {
+			webApps[i] = createWebApplication(contextPaths[i], new ContextPathServlet(), "/path/*");
+		}
+		server = deployAndStart(config, webApps);
+	}
+
+	private static class ContextPathServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			resp.getWriter().write(req.getContextPath());
+		}
+	}
+}
@@ -15,10 +15,16 @@
  */
 package org.springframework.http.embedded;
 
+import static org.junit.Assert.assertEquals;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.getStatus;
+import static org.springframework.http.embedded.HttpTestSupport.loadContext;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
@@ -37,4 +43,18 @@ public class EmbeddedServerNamespaceTest {
 		logger.info("Started embedded server");
 		Thread.sleep(5000);
 	}
+	
+	@Test
+	public void listensOnAllListeners() throws Exception {
+		int port = getFreePort();
+		int listenerPort = getFreePort();
+		System.setProperty("test.listener.port", String.valueOf(listenerPort));
+		ClassPathXmlApplicationContext context = loadContext("listeners-test.xml", port);
+		try {
+			assertEquals(200, getStatus(port, "/test/hello"));
+			assertEquals(200, getStatus(listenerPort, "/test/hello"));
+		} finally {
+			context.close();
+		}
+	}
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.get;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.loadContext;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Tests the threads the requests are executed on in the platform thread pool and the virtual thread
+ * execution modes, on whichever JDK the build runs. The virtual thread mode falls back to the
+ * platform thread pool on the JDKs without virtual threads. The two modes are compared by the
+ * ExecutionModeBenchmark of the benchmarks module
+ * @author Amol Nayak
+ *
+ */
+public class ExecutionModeTest {
+
+	private static final Method IS_VIRTUAL_METHOD = ReflectionUtils.findMethod(Thread.class, "isVirtual");
+
+	@Test
+	public void detectsVirtualThreadsOfTheJdk() throws Exception {
+		String version = System.getProperty("java.specification.version");
+		boolean expected = !version.startsWith("1.") && Integer.parseInt(version) >= 21;
+		assertEquals(expected, VirtualThreads.isSupported());
+		if(VirtualThreads.isSupported()) {
+			ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+			try {
+				Thread thread = executor.submit(new Callable<Thread>() {
+					@Override
+					public Thread call() {
+						return Thread.currentThread();
+					}
+				}).get(10, TimeUnit.SECONDS);
+				assertTrue(isVirtual(thread));
+			} finally {
+				executor.shutdown();
+			}
+		} else {
+			try {
+				VirtualThreads.newVirtualThreadPerTaskExecutor();
+				fail("Expected the virtual thread executor to be unavailable");
+			} catch (IllegalStateException e) {
+				//expected
+			}
+		}
+	}
+
+	@Test
+	public void executesOnPlatformThreadPool() throws Exception {
+		String thread = getRequestThread(ExecutionMode.PLATFORM_THREADS);
+		assertTrue(thread, thread.startsWith("qtp"));
+		assertTrue(thread, thread.endsWith(" platform"));
+	}
+
+	@Test
+	public void executesOnVirtualThreadsOrFallsBack() throws Exception {
+		String thread = getRequestThread(ExecutionMode.VIRTUAL_THREADS);
+		if(VirtualThreads.isSupported()) {
+			assertFalse(thread, thread.startsWith("qtp"));
+			assertTrue(thread, thread.endsWith(" virtual"));
+		} else {
+			//The bounded pool of platform threads
+			assertTrue(thread, thread.startsWith("qtp"));
+			assertTrue(thread, thread.endsWith(" platform"));
+		}
+	}
+
+	@Test
+	public void executesOnThreadPoolConfiguredThroughNamespace() throws Exception {
+		int port = getFreePort();
+		ClassPathXmlApplicationContext context = loadContext("thread-pool-test.xml", port);
+		try {
+			String thread = get(port, "/test/thread");
+			assertTrue(thread, thread.startsWith("qtp"));
+			assertTrue(thread, thread.endsWith(" platform"));
+		} finally {
+			context.close();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMinThreadsAboveMaxThreads() {
+		ThreadPoolConfig poolConfig = new ThreadPoolConfig();
+		poolConfig.setMinThreads(300);
+		poolConfig.afterPropertiesSet();
+	}
+
+	/**
+	 * Gets the name and the kind of the thread a request is executed on by a server in the given mode
+	 */
+	private String getRequestThread(ExecutionMode mode) throws Exception {
+		ServerConfig config = createConfig();
+		config.setExecutionMode(mode);
+		EmbeddedServer server = deployAndStart(config, createWebApplication("/test", new ThreadServlet(), "/thread"));
+		try {
+			return get(config.getStartupPort(), "/test/thread");
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static boolean isVirtual(Thread thread) {
+		return IS_VIRTUAL_METHOD != null && (Boolean)ReflectionUtils.invokeMethod(IS_VIRTUAL_METHOD, thread);
+	}
+
+	/**
+	 * Writes the name of the thread executing the request and if it is a virtual one
+	 */
+	private static class ThreadServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			Thread thread = Thread.currentThread();
+			resp.getWriter().write(thread.getName() + (isVirtual(thread) ? " virtual" : " platform"));
+		}
+	}
+}
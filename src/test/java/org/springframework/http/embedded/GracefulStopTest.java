@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getStatus;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the requests in progress are drained when the server is stopped
+ * @author Amol Nayak
+ *
+ */
+public class GracefulStopTest {
+
+	private final CountDownLatch requestStarted = new CountDownLatch(1);
+
+	private final CountDownLatch releaseRequest = new CountDownLatch(1);
+
+	private final ExecutorService clients = Executors.newFixedThreadPool(2);
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		releaseRequest.countDown();
+		clients.shutdownNow();
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void drainsBeforeStopping() throws Exception {
+		startServer(30000);
+		Future<Integer> inFlight = sendSlowRequest();
+		Future<?> stopped = clients.submit(new Runnable() {
+			@Override
+			public void run() {
+				server.stop();
+			}
+		});
+		//No longer accepting while the request in progress is drained
+		long deadline = System.currentTimeMillis() + 10000;
+		while(true) {
+			try {
+				getStatus(port, "/app/path");
+			} catch (ConnectException e) {
+				break;
+			}
+			if(System.currentTimeMillis() > deadline)
+				fail("The server kept accepting connections while stopping");
+		}
+		assertFalse(stopped.isDone());
+
+		releaseRequest.countDown();
+		assertEquals(Integer.valueOf(200), inFlight.get(10, TimeUnit.SECONDS));
+		stopped.get(10, TimeUnit.SECONDS);
+		assertEquals(ServerRunStatus.STOPPED, server.getStatus());
+		ShutdownReport report = server.getShutdownReport();
+		//The probes sent while the connectors were being closed may be drained as well
+		assertTrue(report.getDrainedRequests() >= 1);
+		assertEquals(0, report.getAbortedRequests());
+	}
+
+	@Test
+	public void abortsAfterStopTimeout() throws Exception {
+		startServer(200);
+		sendSlowRequest();
+		long start = System.currentTimeMillis();
+		server.stop();
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		ShutdownReport report = server.getShutdownReport();
+		assertEquals(0, report.getDrainedRequests());
+		assertEquals(1, report.getAbortedRequests());
+	}
+
+	@Test
+	public void servesAgainWhenRestarted() throws Exception {
+		startServer(1000);
+		server.stop();
+		assertEquals(0, server.getShutdownReport().getDrainedRequests());
+		server.start();
+		assertEquals(ServerRunStatus.RUNNING, server.getStatus());
+		assertEquals(200, getStatus(port, "/app/path"));
+	}
+
+	private Future<Integer> sendSlowRequest() throws Exception {
+		Future<Integer> inFlight = clients.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				return getStatus(port, "/app/slow");
+			}
+		});
+		assertTrue(requestStarted.await(10, TimeUnit.SECONDS));
+		return inFlight;
+	}
+
+	private void startServer(long stopTimeout) throws Exception {
+		ServerConfig config = createConfig();
+		config.setStopTimeout(stopTimeout);
+		port = config.getStartupPort();
+		server = deployAndStart(config, createWebApplication("/app", new TestServlet(), "/*"));
+	}
+
+	private class TestServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			if(req.getRequestURI().endsWith("/slow")) {
+				requestStarted.countDown();
+				try {
+					releaseRequest.await(20, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			resp.getWriter().write("ok");
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getStatus;
+import static org.springframework.http.embedded.HttpTestSupport.open;
+import static org.springframework.http.embedded.HttpTestSupport.read;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the probes of the health of the server answered ahead of the web applications
+ * @author Amol Nayak
+ *
+ */
+public class HealthCheckTest {
+
+	private final CountDownLatch requestStarted = new CountDownLatch(1);
+
+	private final CountDownLatch releaseRequest = new CountDownLatch(1);
+
+	private final ExecutorService clients = Executors.newFixedThreadPool(2);
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		releaseRequest.countDown();
+		clients.shutdownNow();
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void reportsServerAndWebApplications() throws Exception {
+		startServer();
+		assertEquals("200 UP", probe("/health"));
+		assertEquals("200 UP", probe("/health/app"));
+		//Not a probe, routed to the web applications
+		assertEquals(404, getStatus(port, "/health/unknown"));
+		assertEquals(404, getStatus(port, "/healthy"));
+		assertEquals(200, getStatus(port, "/app/path"));
+
+		server.deployApplication(createWebApplication("/second", new TestServlet(), "/*"));
+		assertEquals("200 UP", probe("/health/second"));
+		assertTrue(server.undeployApplication("/second"));
+		assertEquals(404, getStatus(port, "/health/second"));
+		//Not counted as requests to the web applications
+		assertEquals(1, server.getStatistics().getTotal().getRequests());
+	}
+
+	@Test
+	public void reportsUnavailableWhileStopping() throws Exception {
+		startServer();
+		clients.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				return getStatus(port, "/app/slow");
+			}
+		});
+		assertTrue(requestStarted.await(10, TimeUnit.SECONDS));
+		//Leaves a connection open to probe once the server stops accepting
+		assertEquals("200 UP", probe("/health"));
+		clients.submit(new Runnable() {
+			@Override
+			public void run() {
+				server.stop();
+			}
+		});
+		long deadline = System.currentTimeMillis() + 10000;
+		while(!ServerRunStatus.STOPPING.equals(server.getStatus()) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals("503 STOPPING", probe("/health"));
+	}
+
+	private void startServer() throws Exception {
+		ServerConfig config = createConfig();
+		config.setHealthCheckPath("/health");
+		port = config.getStartupPort();
+		server = deployAndStart(config, createWebApplication("/app", new TestServlet(), "/*"));
+	}
+
+	/**
+	 * Gets the status and the body of the response
+	 */
+	private String probe(String path) throws IOException {
+		HttpURLConnection connection = open(port, path);
+		return connection.getResponseCode() + " " + read(connection).trim();
+	}
+
+	private class TestServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			if(req.getRequestURI().endsWith("/slow")) {
+				requestStarted.countDown();
+				try {
+					releaseRequest.await(20, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			resp.getWriter().write("ok");
+		}
+	}
+}
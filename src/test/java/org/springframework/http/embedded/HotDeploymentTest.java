@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getStatus;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the deployment and the undeployment of the web applications on a running server
+ * @author Amol Nayak
+ *
+ */
+public class HotDeploymentTest {
+
+	private final CountDownLatch requestStarted = new CountDownLatch(1);
+
+	private final CountDownLatch releaseRequest = new CountDownLatch(1);
+
+	private final ExecutorService clients = Executors.newFixedThreadPool(2);
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		releaseRequest.countDown();
+		clients.shutdownNow();
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void deploysOnRunningServer() throws Exception {
+		startServer(30000);
+		assertEquals(404, getStatus(port, "/second/path"));
+		server.deployApplication(createWebApplication("/second", new TestServlet(), "/path"));
+		assertEquals(200, getStatus(port, "/second/path"));
+		assertEquals(200, getStatus(port, "/first/path"));
+		assertFalse(server.undeployApplication("/unknown"));
+	}
+
+	@Test
+	public void drainsBeforeUndeploying() throws Exception {
+		startServer(30000);
+		server.deployApplication(createWebApplication("/slow", new BlockingServlet(), "/path"));
+		Future<Integer> inFlight = clients.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				return getStatus(port, "/slow/path");
+			}
+		});
+		assertTrue(requestStarted.await(10, TimeUnit.SECONDS));
+		Future<Boolean> undeployed = clients.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return server.undeployApplication("/slow");
+			}
+		});
+		//Rejected while the request in progress is drained
+		int status;
+		while((status = getStatus(port, "/slow/path")) == 200);
+		assertEquals(503, status);
+		assertFalse(undeployed.isDone());
+		assertEquals(200, getStatus(port, "/first/path"));
+
+		releaseRequest.countDown();
+		assertEquals(Integer.valueOf(200), inFlight.get(10, TimeUnit.SECONDS));
+		assertTrue(undeployed.get(10, TimeUnit.SECONDS));
+		assertEquals(404, getStatus(port, "/slow/path"));
+
+		//The context path can be used again
+		server.deployApplication(createWebApplication("/slow", new TestServlet(), "/path"));
+		assertEquals(200, getStatus(port, "/slow/path"));
+	}
+
+	@Test
+	public void undeploysAfterDrainTimeout() throws Exception {
+		startServer(200);
+		server.deployApplication(createWebApplication("/slow", new BlockingServlet(), "/path"));
+		clients.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				return getStatus(port, "/slow/path");
+			}
+		});
+		assertTrue(requestStarted.await(10, TimeUnit.SECONDS));
+		long start = System.currentTimeMillis();
+		assertTrue(server.undeployApplication("/slow"));
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertEquals(404, getStatus(port, "/slow/path"));
+	}
+
+	private void startServer(long drainTimeout) throws Exception {
+		ServerConfig config = createConfig();
+		config.setDrainTimeout(drainTimeout);
+		port = config.getStartupPort();
+		server = deployAndStart(config, createWebApplication("/first", new TestServlet(), "/path"));
+	}
+
+	private static class TestServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			resp.getWriter().write("ok");
+		}
+	}
+
+	private class BlockingServlet extends TestServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			requestStarted.countDown();
+			try {
+				releaseRequest.await(20, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			super.doGet(req, resp);
+		}
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.Collections;
+
+import javax.servlet.http.HttpServlet;
+
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * The helpers shared by the tests to start a server on a free port and to send it requests
+ * over the HTTP client of the JDK. The responses are read to the end so that the connections
+ * are kept alive for the next requests
+ *
+ * @author Amol Nayak
+ *
+ */
+public final class HttpTestSupport {
+
+	/**
+	 * The time in milliseconds a test waits for a response, long enough for a request the test
+	 * holds in the servlet on purpose
+	 */
+	public static final int READ_TIMEOUT = 20000;
+
+	/**
+	 * The system property giving the port to listen on to the fixtures of the namespace, used
+	 * as the placeholder ${test.port}
+	 */
+	public static final String PORT_PROPERTY = "test.port";
+
+	private HttpTestSupport() {
+	}
+
+	/**
+	 * Gets a port no server listens on currently
+	 * @return
+	 */
+	public static int getFreePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * Creates the configuration of a server listening on a free port
+	 * @return
+	 */
+	public static ServerConfig createConfig() throws IOException {
+		ServerConfig config = new ServerConfig();
+		config.setStartupPort(getFreePort());
+		return config;
+	}
+
+	/**
+	 * Loads the given fixture of the namespace, its server listening on the given port
+	 * @return
+	 */
+	public static ClassPathXmlApplicationContext loadContext(String location, int port) {
+		System.setProperty(PORT_PROPERTY, String.valueOf(port));
+		return new ClassPathXmlApplicationContext(location);
+	}
+
+	/**
+	 * Creates a web application on the given context path serving the given servlet on the
+	 * given url pattern
+	 * @return
+	 */
+	public static WebApplication createWebApplication(String contextPath, HttpServlet servlet, String urlPattern)
+			throws Exception {
+		WebApplication webApp = new WebApplication();
+		webApp.setServletMappings(Collections.singletonList(new ServletMapping(servlet, urlPattern)));
+		webApp.setContextPath(contextPath);
+		webApp.afterPropertiesSet();
+		return webApp;
+	}
+
+	/**
+	 * Initializes a jetty server with the given configuration, deploys the given web applications
+	 * and starts it
+	 * @return
+	 */
+	public static EmbeddedJettyServer deployAndStart(ServerConfig config, WebApplication... webApps) throws Exception {
+		EmbeddedJettyServer server = new EmbeddedJettyServer();
+		server.initialize(config);
+		for(WebApplication webApp:webApps) {
+			server.deployApplication(webApp);
+		}
+		server.start();
+		assertEquals(ServerRunStatus.RUNNING, server.getStatus());
+		return server;
+	}
+
+	/**
+	 * Opens a connection to the given path on the local server listening on the given port
+	 * @return
+	 */
+	public static HttpURLConnection open(int port, String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection)new URL("http://localhost:" + port + path).openConnection();
+		connection.setReadTimeout(READ_TIMEOUT);
+		return connection;
+	}
+
+	/**
+	 * Sends a GET request and reads its response to the end
+	 * @return the status of the response
+	 */
+	public static int getStatus(int port, String path) throws IOException {
+		HttpURLConnection connection = open(port, path);
+		readBytes(connection);
+		return connection.getResponseCode();
+	}
+
+	/**
+	 * Sends a GET request expected to succeed
+	 * @return the body of the response
+	 */
+	public static String get(int port, String path) throws IOException {
+		HttpURLConnection connection = open(port, path);
+		assertEquals(200, connection.getResponseCode());
+		return read(connection);
+	}
+
+	/**
+	 * Reads the body of the response as UTF-8 whatever its status
+	 * @return
+	 */
+	public static String read(HttpURLConnection connection) throws IOException {
+		return new String(readBytes(connection), "UTF-8");
+	}
+
+	/**
+	 * Reads the body of the response whatever its status, empty if the response has none
+	 * @return
+	 */
+	public static byte[] readBytes(HttpURLConnection connection) throws IOException {
+		int status = connection.getResponseCode();
+		InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+		return in == null ? new byte[0] : readBytes(in);
+	}
+
+	/**
+	 * Reads the given stream to its end and closes it
+	 * @return
+	 */
+	public static byte[] readBytes(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes the given content to the given file, replacing the file if it exists
+	 * @return
+	 */
+	public static File write(File file, byte[] content) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the web applications started on their first request
+ * @author Amol Nayak
+ *
+ */
+public class LazyContextTest {
+
+	private static final int CONCURRENT_REQUESTS = 10;
+
+	private final AtomicInteger initCount = new AtomicInteger();
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void startsOnFirstRequestOnce() throws Exception {
+		startServer();
+		assertEquals(0, initCount.get());
+		assertEquals(200, getStatus(port, "/eager/path"));
+		assertEquals(0, initCount.get());
+
+		ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+		try {
+			List<Future<Integer>> responses = new ArrayList<Future<Integer>>();
+			for(int i = 0; i < CONCURRENT_REQUESTS; i++) {
+				responses.add(clients.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						return getStatus(port, "/lazy/path");
+					}
+				}));
+			}
+			for(Future<Integer> response:responses) {
+				assertEquals(Integer.valueOf(200), response.get());
+			}
+		} finally {
+			clients.shutdownNow();
+		}
+		assertEquals(1, initCount.get());
+		assertEquals(200, getStatus(port, "/lazy/path"));
+		assertEquals(1, initCount.get());
+	}
+
+	@Test
+	public void startsAgainAfterRestart() throws Exception {
+		startServer();
+		assertEquals(200, getStatus(port, "/lazy/path"));
+		server.stop();
+		server.start();
+		assertEquals(ServerRunStatus.RUNNING, server.getStatus());
+		assertEquals(1, initCount.get());
+		assertEquals(200, getStatus(port, "/lazy/path"));
+		assertEquals(2, initCount.get());
+	}
+
+	private void startServer() throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		WebApplication lazy = createWebApplication("/lazy", new SlowStartingServlet(), "/path");
+		lazy.setLazy(true);
+		server = deployAndStart(config, createWebApplication("/eager", new TestServlet(), "/path"), lazy);
+	}
+
+	private static class TestServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			resp.getWriter().write("ok");
+		}
+	}
+
+	private class SlowStartingServlet extends TestServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void init() throws ServletException {
+			initCount.incrementAndGet();
+			try {
+				//Gives the concurrent first requests the time to pile up
+				Thread.sleep(500);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
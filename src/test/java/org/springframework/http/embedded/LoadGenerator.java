@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates load on a URL from the same process and records the latencies of the requests.
+ * <p>
+ * In the closed loop, a fixed number of clients send a request as soon as they received the response
+ * to the previous one, the rate is whatever the server sustains. In the open loop, the requests are
+ * sent at a fixed rate whatever the server sustains, the latency of a request is measured from the time
+ * it was due rather than the time it was sent so that a stalled server is not hidden by the requests
+ * the generator could not send meanwhile
+ *
+ * @author Amol Nayak
+ *
+ */
+public class LoadGenerator {
+
+	private final URL url;
+
+	private final int readTimeout;
+
+	public LoadGenerator(URL url, int readTimeout) {
+		this.url = url;
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * Sends the requests from the given number of clients for the given time in milliseconds
+	 * @return
+	 */
+	public LoadReport runClosedLoop(String name, int clients, long duration) throws Exception {
+		final LatencyHistogram latencies = new LatencyHistogram();
+		final AtomicLong errors = new AtomicLong();
+		final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(duration);
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for(int i = 0; i < clients; i++) {
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						byte[] buffer = new byte[8192];
+						while(System.nanoTime() < end) {
+							request(System.nanoTime(), buffer, latencies, errors);
+						}
+					}
+				}));
+			}
+			for(Future<?> future:futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return new LoadReport(name, "closed", clients, duration, latencies, errors.get());
+	}
+
+	/**
+	 * Sends the requests at the given rate per second for the given time in milliseconds, from up to
+	 * the given number of concurrent clients. The requests due while all the clients are busy wait for
+	 * one, their wait is part of their latency
+	 * @return
+	 */
+	public LoadReport runOpenLoop(String name, int rate, long duration, int clients) throws Exception {
+		final LatencyHistogram latencies = new LatencyHistogram();
+		final AtomicLong errors = new AtomicLong();
+		long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		long requests = rate * duration / 1000;
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		try {
+			long start = System.nanoTime();
+			for(long i = 0; i < requests; i++) {
+				final long due = start + i * interval;
+				long wait = due - System.nanoTime();
+				if(wait > 0)
+					TimeUnit.NANOSECONDS.sleep(wait);
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						request(due, new byte[8192], latencies, errors);
+					}
+				});
+			}
+			executor.shutdown();
+			executor.awaitTermination(duration + readTimeout, TimeUnit.MILLISECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+		return new LoadReport(name, "open", rate, duration, latencies, errors.get());
+	}
+
+	/**
+	 * Sends a request, recording its latency from the given time or counting it as an error
+	 * if it fails or is not answered with a 2xx status
+	 */
+	private void request(long start, byte[] buffer, LatencyHistogram latencies, AtomicLong errors) {
+		try {
+			HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+			connection.setReadTimeout(readTimeout);
+			int status = connection.getResponseCode();
+			InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			if(in != null) {
+				//Read to the end so that the connection is kept alive for the next request
+				while(in.read(buffer) != -1);
+				in.close();
+			}
+			if(status / 100 != 2)
+				errors.incrementAndGet();
+		} catch (IOException e) {
+			errors.incrementAndGet();
+		}
+		latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * The result of a run of the {@link LoadGenerator}, written as JSON so that the runs can be compared
+ * by the tooling. The latencies are in microseconds
+ *
+ * @author Amol Nayak
+ *
+ */
+public class LoadReport {
+
+	private final String name;
+
+	private final String loop;
+
+	private final int load;
+
+	private final long duration;
+
+	private final LatencyHistogram latencies;
+
+	private final long errors;
+
+	/**
+	 * @param name		the name of the run, the name of its report file
+	 * @param loop		closed or open
+	 * @param load		the number of clients of a closed loop, the rate of an open loop
+	 * @param duration	the time in milliseconds the load was generated for
+	 */
+	public LoadReport(String name, String loop, int load, long duration, LatencyHistogram latencies, long errors) {
+		this.name = name;
+		this.loop = loop;
+		this.load = load;
+		this.duration = duration;
+		this.latencies = latencies;
+		this.errors = errors;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the number of requests sent
+	 * @return
+	 */
+	public long getRequests() {
+		return latencies.getCount();
+	}
+
+	/**
+	 * Gets the fraction of the requests that failed or were not answered with a 2xx status
+	 * @return
+	 */
+	public double getErrorRate() {
+		long requests = latencies.getCount();
+		return requests == 0 ? 0 : (double)errors / requests;
+	}
+
+	/**
+	 * Gets the number of requests answered per second
+	 * @return
+	 */
+	public double getThroughput() {
+		return latencies.getCount() * 1000.0 / duration;
+	}
+
+	/**
+	 * Gets the latency in microseconds the given fraction of the requests were answered within
+	 * @return
+	 */
+	public long getLatency(double quantile) {
+		return latencies.getValueAtQuantile(quantile);
+	}
+
+	/**
+	 * Writes the report as JSON to a file named after the run in the given directory
+	 * @return the file written
+	 */
+	public File writeTo(File directory) throws IOException {
+		directory.mkdirs();
+		File file = new File(directory, name + ".json");
+		FileCopyUtils.copy(toJson().getBytes("UTF-8"), file);
+		return file;
+	}
+
+	public String toJson() {
+		return String.format(Locale.ENGLISH, "{\n"
+				+ "  \"name\": \"%s\",\n"
+				+ "  \"loop\": \"%s\",\n"
+				+ "  \"%s\": %d,\n"
+				+ "  \"durationMillis\": %d,\n"
+				+ "  \"requests\": %d,\n"
+				+ "  \"errors\": %d,\n"
+				+ "  \"errorRate\": %.6f,\n"
+				+ "  \"throughput\": %.1f,\n"
+				+ "  \"latencyMicros\": {\"mean\": %d, \"p50\": %d, \"p90\": %d, \"p99\": %d, \"p999\": %d, \"max\": %d}\n"
+				+ "}\n", name, loop, "open".equals(loop) ? "rate" : "clients", load, duration, getRequests(), errors,
+				getErrorRate(), getThroughput(), latencies.getMean(), getLatency(0.5), getLatency(0.9), getLatency(0.99),
+				getLatency(0.999), latencies.getMax());
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ENGLISH, "%s: %d requests, %.1f/s, %.4f errors, p50 %d us, p99 %d us, max %d us",
+				name, getRequests(), getThroughput(), getErrorRate(), getLatency(0.5), getLatency(0.99), latencies.getMax());
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+
+import java.io.File;
+import java.net.URL;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Generates load on a server started through the namespace on a free port and fails if the latency or the error
+ * rate exceed their budgets. The reports of the runs are written as JSON in target/load-reports.
+ * <p>
+ * The runs are short and the budgets generous so that the default build fails on a regression and
+ * not on a slow machine, they are set through the system properties load.duration (milliseconds),
+ * load.clients, load.rate (requests per second), load.p99 (milliseconds) and load.errorRate. The
+ * load-test profile runs this test alone, for the longer runs with stricter budgets
+ *
+ * @author Amol Nayak
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations="classpath:load-test.xml")
+public class LoadTest {
+
+	private static final long DURATION = Long.getLong("load.duration", 2000);
+
+	private static final int CLIENTS = Integer.getInteger("load.clients", 8);
+
+	private static final int RATE = Integer.getInteger("load.rate", 500);
+
+	private static final long P99_BUDGET = Long.getLong("load.p99", 100) * 1000;
+
+	private static final double ERROR_RATE_BUDGET = Double.parseDouble(System.getProperty("load.errorRate", "0.001"));
+
+	private static final File REPORTS = new File(System.getProperty("load.reports", "target/load-reports"));
+
+	private Log logger = LogFactory.getLog(LoadTest.class);
+
+	private static LoadGenerator generator;
+
+	/**
+	 * Runs before the application context is loaded, gives it the free port to listen on
+	 */
+	@BeforeClass
+	public static void createGenerator() throws Exception {
+		int port = getFreePort();
+		System.setProperty("load.port", String.valueOf(port));
+		generator = new LoadGenerator(new URL("http://127.0.0.1:" + port + "/load/hello"), 10000);
+	}
+
+	@Test
+	public void closedLoop() throws Exception {
+		generator.runClosedLoop("warmup-closed-loop", CLIENTS, DURATION / 2);
+		assertWithinBudget(generator.runClosedLoop("closed-loop", CLIENTS, DURATION));
+	}
+
+	@Test
+	public void openLoop() throws Exception {
+		generator.runOpenLoop("warmup-open-loop", RATE, DURATION / 2, CLIENTS * 4);
+		LoadReport report = generator.runOpenLoop("open-loop", RATE, DURATION, CLIENTS * 4);
+		assertWithinBudget(report);
+		//Every request due was answered before the generator gave up waiting
+		assertTrue("Answered " + report.getRequests() + " requests at " + RATE + "/s for " + DURATION + " ms",
+				report.getRequests() >= RATE * DURATION / 1000);
+	}
+
+	private void assertWithinBudget(LoadReport report) throws Exception {
+		File file = report.writeTo(REPORTS);
+		logger.info(report + ", written to " + file);
+		assertTrue("No requests sent in " + report.getName(), report.getRequests() > 0);
+		assertTrue("The error rate " + report.getErrorRate() + " of " + report.getName()
+				+ " exceeds the budget of " + ERROR_RATE_BUDGET, report.getErrorRate() <= ERROR_RATE_BUDGET);
+		assertTrue("The p99 latency " + report.getLatency(0.99) + " us of " + report.getName()
+				+ " exceeds the budget of " + P99_BUDGET + " us", report.getLatency(0.99) <= P99_BUDGET);
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.get;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the concurrent deployment and start of the web applications
+ * @author Amol Nayak
+ *
+ */
+public class ParallelDeploymentTest {
+
+	private static final int APPLICATIONS = 6;
+
+	private static final int PARALLELISM = 3;
+
+	private static final long INIT_TIME = 300;
+
+	private final AtomicInteger initializing = new AtomicInteger();
+
+	private final AtomicInteger maxInitializing = new AtomicInteger();
+
+	private EmbeddedServerFactory factory;
+
+	@After
+	public void destroyFactory() throws Exception {
+		if(factory != null)
+			factory.destroy();
+	}
+
+	@Test
+	public void startsApplicationsConcurrently() throws Exception {
+		ServerConfig config = createConfig();
+		List<WebApplication> webApps = new ArrayList<WebApplication>();
+		for(int i = 0; i < APPLICATIONS; i++) {
+			webApps.add(createWebApplication("/app" + i, new SlowStartingServlet(), "/path"));
+		}
+		factory = createFactory(config, webApps);
+		factory.afterPropertiesSet();
+		EmbeddedServer server = factory.getObject();
+		assertEquals(ServerRunStatus.RUNNING, server.getStatus());
+		assertTrue(maxInitializing.get() > 1);
+		assertTrue(maxInitializing.get() <= PARALLELISM);
+		for(int i = 0; i < APPLICATIONS; i++) {
+			assertEquals("/app" + i, get(config.getStartupPort(), "/app" + i + "/path"));
+		}
+	}
+
+	@Test
+	public void deploysRemainingApplicationsOnFailure() throws Exception {
+		ServerConfig config = createConfig();
+		List<WebApplication> webApps = new ArrayList<WebApplication>();
+		webApps.add(createWebApplication("/first", new SlowStartingServlet(), "/path"));
+		webApps.add(createWebApplication("/first", new SlowStartingServlet(), "/path"));
+		webApps.add(createWebApplication("/second", new SlowStartingServlet(), "/path"));
+		factory = createFactory(config, webApps);
+		try {
+			factory.afterPropertiesSet();
+			fail("Expected the duplicate context path to be rejected");
+		} catch (DuplicateContextPathException e) {
+			//expected
+		}
+		//Both the context paths are still registered, the duplicate one is rejected again
+		EmbeddedServer server = factory.getObject();
+		for(String contextPath:new String[]{"/first", "/second"}) {
+			try {
+				server.deployApplication(createWebApplication(contextPath, new SlowStartingServlet(), "/path"));
+				fail("Expected \"" + contextPath + "\" to be deployed");
+			} catch (DuplicateContextPathException e) {
+				//expected
+			}
+		}
+		server.deployApplication(createWebApplication("/third", new SlowStartingServlet(), "/path"));
+	}
+
+	private EmbeddedServerFactory createFactory(ServerConfig config, List<WebApplication> webApps) {
+		EmbeddedServerFactory factory = new EmbeddedServerFactory();
+		config.setDeploymentParallelism(PARALLELISM);
+		factory.setConfig(config);
+		factory.setType(EmbeddedServerType.JETTY);
+		factory.setWebApplications(webApps);
+		return factory;
+	}
+
+	private class SlowStartingServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void init() throws ServletException {
+			int current = initializing.incrementAndGet();
+			int max;
+			while(current > (max = maxInitializing.get()) && !maxInitializing.compareAndSet(max, current));
+			try {
+				//Simulates the start of a heavy application
+				Thread.sleep(INIT_TIME);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				initializing.decrementAndGet();
+			}
+		}
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			resp.getWriter().write(req.getContextPath());
+		}
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getStatus;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the statistics of the requests kept for the server and each of its web applications
+ * @author Amol Nayak
+ *
+ */
+public class RequestStatisticsTest {
+
+	private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void histogramQuantilesAreWithinBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(long value = 1; value <= 100000; value++) {
+			histogram.record(value);
+		}
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50000, histogram.getMean());
+		assertWithin(50000, histogram.getValueAtQuantile(0.5));
+		assertWithin(99000, histogram.getValueAtQuantile(0.99));
+		assertWithin(99900, histogram.getValueAtQuantile(0.999));
+		assertEquals(100000, histogram.getValueAtQuantile(1.0));
+
+		LatencyHistogram merged = new LatencyHistogram();
+		merged.record(0);
+		merged.add(histogram);
+		assertEquals(100001, merged.getCount());
+		assertEquals(0, merged.getValueAtQuantile(0));
+		assertEquals(100000, merged.getMax());
+	}
+
+	@Test
+	public void countsRequestsPerContext() throws Exception {
+		startServer("/first", "/second");
+		for(int i = 0; i < 10; i++) {
+			assertEquals(200, getStatus(port, "/first/path"));
+		}
+		assertEquals(404, getStatus(port, "/first/unknown"));
+		assertEquals(500, getStatus(port, "/second/path?fail=true"));
+		awaitRequests(12);
+		ServerStatistics statistics = server.getStatistics();
+		RequestStatistics first = statistics.getContext("/first");
+		assertEquals(11, first.getRequests());
+		assertEquals(10, first.getResponses2xx());
+		assertEquals(1, first.getResponses4xx());
+		assertEquals(0, first.getActiveRequests());
+		assertTrue(first.getLatency50thPercentile() <= first.getLatency99thPercentile());
+		assertTrue(first.getLatency99thPercentile() <= first.getLatency999thPercentile());
+		assertTrue(first.getLatency999thPercentile() <= first.getMaxLatency());
+		assertTrue(first.getMaxLatency() > 0);
+		RequestStatistics second = statistics.getContext("/second");
+		assertEquals(1, second.getRequests());
+		assertEquals(1, second.getResponses5xx());
+		RequestStatistics total = statistics.getTotal();
+		assertEquals(12, total.getRequests());
+		assertEquals(10, total.getResponses2xx());
+		assertEquals(1, total.getResponses4xx());
+		assertEquals(1, total.getResponses5xx());
+	}
+
+	@Test
+	public void publishesStatisticsOverJmx() throws Exception {
+		startServer("/first");
+		assertEquals(200, getStatus(port, "/first/path"));
+		awaitRequests(1);
+		ObjectName serverName = getName("EmbeddedServer", port, null);
+		ObjectName contextName = getName("WebApplication", port, "/first");
+		assertEquals(1L, mbeanServer.getAttribute(serverName, "Requests"));
+		assertEquals(1L, mbeanServer.getAttribute(contextName, "Responses2xx"));
+
+		server.deployApplication(createWebApplication("/second", new TestServlet(), "/path"));
+		ObjectName secondName = getName("WebApplication", port, "/second");
+		assertEquals(200, getStatus(port, "/second/path"));
+		awaitRequests(2);
+		assertEquals(1L, mbeanServer.getAttribute(secondName, "Requests"));
+		assertEquals(2L, mbeanServer.getAttribute(serverName, "Requests"));
+
+		assertTrue(server.undeployApplication("/second"));
+		assertFalse(mbeanServer.isRegistered(secondName));
+		server.stop();
+		server = null;
+		assertFalse(mbeanServer.isRegistered(serverName));
+		assertFalse(mbeanServer.isRegistered(contextName));
+	}
+
+	@Test
+	public void namesStatisticsAfterPortBound() throws Exception {
+		ObjectName pattern = new ObjectName("org.springframework.http.embedded:type=EmbeddedServer,*");
+		//The servers of the other tests may still be published
+		Set<ObjectName> published = mbeanServer.queryNames(pattern, null);
+		ServerConfig config = createConfig();
+		config.setStartupPort(0);
+		server = deployAndStart(config, createWebApplication("/first", new TestServlet(), "/path"));
+		ServerConfig otherConfig = createConfig();
+		otherConfig.setStartupPort(0);
+		EmbeddedJettyServer other = deployAndStart(otherConfig, createWebApplication("/first", new TestServlet(), "/path"));
+		try {
+			Set<ObjectName> names = mbeanServer.queryNames(pattern, null);
+			names.removeAll(published);
+			assertEquals(2, names.size());
+			Set<String> ports = new HashSet<String>();
+			for(ObjectName name:names) {
+				assertEquals("0.0.0.0", ObjectName.unquote(name.getKeyProperty("host")));
+				ports.add(name.getKeyProperty("port"));
+			}
+			assertEquals(2, ports.size());
+			assertFalse(ports.contains("0"));
+		} finally {
+			other.stop();
+		}
+	}
+
+	@Test
+	public void failsToStartWhenStatisticsCannotBePublished() throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		ObjectName serverName = getName("EmbeddedServer", port, null);
+		mbeanServer.registerMBean(new RequestStatistics(0, new long[5], new LatencyHistogram()), serverName);
+		try {
+			server = new EmbeddedJettyServer();
+			server.initialize(config);
+			server.deployApplication(createWebApplication("/first", new TestServlet(), "/path"));
+			try {
+				server.startAsync().get(10, TimeUnit.SECONDS);
+				fail("Started though its statistics could not be published");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof InstanceAlreadyExistsException);
+			}
+			assertEquals(ServerRunStatus.FAILED, server.getStatus());
+			assertFalse(mbeanServer.isRegistered(getName("WebApplication", port, "/first")));
+			//The ports are closed, the server can be started again on them
+			new ServerSocket(port).close();
+		} finally {
+			mbeanServer.unregisterMBean(serverName);
+		}
+	}
+
+	/**
+	 * Gets the name of the MBean of the given type published by the server on the given port,
+	 * for the given context path if any
+	 * @return
+	 */
+	private ObjectName getName(String type, int port, String contextPath) throws MalformedObjectNameException {
+		return new ObjectName("org.springframework.http.embedded:type=" + type + ",host=" + ObjectName.quote("0.0.0.0") 
+				+ ",port=" + port + (contextPath == null ? "" : ",context=" + ObjectName.quote(contextPath)));
+	}
+
+	/**
+	 * Waits for the given number of requests to be recorded, the client can receive a response
+	 * before the server is done with the request
+	 */
+	private void awaitRequests(long requests) throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		while(server.getStatistics().getTotal().getRequests() < requests && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+	}
+
+	private void assertWithin(long expected, long actual) {
+		assertTrue("Expected about " + expected + " but was " + actual, 
+				Math.abs(actual - expected) <= expected / 32 + 1);
+	}
+
+	private void startServer(String... contextPaths) throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		WebApplication[] webApps = new WebApplication[contextPaths.length];
+		for(int i = 0; i < contextPaths.length; i++) {
+			webApps[i] = createWebApplication(contextPaths[i], new TestServlet(), "/path");
+		}
+		server = deployAndStart(config, webApps);
+	}
+
+	private static class TestServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			if(req.getParameter("fail") != null)
+				resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			else
+				resp.getWriter().write("ok");
+		}
+	}
+}
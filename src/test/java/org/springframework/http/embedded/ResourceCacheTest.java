@@ -0,0 +1,179 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.loadContext;
+import static org.springframework.http.embedded.HttpTestSupport.read;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.http.embedded.jetty.StaticResourceCache;
+
+/**
+ * Tests the in memory cache of the static files of a web application deployed from a web app root
+ * @author Amol Nayak
+ *
+ */
+public class ResourceCacheTest {
+
+	@Rule
+	public TemporaryFolder webAppRoot = new TemporaryFolder();
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void servesHotFilesFromMemory() throws Exception {
+		write("app.css", "body { margin: 0; }");
+		StaticResourceCache cache = startServer(new ResourceCacheConfig());
+
+		HttpURLConnection connection = open("/app.css");
+		assertEquals(200, connection.getResponseCode());
+		assertEquals("body { margin: 0; }", read(connection));
+		String eTag = connection.getHeaderField("ETag");
+		assertNotNull(eTag);
+		long misses = cache.getMisses();
+		long hits = cache.getHits();
+
+		connection = open("/app.css");
+		assertEquals("body { margin: 0; }", read(connection));
+		assertEquals(eTag, connection.getHeaderField("ETag"));
+		assertEquals(misses, cache.getMisses());
+		assertEquals(hits + 1, cache.getHits());
+		assertEquals(1, cache.getCachedFiles());
+
+		connection = open("/app.css");
+		connection.setRequestProperty("If-None-Match", eTag);
+		assertEquals(304, connection.getResponseCode());
+
+		connection = open("/app.css");
+		connection.setIfModifiedSince(new File(webAppRoot.getRoot(), "app.css").lastModified());
+		assertEquals(304, connection.getResponseCode());
+	}
+
+	@Test
+	public void detectsChangedFiles() throws Exception {
+		File file = write("app.js", "var version = 1;");
+		ResourceCacheConfig cacheConfig = new ResourceCacheConfig();
+		cacheConfig.setCheckInterval(0);
+		StaticResourceCache cache = startServer(cacheConfig);
+
+		HttpURLConnection connection = open("/app.js");
+		assertEquals("var version = 1;", read(connection));
+		String eTag = connection.getHeaderField("ETag");
+
+		long lastModified = file.lastModified();
+		write("app.js", "var version = 22;");
+		file.setLastModified(lastModified + 2000);
+		connection = open("/app.js");
+		connection.setRequestProperty("If-None-Match", eTag);
+		assertEquals(200, connection.getResponseCode());
+		assertEquals("var version = 22;", read(connection));
+		assertTrue(!eTag.equals(connection.getHeaderField("ETag")));
+		assertEquals(1, cache.getCachedFiles());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedFiles() throws Exception {
+		String content = "0123456789012345678901234567890123456789";
+		write("first.txt", content);
+		write("second.txt", content);
+		write("third.txt", content);
+		write("large.txt", content + content + content);
+		ResourceCacheConfig cacheConfig = new ResourceCacheConfig();
+		cacheConfig.setMaxSize(100);
+		cacheConfig.setMaxFileSize(50);
+		StaticResourceCache cache = startServer(cacheConfig);
+
+		assertEquals(content, read(open("/first.txt")));
+		assertEquals(content, read(open("/second.txt")));
+		assertEquals(content, read(open("/first.txt")));
+		assertEquals(content, read(open("/third.txt")));
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, cache.getCachedFiles());
+		assertEquals(80, cache.getCachedBytes());
+
+		//The second one was the least recently used
+		long misses = cache.getMisses();
+		assertEquals(content, read(open("/first.txt")));
+		assertEquals(misses, cache.getMisses());
+		assertEquals(content, read(open("/second.txt")));
+		assertEquals(misses + 1, cache.getMisses());
+
+		//Too large to be cached
+		assertEquals(content + content + content, read(open("/large.txt")));
+		assertEquals(2, cache.getCachedFiles());
+	}
+
+	@Test
+	public void configuredThroughNamespace() throws Exception {
+		write("app.css", "body { margin: 0; }");
+		System.setProperty("test.webapp.root", webAppRoot.getRoot().getAbsolutePath());
+		port = getFreePort();
+		ClassPathXmlApplicationContext context = loadContext("resource-cache-test.xml", port);
+		try {
+			EmbeddedJettyServer embeddedServer = (EmbeddedJettyServer)context.getBean(EmbeddedServer.class);
+			StaticResourceCache cache = embeddedServer.getResourceCache("/cached");
+			assertNotNull(cache);
+			assertEquals("body { margin: 0; }", read(HttpTestSupport.open(port, "/cached/app.css")));
+			long hits = cache.getHits();
+			assertEquals("body { margin: 0; }", read(HttpTestSupport.open(port, "/cached/app.css")));
+			assertEquals(hits + 1, cache.getHits());
+			assertEquals(1, cache.getCachedFiles());
+		} finally {
+			context.close();
+		}
+	}
+
+	private StaticResourceCache startServer(ResourceCacheConfig cacheConfig) throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		WebApplication webApp = new WebApplication();
+		webApp.setWebAppRoot(webAppRoot.getRoot().getAbsolutePath());
+		webApp.setContextPath("/static");
+		webApp.setResourceCacheConfig(cacheConfig);
+		webApp.afterPropertiesSet();
+		server = deployAndStart(config, webApp);
+		return server.getResourceCache("/static");
+	}
+
+	private HttpURLConnection open(String path) throws IOException {
+		return HttpTestSupport.open(port, "/static" + path);
+	}
+
+	private File write(String name, String content) throws IOException {
+		return HttpTestSupport.write(new File(webAppRoot.getRoot(), name), content.getBytes("UTF-8"));
+	}
+}
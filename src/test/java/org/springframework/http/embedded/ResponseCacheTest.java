@@ -0,0 +1,337 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.loadContext;
+import static org.springframework.http.embedded.HttpTestSupport.open;
+import static org.springframework.http.embedded.HttpTestSupport.read;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.http.embedded.jetty.ResponseCache;
+
+/**
+ * Tests the cache of the responses of a servlet mapping
+ * @author Amol Nayak
+ *
+ */
+public class ResponseCacheTest {
+
+	private static final long LAST_MODIFIED = 1000000000000L;
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private final CountDownLatch releaseRequest = new CountDownLatch(1);
+
+	private final ExecutorService clients = Executors.newFixedThreadPool(4);
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		releaseRequest.countDown();
+		clients.shutdownNow();
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void servesRepeatedRequestsFromCache() throws Exception {
+		ResponseCache cache = startServer(new ResponseCacheConfig());
+		HttpURLConnection first = get("/app/data?id=1", null);
+		assertEquals("1", read(first));
+		assertNull(first.getHeaderField("Age"));
+		HttpURLConnection second = get("/app/data?id=1", null);
+		assertEquals("1", read(second));
+		assertEquals("0", second.getHeaderField("Age"));
+		assertEquals("text/plain;charset=UTF-8", second.getContentType().replace(" ", ""));
+		assertEquals("public", second.getHeaderField("Cache-Control"));
+		assertEquals(1, calls.get());
+		//Another URL, a method other than GET and a request with credentials go to the servlet
+		assertEquals("2", read(get("/app/data?id=2", null)));
+		HttpURLConnection post = open(port, "/app/data?id=1");
+		post.setRequestMethod("POST");
+		assertEquals("3", read(post));
+		HttpURLConnection authorized = open(port, "/app/data?id=1");
+		authorized.setRequestProperty("Authorization", "Basic dXNlcjpwYXNz");
+		assertEquals("4", read(authorized));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(2, cache.getCachedResponses());
+	}
+
+	@Test
+	public void cachesApartForEachHost() throws Exception {
+		startServer(new ResponseCacheConfig());
+		assertEquals("1", read(get("/app/data", null)));
+		HttpURLConnection otherHost = (HttpURLConnection)new URL("http://127.0.0.1:" + port + "/app/data").openConnection();
+		assertEquals("2", read(otherHost));
+		assertEquals("1", read(get("/app/data", null)));
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void answersConditionalRequestsFromCache() throws Exception {
+		startServer(new ResponseCacheConfig());
+		assertEquals("1", read(get("/app/validated", null)));
+		HttpURLConnection matching = get("/app/validated", null);
+		matching.setRequestProperty("If-None-Match", "\"v0\", W/\"v1\"");
+		assertEquals(304, matching.getResponseCode());
+		assertEquals("\"v1\"", matching.getHeaderField("ETag"));
+		assertEquals("public", matching.getHeaderField("Cache-Control"));
+		HttpURLConnection notMatching = get("/app/validated", null);
+		notMatching.setRequestProperty("If-None-Match", "\"v2\"");
+		//The If-Modified-Since header is ignored along with an If-None-Match header
+		notMatching.setIfModifiedSince(LAST_MODIFIED);
+		assertEquals(200, notMatching.getResponseCode());
+		assertEquals("1", read(notMatching));
+
+		HttpURLConnection notModified = get("/app/validated", null);
+		notModified.setIfModifiedSince(LAST_MODIFIED);
+		assertEquals(304, notModified.getResponseCode());
+		HttpURLConnection modified = get("/app/validated", null);
+		modified.setIfModifiedSince(LAST_MODIFIED - 1000);
+		assertEquals(200, modified.getResponseCode());
+		assertEquals("1", read(modified));
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void bypassesCacheForNoCacheRequests() throws Exception {
+		ResponseCache cache = startServer(new ResponseCacheConfig());
+		assertEquals("1", read(get("/app/data", null)));
+		HttpURLConnection reload = get("/app/data", null);
+		reload.setRequestProperty("Cache-Control", "no-cache");
+		assertEquals("2", read(reload));
+		//Cached in place of the previous response
+		assertEquals("2", read(get("/app/data", null)));
+		HttpURLConnection pragma = get("/app/data", null);
+		pragma.setRequestProperty("Pragma", "no-cache");
+		assertEquals("3", read(pragma));
+		assertEquals(3, calls.get());
+		assertEquals(1, cache.getCachedResponses());
+	}
+
+	@Test
+	public void expiresAfterTimeToLive() throws Exception {
+		ResponseCacheConfig config = new ResponseCacheConfig();
+		config.setTtl(1);
+		startServer(config);
+		assertEquals("1", read(get("/app/data", null)));
+		assertEquals("1", read(get("/app/data", null)));
+		Thread.sleep(1100);
+		assertEquals("2", read(get("/app/data", null)));
+	}
+
+	@Test
+	public void cachesApartForEachVariant() throws Exception {
+		ResponseCache cache = startServer(new ResponseCacheConfig());
+		assertEquals("1 en", read(get("/app/vary", "en")));
+		assertEquals("2 fr", read(get("/app/vary", "fr")));
+		assertEquals("1 en", read(get("/app/vary", "en")));
+		assertEquals("2 fr", read(get("/app/vary", "fr")));
+		assertEquals(2, calls.get());
+		//The two variants and the names of the headers they vary on
+		assertEquals(3, cache.getCachedResponses());
+	}
+
+	@Test
+	public void evictsVaryNamesWithResponses() throws Exception {
+		ResponseCacheConfig config = new ResponseCacheConfig();
+		config.setMaxSize(64);
+		ResponseCache cache = startServer(config);
+		for(int i = 0; i < 50; i++) {
+			read(get("/app/vary?id=" + i, "en"));
+		}
+		assertTrue(cache.getEvictions() > 0);
+		assertTrue(cache.getCachedBytes() <= 64);
+		assertTrue(cache.getCachedResponses() < 10);
+	}
+
+	@Test
+	public void doesNotCacheResponsesSettingCookies() throws Exception {
+		ResponseCache cache = startServer(new ResponseCacheConfig());
+		assertEquals("1", read(get("/app/cookie", null)));
+		assertEquals("2", read(get("/app/cookie", null)));
+		assertEquals(0, cache.getCachedResponses());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() throws Exception {
+		ResponseCacheConfig config = new ResponseCacheConfig();
+		config.setMaxSize(2);
+		ResponseCache cache = startServer(config);
+		assertEquals("1", read(get("/app/data?id=a", null)));
+		assertEquals("2", read(get("/app/data?id=b", null)));
+		assertEquals("1", read(get("/app/data?id=a", null)));
+		assertEquals("3", read(get("/app/data?id=c", null)));
+		assertEquals(1, cache.getEvictions());
+		//The least recently used one was evicted
+		assertEquals("1", read(get("/app/data?id=a", null)));
+		assertEquals("4", read(get("/app/data?id=b", null)));
+		assertTrue(cache.getCachedBytes() <= 2);
+	}
+
+	@Test
+	public void coalescesRequestsForSameResponse() throws Exception {
+		final ResponseCache cache = startServer(new ResponseCacheConfig());
+		List<Future<String>> responses = new ArrayList<Future<String>>();
+		for(int i = 0; i < 4; i++) {
+			responses.add(clients.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return read(get("/app/slow", null));
+				}
+			}));
+		}
+		long deadline = System.currentTimeMillis() + 10000;
+		while(cache.getCoalesced() < 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(3, cache.getCoalesced());
+		releaseRequest.countDown();
+		for(Future<String> response:responses) {
+			assertEquals("1", response.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, calls.get());
+		assertEquals(1, cache.getMisses());
+		assertEquals(3, cache.getHits());
+	}
+
+	@Test
+	public void stopsWaitingForHungRequest() throws Exception {
+		ResponseCacheConfig config = new ResponseCacheConfig();
+		config.setCoalescingTimeout(200);
+		ResponseCache cache = startServer(config);
+		Future<String> hung = clients.submit(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return read(get("/app/hang", null));
+			}
+		});
+		long deadline = System.currentTimeMillis() + 10000;
+		while(calls.get() < 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		//Calls the servlet itself once it waited for the coalescing timeout
+		assertEquals("2", read(get("/app/hang", null)));
+		assertEquals(1, cache.getCoalesced());
+		releaseRequest.countDown();
+		assertEquals("1", hung.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void configuredThroughNamespace() throws Exception {
+		port = getFreePort();
+		ClassPathXmlApplicationContext context = loadContext("response-cache-test.xml", port);
+		try {
+			EmbeddedJettyServer embeddedServer = (EmbeddedJettyServer)context.getBean(EmbeddedServer.class);
+			ResponseCache cache = embeddedServer.getResponseCache("/cached", "/hello");
+			assertNotNull(cache);
+			String body = read(get("/cached/hello", null));
+			assertEquals(body, read(get("/cached/hello", null)));
+			assertEquals(1, cache.getHits());
+			assertEquals(1, cache.getCachedResponses());
+		} finally {
+			context.close();
+		}
+	}
+
+	private ResponseCache startServer(ResponseCacheConfig cacheConfig) throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		WebApplication webApp = createWebApplication("/app", new TestServlet(), "/*");
+		webApp.getServletMappings().get(0).setResponseCacheConfig(cacheConfig);
+		server = deployAndStart(config, webApp);
+		ResponseCache cache = server.getResponseCache("/app", "/*");
+		assertNotNull(cache);
+		return cache;
+	}
+
+	private HttpURLConnection get(String path, String language) throws IOException {
+		HttpURLConnection connection = open(port, path);
+		if(language != null)
+			connection.setRequestProperty("Accept-Language", language);
+		return connection;
+	}
+
+	private class TestServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			int call = calls.incrementAndGet();
+			String uri = req.getRequestURI();
+			if(uri.endsWith("/slow") || (uri.endsWith("/hang") && call == 1)) {
+				try {
+					releaseRequest.await(20, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			} else if(uri.endsWith("/vary")) {
+				resp.setHeader("Vary", "Accept-Language");
+				resp.getWriter().write(call + " " + req.getHeader("Accept-Language"));
+				return;
+			} else if(uri.endsWith("/cookie")) {
+				resp.addCookie(new Cookie("visit", String.valueOf(call)));
+			} else if(uri.endsWith("/validated")) {
+				resp.setHeader("ETag", "\"v1\"");
+				resp.setDateHeader("Last-Modified", LAST_MODIFIED);
+			}
+			resp.setContentType("text/plain");
+			resp.setCharacterEncoding("UTF-8");
+			resp.setHeader("Cache-Control", "public");
+			resp.getWriter().write(String.valueOf(call));
+		}
+
+		@Override
+		protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			doGet(req, resp);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.loadContext;
+import static org.springframework.http.embedded.HttpTestSupport.read;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.http.embedded.jetty.BoundedSessionManager;
+
+/**
+ * Tests the bounded store of the HTTP sessions of a web application
+ * @author Amol Nayak
+ *
+ */
+public class SessionStoreTest {
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedSessions() throws Exception {
+		SessionStoreConfig storeConfig = new SessionStoreConfig();
+		storeConfig.setMaxSessions(3);
+		BoundedSessionManager sessionManager = startServer(storeConfig);
+		String first = createSession();
+		String second = createSession();
+		String third = createSession();
+		assertEquals(3, sessionManager.getSessions());
+		//The second one becomes the least recently used
+		assertEquals("existing", get(first));
+		createSession();
+		assertEquals(3, sessionManager.getSessions());
+		assertEquals(1, sessionManager.getEvictions());
+		assertEquals("existing", get(first));
+		assertEquals("existing", get(third));
+		assertEquals("new", get(second));
+	}
+
+	@Test
+	public void scavengesIdleSessions() throws Exception {
+		SessionStoreConfig storeConfig = new SessionStoreConfig();
+		storeConfig.setMaxInactiveInterval(1);
+		storeConfig.setScavengePeriod(1);
+		BoundedSessionManager sessionManager = startServer(storeConfig);
+		createSession();
+		createSession();
+		assertEquals(2, sessionManager.getSessions());
+		long end = System.currentTimeMillis() + 10000;
+		while(sessionManager.getSessions() > 0 && System.currentTimeMillis() < end) {
+			Thread.sleep(100);
+		}
+		assertEquals(0, sessionManager.getSessions());
+		assertEquals(0, sessionManager.getEvictions());
+	}
+
+	@Test
+	public void estimatesBytesOfSessions() throws Exception {
+		BoundedSessionManager sessionManager = startServer(new SessionStoreConfig());
+		assertEquals(0, sessionManager.getEstimatedBytes());
+		createSession();
+		long oneSession = sessionManager.getEstimatedBytes();
+		assertTrue(oneSession > 0);
+		get(createSession(), "?data=" + new String(new char[2000]).replace('\0', 'x'));
+		assertTrue(sessionManager.getEstimatedBytes() > 2 * oneSession + 4000);
+	}
+
+	@Test
+	public void configuredThroughNamespace() throws Exception {
+		port = getFreePort();
+		ClassPathXmlApplicationContext context = loadContext("session-store-test.xml", port);
+		try {
+			EmbeddedJettyServer embeddedServer = (EmbeddedJettyServer)context.getBean(EmbeddedServer.class);
+			BoundedSessionManager sessionManager = embeddedServer.getSessionManager("/test");
+			assertNotNull(sessionManager);
+			assertEquals(2, sessionManager.getSessionLimit());
+			String first = createSession();
+			createSession();
+			createSession();
+			assertEquals(1, sessionManager.getEvictions());
+			assertEquals("new", get(first));
+		} finally {
+			context.close();
+		}
+	}
+
+	private BoundedSessionManager startServer(SessionStoreConfig storeConfig) throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		WebApplication webApp = createWebApplication("/test", new SessionServlet(), "/session");
+		webApp.setSessions(true);
+		webApp.setSessionStoreConfig(storeConfig);
+		server = deployAndStart(config, webApp);
+		BoundedSessionManager sessionManager = server.getSessionManager("/test");
+		assertNotNull(sessionManager);
+		return sessionManager;
+	}
+
+	/**
+	 * Creates a new session, returns its cookie
+	 */
+	private String createSession() throws IOException {
+		HttpURLConnection connection = open(null, "");
+		assertEquals(200, connection.getResponseCode());
+		read(connection);
+		String cookie = connection.getHeaderField("Set-Cookie");
+		assertNotNull(cookie);
+		return cookie.substring(0, cookie.indexOf(';'));
+	}
+
+	private String get(String cookie) throws IOException {
+		return get(cookie, "");
+	}
+
+	private String get(String cookie, String query) throws IOException {
+		HttpURLConnection connection = open(cookie, query);
+		assertEquals(200, connection.getResponseCode());
+		return read(connection);
+	}
+
+	private HttpURLConnection open(String cookie, String query) throws IOException {
+		HttpURLConnection connection = HttpTestSupport.open(port, "/test/session" + query);
+		if(cookie != null)
+			connection.setRequestProperty("Cookie", cookie);
+		return connection;
+	}
+
+	/**
+	 * Tells if the session of the request is a new one, stores the data parameter in it
+	 */
+	private static class SessionServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			HttpSession session = req.getSession(true);
+			if(req.getParameter("data") != null)
+				session.setAttribute("data", req.getParameter("data"));
+			resp.getWriter().write(session.isNew() ? "new" : "existing");
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getStatus;
+import static org.springframework.http.embedded.HttpTestSupport.open;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the servlet mappings deployed with and without the support for sessions, the throughput
+ * of the two is compared by the sessions parameter of the RequestBenchmark of the benchmarks
+ * @author Amol Nayak
+ *
+ */
+public class SessionlessContextTest {
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void servletMappingsAreStatelessByDefault() throws Exception {
+		startServer(new WebApplication(), new SessionServlet());
+		assertEquals(200, getStatus(port, "/test/stateless"));
+		assertEquals(500, getStatus(port, "/test/session"));
+	}
+
+	@Test
+	public void servletMappingsSupportSessionsWhenAsked() throws Exception {
+		WebApplication webApp = new WebApplication();
+		webApp.setSessions(true);
+		startServer(webApp, new SessionServlet());
+		HttpURLConnection connection = open(port, "/test/session");
+		assertEquals(200, connection.getResponseCode());
+		assertNotNull(connection.getHeaderField("Set-Cookie"));
+		connection = open(port, "/test/stateless");
+		assertEquals(200, connection.getResponseCode());
+		assertNull(connection.getHeaderField("Set-Cookie"));
+	}
+
+	private void startServer(WebApplication webApp, HttpServlet servlet) throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		webApp.setServletMappings(Collections.singletonList(new ServletMapping(servlet, "/*")));
+		webApp.setContextPath("/test");
+		webApp.afterPropertiesSet();
+		server = deployAndStart(config, webApp);
+	}
+
+	/**
+	 * Creates a session on /session only, like a stateless endpoint on any other path
+	 */
+	private static class SessionServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+				throws ServletException, IOException {
+			if("/session".equals(req.getPathInfo()))
+				req.getSession(true);
+			resp.getWriter().write("ok");
+		}
+	}
+}
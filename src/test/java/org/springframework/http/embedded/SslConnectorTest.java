@@ -0,0 +1,171 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.getFreePort;
+import static org.springframework.http.embedded.HttpTestSupport.loadContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.security.KeyStore;
+import java.util.Arrays;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * Tests the SSL connector of the embedded jetty server with a self signed key store and
+ * compares the rate of the full handshakes with the rate of the resumed ones
+ * @author Amol Nayak
+ *
+ */
+public class SslConnectorTest {
+
+	private static final int HANDSHAKES = 50;
+	private static final String KEY_STORE_PASSWORD = "changeit";
+
+	private Log logger = LogFactory.getLog(SslConnectorTest.class);
+
+	private EmbeddedServer server;
+	private int port;
+	private KeyStore trustStore;
+
+	@Before
+	public void startServer() throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		config.setSslSupported(true);
+		SslConfig sslConfig = new SslConfig();
+		sslConfig.setKeyStore("classpath:test-keystore.jks");
+		sslConfig.setKeyStorePassword(KEY_STORE_PASSWORD);
+		//Sessions of TLSv1.2 are resumed by their id
+		sslConfig.setIncludeProtocols(new String[]{"TLSv1.2"});
+		sslConfig.setSessionCacheSize(100);
+		sslConfig.setSessionTimeout(60);
+		config.setSslConfig(sslConfig);
+		server = deployAndStart(config, createWebApplication("/test", new TestHttpServlet(), "/hello"));
+
+		trustStore = KeyStore.getInstance("JKS");
+		InputStream in = getClass().getResourceAsStream("/test-keystore.jks");
+		try {
+			trustStore.load(in, KEY_STORE_PASSWORD.toCharArray());
+		} finally {
+			in.close();
+		}
+	}
+
+	@After
+	public void stopServer() {
+		server.stop();
+	}
+
+	@Test
+	public void resumesSessionsOfRepeatClients() throws Exception {
+		//Warm up both the paths
+		SSLContext warmUpContext = newClientContext();
+		for(int i = 0; i < HANDSHAKES; i++) {
+			request(newClientContext());
+			request(warmUpContext);
+		}
+
+		long start = System.nanoTime();
+		byte[] previousId = null;
+		for(int i = 0; i < HANDSHAKES; i++) {
+			byte[] sessionId = request(newClientContext());
+			if(previousId != null)
+				assertFalse(Arrays.equals(previousId, sessionId));
+			previousId = sessionId;
+		}
+		long fullHandshakeTime = System.nanoTime() - start;
+
+		SSLContext clientContext = newClientContext();
+		byte[] firstId = request(clientContext);
+		start = System.nanoTime();
+		for(int i = 0; i < HANDSHAKES; i++) {
+			assertTrue(Arrays.equals(firstId, request(clientContext)));
+		}
+		long resumedHandshakeTime = System.nanoTime() - start;
+
+		logger.info("Full handshakes per second: " + rate(fullHandshakeTime)
+				+ ", resumed handshakes per second: " + rate(resumedHandshakeTime));
+	}
+
+	@Test
+	public void configuredThroughNamespace() throws Exception {
+		port = getFreePort();
+		ClassPathXmlApplicationContext context = loadContext("ssl-test.xml", port);
+		try {
+			SSLContext clientContext = newClientContext();
+			byte[] sessionId = request(clientContext);
+			assertTrue(Arrays.equals(sessionId, request(clientContext)));
+		} finally {
+			context.close();
+		}
+	}
+
+	private long rate(long nanos) {
+		return HANDSHAKES * 1000000000L / Math.max(nanos, 1);
+	}
+
+	/**
+	 * A new client context has no cached sessions and hence will always do a full handshake
+	 */
+	private SSLContext newClientContext() throws Exception {
+		TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trustManagerFactory.init(trustStore);
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(null, trustManagerFactory.getTrustManagers(), null);
+		return context;
+	}
+
+	/**
+	 * Requests the servlet on a new connection and returns the id of the SSL session used
+	 */
+	private byte[] request(SSLContext context) throws IOException {
+		SSLSocket socket = (SSLSocket)context.getSocketFactory().createSocket("localhost", port);
+		try {
+			socket.setSoTimeout(10000);
+			socket.setTcpNoDelay(true);
+			socket.startHandshake();
+			OutputStream out = socket.getOutputStream();
+			out.write(("GET /test/hello HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes("ISO-8859-1"));
+			out.flush();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+			assertEquals("HTTP/1.1 200 OK", reader.readLine());
+			while(reader.readLine() != null);
+			return socket.getSession().getId();
+		} finally {
+			socket.close();
+		}
+	}
+}
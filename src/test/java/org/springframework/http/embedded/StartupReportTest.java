@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.createWebApplication;
+
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.embedded.StartupReport.Phase;
+import org.springframework.http.embedded.StartupReport.Timing;
+
+/**
+ * Tests the report of the time taken by each phase of bringing up the server
+ * @author Amol Nayak
+ *
+ */
+public class StartupReportTest {
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void timesEachPhaseOfStartup() throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		server = new EmbeddedJettyServer();
+		server.initialize(config);
+		server.deployApplication(createWebApplication("/fast", new SlowStartingServlet(0), "/path"));
+		server.deployApplication(createWebApplication("/slow", new SlowStartingServlet(200), "/path"));
+		assertNull(server.getStartupReport());
+		server.start();
+		assertEquals(ServerRunStatus.RUNNING, server.getStatus());
+
+		StartupReport report = server.getStartupReport();
+		assertNotNull(report);
+		assertEquals(1, report.getTimings(Phase.INITIALIZE).size());
+		assertNames(report.getTimings(Phase.DEPLOY), "/fast", "/slow");
+		List<Timing> contextStarts = report.getTimings(Phase.START_CONTEXT);
+		assertNames(contextStarts, "/fast", "/slow");
+		//The servlet of the slow one is initialized when the application starts
+		assertTrue(contextStarts.get(1).getDuration() >= 200000);
+		assertTrue(contextStarts.get(1).getDuration() > contextStarts.get(0).getDuration());
+		assertNames(report.getTimings(Phase.BIND), ":" + port);
+		assertEquals(1, report.getTimings(Phase.START_SERVER).size());
+		assertTrue(report.getStartTime() >= contextStarts.get(1).getDuration());
+		assertTrue(report.getSummary(), report.getSummary().startsWith("Started in "));
+		assertTrue(report.getSummary(), report.getSummary().contains("start /slow "));
+
+		//Timed again on restart
+		server.stop();
+		server.start();
+		assertEquals(ServerRunStatus.RUNNING, server.getStatus());
+		report = server.getStartupReport();
+		assertNames(report.getTimings(Phase.DEPLOY), "/fast", "/slow");
+		assertNames(report.getTimings(Phase.START_CONTEXT), "/fast", "/slow");
+		assertEquals(1, report.getTimings(Phase.START_SERVER).size());
+	}
+
+	private void assertNames(List<Timing> timings, String... names) {
+		assertEquals(names.length, timings.size());
+		for(int i = 0; i < names.length; i++) {
+			assertEquals(names[i], timings.get(i).getName());
+		}
+	}
+
+	private static class SlowStartingServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long initTime;
+
+		private SlowStartingServlet(long initTime) {
+			this.initTime = initTime;
+		}
+
+		@Override
+		public void init() throws ServletException {
+			try {
+				Thread.sleep(initTime);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.get;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the deployment of the wars from the persistent extraction directory
+ * @author Amol Nayak
+ *
+ */
+public class WarExtractionTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void reusesUnchangedWars() throws Exception {
+		File war = writeWar("app.war", "version 1");
+		File extractionDirectory = new File(folder.getRoot(), "extracted");
+
+		startServer(war, extractionDirectory);
+		assertEquals("version 1", get(port, "/app/index.html"));
+		File[] extracted = extractionDirectory.listFiles();
+		assertEquals(1, extracted.length);
+		assertTrue(extracted[0].getName().matches("app-[0-9a-f]{8}-[0-9a-f]{64}"));
+		File marker = new File(extracted[0], "marker.txt");
+		assertTrue(marker.createNewFile());
+		server.stop();
+
+		//Deployed from the same directory, the file created in it is still served
+		startServer(war, extractionDirectory);
+		assertEquals("version 1", get(port, "/app/index.html"));
+		assertEquals("", get(port, "/app/marker.txt"));
+		server.stop();
+
+		war = writeWar("app.war", "version 2");
+		startServer(war, extractionDirectory);
+		assertEquals("version 2", get(port, "/app/index.html"));
+		extracted = extractionDirectory.listFiles();
+		assertEquals(1, extracted.length);
+		assertFalse(marker.exists());
+	}
+
+	@Test
+	public void keepsWarsOfTheSameNameFromOtherPaths() throws Exception {
+		File war = writeWar("app.war", "first");
+		folder.newFolder("other");
+		File otherWar = writeWar("other/app.war", "second");
+		File extractionDirectory = new File(folder.getRoot(), "extracted");
+		WarExtractionCache cache = new WarExtractionCache(extractionDirectory);
+
+		File extracted = cache.getExtractedWar(war);
+		File otherExtracted = cache.getExtractedWar(otherWar);
+		assertFalse(extracted.equals(otherExtracted));
+		assertTrue(new File(extracted, "index.html").exists());
+		assertTrue(new File(otherExtracted, "index.html").exists());
+
+		//A new version replaces only the one extracted from the same path
+		writeWar("other/app.war", "third");
+		File replaced = cache.getExtractedWar(otherWar);
+		assertTrue(new File(extracted, "index.html").exists());
+		assertTrue(new File(replaced, "index.html").exists());
+		assertFalse(otherExtracted.exists());
+		assertEquals(2, extractionDirectory.listFiles().length);
+	}
+
+	@Test
+	public void rejectsEntriesOutsideTheExtractionDirectory() throws Exception {
+		File war = new File(folder.getRoot(), "evil.war");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(war));
+		out.putNextEntry(new ZipEntry("../evil.txt"));
+		out.write("evil".getBytes("UTF-8"));
+		out.close();
+		File extractionDirectory = new File(folder.getRoot(), "extracted");
+		try {
+			new WarExtractionCache(extractionDirectory).getExtractedWar(war);
+			fail("Expected the war to be rejected");
+		} catch (IOException e) {
+			//expected
+		}
+		assertFalse(new File(folder.getRoot(), "evil.txt").exists());
+		assertEquals(0, extractionDirectory.listFiles().length);
+	}
+
+	private void startServer(File war, File extractionDirectory) throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		config.setWarExtractionDirectory(extractionDirectory.getAbsolutePath());
+		WebApplication webApp = new WebApplication();
+		webApp.setWarPath(war.getAbsolutePath());
+		webApp.setContextPath("/app");
+		webApp.afterPropertiesSet();
+		server = deployAndStart(config, webApp);
+	}
+
+	private File writeWar(String name, String index) throws IOException {
+		File war = new File(folder.getRoot(), name);
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(war));
+		try {
+			out.putNextEntry(new ZipEntry("WEB-INF/"));
+			out.putNextEntry(new ZipEntry("WEB-INF/web.xml"));
+			out.write(("<web-app xmlns=\"http://java.sun.com/xml/ns/javaee\" version=\"2.5\"/>").getBytes("UTF-8"));
+			out.putNextEntry(new ZipEntry("index.html"));
+			out.write(index.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		return war;
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.embedded.HttpTestSupport.createConfig;
+import static org.springframework.http.embedded.HttpTestSupport.deployAndStart;
+import static org.springframework.http.embedded.HttpTestSupport.readBytes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the static files served from memory mapped buffers, the time taken with and without the
+ * zero copy threshold is compared by the ZeroCopyBenchmark of the benchmarks
+ * @author Amol Nayak
+ *
+ */
+public class ZeroCopyTest {
+
+	@Rule
+	public TemporaryFolder webAppRoot = new TemporaryFolder();
+
+	private EmbeddedJettyServer server;
+	private int port;
+
+	@After
+	public void stopServer() {
+		if(server != null)
+			server.stop();
+	}
+
+	@Test
+	public void servesLargeFilesWhole() throws Exception {
+		byte[] content = write("large.bin", 100 * 1024);
+		write("small.txt", 100);
+		startServer(64 * 1024);
+
+		HttpURLConnection connection = open("/large.bin");
+		assertEquals(200, connection.getResponseCode());
+		assertEquals(String.valueOf(content.length), connection.getHeaderField("Content-Length"));
+		assertEquals("bytes", connection.getHeaderField("Accept-Ranges"));
+		assertTrue(connection.getLastModified() > 0);
+		assertArrayEquals(content, readBytes(connection));
+
+		connection = open("/large.bin");
+		connection.setIfModifiedSince(new File(webAppRoot.getRoot(), "large.bin").lastModified());
+		assertEquals(304, connection.getResponseCode());
+
+		//Below the threshold
+		assertEquals(100, readBytes(open("/small.txt")).length);
+	}
+
+	@Test
+	public void servesByteRangesOfLargeFiles() throws Exception {
+		byte[] content = write("large.bin", 100 * 1024);
+		startServer(64 * 1024);
+
+		HttpURLConnection connection = open("/large.bin");
+		connection.setRequestProperty("Range", "bytes=1000-1999");
+		assertEquals(206, connection.getResponseCode());
+		assertEquals("bytes 1000-1999/" + content.length, connection.getHeaderField("Content-Range"));
+		assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), readBytes(connection));
+
+		connection = open("/large.bin");
+		connection.setRequestProperty("Range", "bytes=-100");
+		assertEquals(206, connection.getResponseCode());
+		assertArrayEquals(Arrays.copyOfRange(content, content.length - 100, content.length), readBytes(connection));
+
+		//Multi part byte ranges are served by the default servlet
+		connection = open("/large.bin");
+		connection.setRequestProperty("Range", "bytes=0-9,100-109");
+		assertEquals(206, connection.getResponseCode());
+		assertTrue(connection.getContentType().startsWith("multipart/byteranges"));
+
+		connection = open("/large.bin");
+		connection.setRequestProperty("Range", "bytes=" + content.length + "-");
+		assertEquals(416, connection.getResponseCode());
+	}
+
+	@Test
+	public void servesLargeFilesOfCompressedApplications() throws Exception {
+		byte[] content = write("large.js", 100 * 1024);
+		startServer(64 * 1024, new CompressionConfig());
+
+		HttpURLConnection connection = open("/large.js");
+		assertEquals(200, connection.getResponseCode());
+		assertNull(connection.getHeaderField("Content-Encoding"));
+		assertEquals("Accept-Encoding", connection.getHeaderField("Vary"));
+		assertArrayEquals(content, readBytes(connection));
+
+		connection = open("/large.js");
+		connection.setRequestProperty("Accept-Encoding", "gzip");
+		assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+		assertArrayEquals(content, readBytes(new GZIPInputStream(connection.getInputStream())));
+	}
+
+	@Test
+	public void mapsModifiedFilesAgain() throws Exception {
+		byte[] content = write("large.bin", 100 * 1024);
+		startServer(64 * 1024);
+		assertArrayEquals(content, readBytes(open("/large.bin")));
+		assertArrayEquals(content, readBytes(open("/large.bin")));
+
+		File file = new File(webAppRoot.getRoot(), "large.bin");
+		long lastModified = file.lastModified();
+		content = write("large.bin", 120 * 1024);
+		assertTrue(file.setLastModified(lastModified + 2000));
+		HttpURLConnection connection = open("/large.bin");
+		assertEquals(String.valueOf(content.length), connection.getHeaderField("Content-Length"));
+		assertArrayEquals(content, readBytes(connection));
+	}
+
+	private void startServer(long zeroCopyThreshold) throws Exception {
+		startServer(zeroCopyThreshold, null);
+	}
+
+	private void startServer(long zeroCopyThreshold, CompressionConfig compressionConfig) throws Exception {
+		ServerConfig config = createConfig();
+		port = config.getStartupPort();
+		WebApplication webApp = new WebApplication();
+		webApp.setWebAppRoot(webAppRoot.getRoot().getAbsolutePath());
+		webApp.setContextPath("/static");
+		webApp.setZeroCopyThreshold(zeroCopyThreshold);
+		webApp.setCompressionConfig(compressionConfig);
+		webApp.afterPropertiesSet();
+		server = deployAndStart(config, webApp);
+	}
+
+	private HttpURLConnection open(String path) throws IOException {
+		return HttpTestSupport.open(port, "/static" + path);
+	}
+
+	private byte[] write(String name, int size) throws IOException {
+		byte[] content = new byte[Math.min(size, 1024 * 1024)];
+		new Random(size).nextBytes(content);
+		OutputStream out = new FileOutputStream(new File(webAppRoot.getRoot(), name));
+		try {
+			for(int written = 0; written < size; written += content.length) {
+				out.write(content, 0, Math.min(content.length, size - written));
+			}
+		} finally {
+			out.close();
+		}
+		return content;
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.embedded.ConnectorConfig;
+
+/**
+ * Tests the connection permits returned by the {@link ConnectionMonitor} on the failure paths
+ * where no end point is closed
+ * @author Amol Nayak
+ *
+ */
+public class ConnectionMonitorTest {
+
+	private ServerSocketChannel serverChannel;
+	private final List<SocketChannel> channels = new ArrayList<SocketChannel>();
+	private ConnectionMonitor monitor;
+
+	@Before
+	public void createMonitor() throws IOException {
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+		ConnectorConfig connectorConfig = new ConnectorConfig();
+		connectorConfig.setMaxConnections(1);
+		monitor = new ConnectionMonitor(connectorConfig);
+	}
+
+	@After
+	public void closeChannels() throws IOException {
+		for(SocketChannel channel:channels) {
+			channel.close();
+		}
+		serverChannel.close();
+	}
+
+	@Test
+	public void releasesPermitWhenEndPointNotCreated() throws Exception {
+		SocketChannel first = accept();
+		monitor.accepted(first.socket());
+		monitor.failed(first, null);
+		assertTrue(acceptsWithin(accept(), 500));
+		//Returned once only, the permit is held by the second channel
+		monitor.failed(first, null);
+		assertFalse(acceptsWithin(accept(), 500));
+	}
+
+	@Test
+	public void releasesPermitOfChannelClosedWithoutEndPoint() throws Exception {
+		SocketChannel first = accept();
+		monitor.accepted(first.socket());
+		first.close();
+		assertTrue(acceptsWithin(accept(), 5000));
+	}
+
+	/**
+	 * Checks if the acceptor admits the given channel within the given time, the blocked
+	 * acceptor thread is interrupted otherwise
+	 */
+	private boolean acceptsWithin(final SocketChannel channel, long millis) throws InterruptedException {
+		Thread acceptor = new Thread() {
+			@Override
+			public void run() {
+				try {
+					monitor.accepted(channel.socket());
+				} catch (IOException e) {
+					//Interrupted
+				}
+			}
+		};
+		acceptor.start();
+		acceptor.join(millis);
+		boolean accepted = !acceptor.isAlive();
+		acceptor.interrupt();
+		acceptor.join();
+		return accepted;
+	}
+
+	private SocketChannel accept() throws IOException {
+		SocketChannel client = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+		channels.add(client);
+		SocketChannel accepted = serverChannel.accept();
+		channels.add(accepted);
+		return accepted;
+	}
+}
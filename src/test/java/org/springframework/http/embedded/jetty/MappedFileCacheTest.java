@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.embedded.jetty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * Tests the bound of the {@link MappedFileCache} and the mappings dropped once their file
+ * changes or disappears
+ * @author Amol Nayak
+ *
+ */
+public class MappedFileCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private MappedFileCache cache;
+
+	@Before
+	public void createCache() {
+		cache = new MappedFileCache(2);
+	}
+
+	@Test
+	public void sharesMappingOfUnchangedFile() throws Exception {
+		File file = write("a.bin", 100);
+		ByteBuffer mapping = cache.getMapping(file);
+		assertEquals(100, mapping.capacity());
+		assertSame(mapping, cache.getMapping(file));
+	}
+
+	@Test
+	public void dropsLeastRecentlyUsedMappings() throws Exception {
+		File first = write("a.bin", 100);
+		File second = write("b.bin", 100);
+		File third = write("c.bin", 100);
+		cache.getMapping(first);
+		cache.getMapping(second);
+		//The first one becomes the most recently used
+		cache.getMapping(first);
+		cache.getMapping(third);
+		assertEquals(2, cache.size());
+		assertTrue(cache.isMapped(first));
+		assertFalse(cache.isMapped(second));
+		assertTrue(cache.isMapped(third));
+	}
+
+	@Test
+	public void mapsChangedFileAgain() throws Exception {
+		File file = write("a.bin", 100);
+		ByteBuffer mapping = cache.getMapping(file);
+		write("a.bin", 200);
+		assertEquals(200, cache.getMapping(file).capacity());
+		assertEquals(100, mapping.capacity());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void dropsMappingsOfChangedOrDeletedFiles() throws Exception {
+		File changed = write("a.bin", 100);
+		File deleted = write("b.bin", 100);
+		cache.getMapping(changed);
+		cache.getMapping(deleted);
+		write("a.bin", 200);
+		assertTrue(deleted.delete());
+		cache.getMapping(write("c.bin", 100));
+		assertEquals(1, cache.size());
+		assertFalse(cache.isMapped(changed));
+		assertFalse(cache.isMapped(deleted));
+	}
+
+	private File write(String name, int size) throws IOException {
+		File file = new File(folder.getRoot(), name);
+		FileCopyUtils.copy(new byte[size], file);
+		return file;
+	}
+}